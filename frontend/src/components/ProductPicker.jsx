@@ -0,0 +1,45 @@
+import React, { useEffect, useState } from 'react';
+import { searchProducts } from '../services/api';
+
+// Searches the catalog on the server as the user types instead of loading every product.
+const ProductPicker = ({ name, value, onChange, selectedLabel }) => {
+    const [query, setQuery] = useState('');
+    const [results, setResults] = useState([]);
+
+    useEffect(() => {
+        if (!query.trim()) {
+            setResults([]);
+            return;
+        }
+        const timer = setTimeout(async () => {
+            try {
+                const res = await searchProducts(query);
+                setResults(res.data);
+            } catch (error) {
+                console.error("Error searching products:", error);
+            }
+        }, 250);
+        return () => clearTimeout(timer);
+    }, [query]);
+
+    const selectedMissing = value && !results.some(p => String(p.id) === String(value));
+
+    return (
+        <>
+            <input
+                type="search"
+                className="form-control mb-2"
+                placeholder="Search by SKU or name..."
+                value={query}
+                onChange={(e) => setQuery(e.target.value)}
+            />
+            <select className="form-select" name={name} value={value} onChange={onChange} required>
+                <option value="">{results.length ? "Select a Product..." : "Type above to find a product"}</option>
+                {selectedMissing && <option value={value}>{selectedLabel || `Product #${value}`}</option>}
+                {results.map(p => <option key={p.id} value={p.id}>{p.name} (SKU: {p.sku})</option>)}
+            </select>
+        </>
+    );
+};
+
+export default ProductPicker;
@@ -1,9 +1,9 @@
 import React, { useEffect, useState } from 'react';
-import { getAllWarehouses, getAllInventory } from '../services/api';
+import { getDashboardSummary, getAlerts } from '../services/api';
 
 const Dashboard = () => {
-    const [warehouses, setWarehouses] = useState([]);
-    const [inventory, setInventory] = useState([]);
+    const [summary, setSummary] = useState(null);
+    const [alerts, setAlerts] = useState([]);
     const [loading, setLoading] = useState(true);
 
     useEffect(() => {
@@ -12,10 +12,10 @@ const Dashboard = () => {
 
     const fetchData = async () => {
         try {
-            const warehouseRes = await getAllWarehouses();
-            const inventoryRes = await getAllInventory();
-            setWarehouses(warehouseRes.data);
-            setInventory(inventoryRes.data);
+            // Totals, per-warehouse load and top products all come pre-aggregated from the server
+            const [summaryRes, alertsRes] = await Promise.all([getDashboardSummary(), getAlerts()]);
+            setSummary(summaryRes.data);
+            setAlerts(alertsRes.data);
             setLoading(false);
         } catch (error) {
             console.error("Error fetching dashboard data:", error);
@@ -23,14 +23,8 @@ const Dashboard = () => {
         }
     };
 
-    // Helper to calculate current load for a specific warehouse
-    const calculateLoad = (warehouseId) => {
-        return inventory
-            .filter(item => item.warehouse.id === warehouseId)
-            .reduce((sum, item) => sum + item.quantity, 0);
-    };
-
     if (loading) return <div className="text-center mt-5">Loading Dashboard...</div>;
+    if (!summary) return <div className="text-center mt-5">Dashboard unavailable.</div>;
 
     return (
         <div className="container mt-4">
@@ -42,7 +36,7 @@ const Dashboard = () => {
                     <div className="card text-white bg-primary mb-3">
                         <div className="card-header">Total Warehouses</div>
                         <div className="card-body">
-                            <h5 className="card-title display-4">{warehouses.length}</h5>
+                            <h5 className="card-title display-4">{summary.totalWarehouses}</h5>
                         </div>
                     </div>
                 </div>
@@ -50,9 +44,7 @@ const Dashboard = () => {
                     <div className="card text-white bg-success mb-3">
                         <div className="card-header">Total Inventory Items</div>
                         <div className="card-body">
-                            <h5 className="card-title display-4">
-                                {inventory.reduce((sum, item) => sum + item.quantity, 0)}
-                            </h5>
+                            <h5 className="card-title display-4">{summary.totalQuantity}</h5>
                         </div>
                     </div>
                 </div>
@@ -60,21 +52,38 @@ const Dashboard = () => {
                     <div className="card text-white bg-info mb-3">
                         <div className="card-header">Active Products</div>
                         <div className="card-body">
-                            {/* Uses Set to count unique product IDs */}
-                            <h5 className="card-title display-4">
-                                {new Set(inventory.map(i => i.product.id)).size}
-                            </h5>
+                            <h5 className="card-title display-4">{summary.activeProducts}</h5>
                         </div>
                     </div>
                 </div>
             </div>
 
+            {/* Active Alerts */}
+            {alerts.length > 0 && (
+                <div className="mb-4">
+                    <h3>Alerts</h3>
+                    <ul className="list-group">
+                        {alerts.map(alert => {
+                            const warehouse = summary.warehouses.find(w => w.id === alert.warehouseId);
+                            const where = warehouse ? warehouse.name : `Warehouse #${alert.warehouseId}`;
+                            return (
+                                <li key={`${alert.kind}-${alert.warehouseId}-${alert.productId}`}
+                                    className={`list-group-item ${alert.clearingSince ? 'text-muted' : 'list-group-item-danger'}`}>
+                                    {alert.kind === 'LOW_STOCK'
+                                        ? `Low stock: product #${alert.productId} in ${where} (${alert.value} left, reorder below ${alert.threshold})`
+                                        : `Near capacity: ${where} at ${alert.value} (alerts from ${alert.threshold})`}
+                                </li>
+                            );
+                        })}
+                    </ul>
+                </div>
+            )}
+
             {/* Warehouse Capacity Section */}
             <h3>Warehouse Capacity</h3>
             <div className="row">
-                {warehouses.map(warehouse => {
-                    const currentLoad = calculateLoad(warehouse.id);
-                    const percentage = Math.round((currentLoad / warehouse.maxCapacity) * 100);
+                {summary.warehouses.map(warehouse => {
+                    const percentage = Math.round(warehouse.utilizationPercent);
                     let progressBarColor = "bg-success";
                     if (percentage > 70) progressBarColor = "bg-warning";
                     if (percentage > 90) progressBarColor = "bg-danger";
@@ -85,17 +94,18 @@ const Dashboard = () => {
                                 <div className="card-body">
                                     <h5 className="card-title">{warehouse.name}</h5>
                                     <h6 className="card-subtitle mb-2 text-muted">{warehouse.location}</h6>
-                                    
+
                                     <p className="mt-3 mb-1">
-                                        Capacity: {currentLoad} / {warehouse.maxCapacity}
+                                        Capacity: {warehouse.currentLoad} / {warehouse.maxCapacity}
+                                        <span className="text-muted ms-2">({warehouse.skuCount} SKUs)</span>
                                     </p>
                                     <div className="progress" style={{ height: "25px" }}>
-                                        <div 
-                                            className={`progress-bar ${progressBarColor}`} 
-                                            role="progressbar" 
+                                        <div
+                                            className={`progress-bar ${progressBarColor}`}
+                                            role="progressbar"
                                             style={{ width: `${percentage}%` }}
-                                            aria-valuenow={percentage} 
-                                            aria-valuemin="0" 
+                                            aria-valuenow={percentage}
+                                            aria-valuemin="0"
                                             aria-valuemax="100"
                                         >
                                             {percentage}%
@@ -107,8 +117,29 @@ const Dashboard = () => {
                     );
                 })}
             </div>
+
+            {/* Top Products Section */}
+            <h3>Top Products</h3>
+            <table className="table table-striped">
+                <thead>
+                    <tr>
+                        <th>Product</th>
+                        <th>SKU</th>
+                        <th>Total Quantity</th>
+                    </tr>
+                </thead>
+                <tbody>
+                    {summary.topProducts.map(product => (
+                        <tr key={product.productId}>
+                            <td>{product.name}</td>
+                            <td>{product.sku}</td>
+                            <td>{product.quantity}</td>
+                        </tr>
+                    ))}
+                </tbody>
+            </table>
         </div>
     );
 };
 
-export default Dashboard;
\ No newline at end of file
+export default Dashboard;
@@ -1,22 +1,31 @@
-import React, { useEffect, useState } from 'react';
+import React, { useEffect, useRef, useState } from 'react';
 import { 
     getAllInventory, 
     deleteInventory, 
-    getAllProducts, 
     getAllWarehouses, 
     createInventory, 
     updateInventory,
-    transferInventory 
+    transferInventory,
+    subscribeInventoryEvents
 } from '../services/api';
 import GenericTable from '../components/GenericTable';
 import GenericModal from '../components/GenericModal';
+import ProductPicker from '../components/ProductPicker';
 import useCrudForm from '../hooks/useCrudForm';
 
 const InventoryList = () => {
     const [inventory, setInventory] = useState([]);
-    const [products, setProducts] = useState([]);
+    const inventoryRef = useRef(inventory);
+    inventoryRef.current = inventory;
     const [warehouses, setWarehouses] = useState([]);
 
+    // Filtering and sorting happen on the server; the form is applied on submit
+    const emptyFilters = { warehouseId: '', sku: '', maxQuantity: '', sort: '' };
+    const [filterForm, setFilterForm] = useState(emptyFilters);
+    const [filters, setFilters] = useState(emptyFilters);
+    const filtersRef = useRef(filters);
+    filtersRef.current = filters;
+
     // --- USE THE HOOK FOR ADD/EDIT ---
     const {
         formData: addFormData,
@@ -32,7 +41,7 @@ const InventoryList = () => {
         { productId: '', warehouseId: '', quantity: '', storageLocation: '' },
         (data) => createInventory(formatPayload(data)), // Wrapper to format payload on create
         (id, data) => updateInventory(id, formatPayload(data)), // Wrapper to format payload on update
-        () => loadInventory()
+        () => {} // The change comes back over the event stream
     );
 
     // --- HELPER TO FORMAT DATA FOR API ---
@@ -65,13 +74,36 @@ const InventoryList = () => {
     });
 
     useEffect(() => {
-        loadInventory();
         loadDropdowns();
+        return subscribeInventoryEvents(applyChange, loadInventory);
     }, []);
 
+    useEffect(() => {
+        loadInventory();
+    }, [filters]);
+
+    // Quantity-only changes are patched in place; anything that needs product or
+    // warehouse details we don't have (new rows, moves, edits) triggers a refetch.
+    // So does any change while filtered, since it may move a row in or out of the view.
+    const applyChange = (change) => {
+        if (change.type === 'DELETED') {
+            setInventory(rows => rows.filter(row => row.id !== change.inventoryId));
+            return;
+        }
+        const known = inventoryRef.current.some(row =>
+            row.id === change.inventoryId && row.warehouse.id === change.warehouseId);
+        const filtered = Object.values(filtersRef.current).some(value => value !== '');
+        if (change.type !== 'TRANSFERRED' || !known || filtered) {
+            loadInventory();
+            return;
+        }
+        setInventory(rows => rows.map(row =>
+            row.id === change.inventoryId ? { ...row, quantity: change.quantity } : row));
+    };
+
     const loadInventory = async () => {
         try {
-            const result = await getAllInventory();
+            const result = await getAllInventory(filtersRef.current);
             setInventory(result.data);
         } catch (error) {
             console.error("Error loading inventory:", error);
@@ -80,15 +112,34 @@ const InventoryList = () => {
 
     const loadDropdowns = async () => {
         try {
-            const pRes = await getAllProducts();
+            // Products are looked up on demand by ProductPicker; the catalog is too big to preload
             const wRes = await getAllWarehouses();
-            setProducts(pRes.data);
             setWarehouses(wRes.data);
         } catch (error) {
             console.error("Error loading dropdowns:", error);
         }
     };
 
+    // Name for a product that is already in stock, e.g. the one being edited
+    const productLabel = (productId) => {
+        const row = inventory.find(i => String(i.product.id) === String(productId));
+        return row ? `${row.product.name} (SKU: ${row.product.sku})` : undefined;
+    };
+
+    const handleFilterInput = (e) => {
+        setFilterForm({ ...filterForm, [e.target.name]: e.target.value });
+    };
+
+    const handleFilterSubmit = (e) => {
+        e.preventDefault();
+        setFilters(filterForm);
+    };
+
+    const clearFilters = () => {
+        setFilterForm(emptyFilters);
+        setFilters(emptyFilters);
+    };
+
     // Transfer Logic (Not using crud hook because it's unique)
     const handleTransferInput = (e) => {
         setTransferData({ ...transferData, [e.target.name]: e.target.value });
@@ -111,7 +162,6 @@ const InventoryList = () => {
             alert("Transfer Successful!");
             setShowTransferModal(false);
             setTransferData({ sourceWarehouseId: '', destWarehouseId: '', productId: '', amount: '' });
-            loadInventory();
         } catch (error) {
             console.error("Error transferring inventory:", error);
             alert("Transfer Failed: " + (error.response?.data?.message || error.message));
@@ -121,7 +171,6 @@ const InventoryList = () => {
     const handleDelete = async (id) => {
         if (window.confirm("Are you sure you want to delete this item?")) {
             await deleteInventory(id);
-            loadInventory(); 
         }
     };
 
@@ -146,7 +195,37 @@ const InventoryList = () => {
                     </button>
                 </div>
             </div>
-            
+
+            <form className="row g-2 align-items-end mb-3" onSubmit={handleFilterSubmit}>
+                <div className="col-md-3">
+                    <label className="form-label small">Warehouse</label>
+                    <select className="form-select" name="warehouseId" value={filterForm.warehouseId} onChange={handleFilterInput}>
+                        <option value="">All warehouses</option>
+                        {warehouses.map(w => <option key={w.id} value={w.id}>{w.name}</option>)}
+                    </select>
+                </div>
+                <div className="col-md-3">
+                    <label className="form-label small">SKU starts with</label>
+                    <input type="text" className="form-control" name="sku" value={filterForm.sku} onChange={handleFilterInput} />
+                </div>
+                <div className="col-md-2">
+                    <label className="form-label small">Max quantity</label>
+                    <input type="number" className="form-control" name="maxQuantity" value={filterForm.maxQuantity} onChange={handleFilterInput} min="0" />
+                </div>
+                <div className="col-md-2">
+                    <label className="form-label small">Sort</label>
+                    <select className="form-select" name="sort" value={filterForm.sort} onChange={handleFilterInput}>
+                        <option value="">ID</option>
+                        <option value="quantity">Quantity (low first)</option>
+                        <option value="-quantity">Quantity (high first)</option>
+                    </select>
+                </div>
+                <div className="col-md-2">
+                    <button type="submit" className="btn btn-outline-primary me-2">Apply</button>
+                    <button type="button" className="btn btn-outline-secondary" onClick={clearFilters}>Clear</button>
+                </div>
+            </form>
+
             <GenericTable 
                 data={inventory}
                 columns={columns}
@@ -167,10 +246,8 @@ const InventoryList = () => {
                 <form onSubmit={handleSaveSubmit}>
                     <div className="mb-3">
                         <label className="form-label">Product</label>
-                        <select className="form-select" name="productId" value={addFormData.productId} onChange={handleAddInput} required>
-                            <option value="">Select a Product...</option>
-                            {products.map(p => <option key={p.id} value={p.id}>{p.name} (SKU: {p.sku})</option>)}
-                        </select>
+                        <ProductPicker name="productId" value={addFormData.productId} onChange={handleAddInput}
+                            selectedLabel={productLabel(addFormData.productId)} />
                     </div>
                     <div className="mb-3">
                         <label className="form-label">Warehouse</label>
@@ -199,10 +276,8 @@ const InventoryList = () => {
                 <form onSubmit={handleTransferSubmit}>
                     <div className="mb-3">
                         <label className="form-label">Product to Move</label>
-                        <select className="form-select" name="productId" value={transferData.productId} onChange={handleTransferInput} required>
-                            <option value="">Select Product...</option>
-                            {products.map(p => <option key={p.id} value={p.id}>{p.name}</option>)}
-                        </select>
+                        <ProductPicker name="productId" value={transferData.productId} onChange={handleTransferInput}
+                            selectedLabel={productLabel(transferData.productId)} />
                     </div>
                     <div className="row">
                         <div className="col-md-6 mb-3">
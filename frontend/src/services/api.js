@@ -6,21 +6,79 @@ const api = axios.create({
     baseURL: API_URL,
 });
 
-export const getAllWarehouses = () => api.get('/warehouses');
+// Read-your-writes with read replicas: writes answer with X-Consistency-Token and echoing
+// it keeps this tab's reads on the primary until the replicas have caught up
+let consistencyToken = null;
+api.interceptors.response.use((res) => {
+    const token = res.headers['x-consistency-token'];
+    if (token) {
+        consistencyToken = token;
+    }
+    return res;
+});
+api.interceptors.request.use((config) => {
+    if (consistencyToken && Number(consistencyToken) > Date.now()) {
+        config.headers['X-Consistency-Token'] = consistencyToken;
+    }
+    return config;
+});
+
+// Warehouse and product lists carry an ETag with Cache-Control: no-cache, so the browser
+// revalidates each poll and an unchanged page comes back as an empty 304.
+// List endpoints are keyset-paged (?after=<last id>&limit=). Follow the cursor
+// until a short page comes back so callers still get the full list.
+// When sorted by quantity the cursor also needs the last row's quantity.
+const PAGE_SIZE = 1000;
+const getAllPages = async (path, params = {}) => {
+    const rows = [];
+    let cursor = { after: 0 };
+    while (true) {
+        const res = await api.get(path, { params: { ...params, ...cursor, limit: PAGE_SIZE } });
+        rows.push(...res.data);
+        if (res.data.length < PAGE_SIZE) {
+            return { ...res, data: rows };
+        }
+        const last = res.data[res.data.length - 1];
+        cursor = { after: last.id, afterQuantity: params.sort ? last.quantity : undefined };
+    }
+};
+
+export const getAllWarehouses = () => getAllPages('/warehouses');
 export const createWarehouse = (warehouse) => api.post('/warehouses', warehouse);
 export const deleteWarehouse = (id) => api.delete(`/warehouses/${id}`);
 export const updateWarehouse = (id, data) => api.put(`/warehouses/${id}`, data);
 
-export const getAllProducts = () => api.get('/products');
+export const getAllProducts = () => getAllPages('/products');
+export const searchProducts = (q, limit = 20) => api.get('/products/search', { params: { q, limit } });
 export const createProduct = (product) => api.post('/products', product);
 export const updateProduct = (id, product) => api.put(`/products/${id}`, product);
 export const deleteProduct = (id) => api.delete(`/products/${id}`);
 
-export const getAllInventory = () => api.get('/inventory');
+// filters: warehouseId, productId, sku / location (prefixes), minQuantity, maxQuantity,
+// sort (quantity or -quantity); empty values are left out
+export const getAllInventory = (filters = {}) => getAllPages('/inventory',
+    Object.fromEntries(Object.entries(filters).filter(([, value]) => value !== '' && value != null)));
 export const createInventory = (item) => api.post('/inventory', item);
 export const updateInventory = (id, item) => api.put(`/inventory/${id}`, item);
 export const deleteInventory = (id) => api.delete(`/inventory/${id}`);
 
 export const transferInventory = (data) => api.post('/inventory/transfer', data);
 
+// Server-sent inventory changes. EventSource reconnects on its own and sends
+// Last-Event-ID, so missed changes are replayed; a "reset" event means they
+// couldn't be and the caller should refetch.
+export const subscribeInventoryEvents = (onChange, onReset) => {
+    const source = new EventSource(`${API_URL}/inventory/events`);
+    ['created', 'updated', 'deleted', 'transferred'].forEach(type =>
+        source.addEventListener(type, (e) => onChange(JSON.parse(e.data))));
+    source.addEventListener('reset', onReset);
+    return () => source.close();
+};
+
+// Aggregated on the server; the browser revalidates it with the ETag, so refreshes are mostly 304s
+export const getDashboardSummary = (top = 5) => api.get('/dashboard/summary', { params: { top } });
+
+// Active low-stock / over-capacity alerts, kept up to date by the server as stock moves
+export const getAlerts = () => api.get('/alerts');
+
 export default api;
\ No newline at end of file
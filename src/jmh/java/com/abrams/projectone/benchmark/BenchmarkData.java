@@ -0,0 +1,134 @@
+package com.abrams.projectone.benchmark;
+
+import com.abrams.projectone.ProjectoneApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Boots the application (no web server) and seeds {@code rows} inventory rows with plain JDBC.
+ *
+ * Layout: {@code products} products (at most 1000), each stocked with {@link #SEED_QUANTITY}
+ * units in every "full" warehouse, inventory ids 1..rows. Benchmarks only touch the full
+ * warehouses so every (warehouse, product) pair they pick already exists.
+ *
+ * Runs against the test config (in-memory H2) by default. Pass
+ * {@code -jvmArgsAppend "-Dspring.datasource.url=... -Dspring.datasource.username=..."} to use
+ * another database - the seed DELETEs from inventory, products and warehouses, so point it at a scratch one.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkData {
+
+    static final int SEED_QUANTITY = 1000;
+    private static final int MAX_PRODUCTS = 1000;
+    private static final int SEED_BATCH = 10_000;
+
+    @Param({"1000"})
+    public int rows;
+
+    ConfigurableApplicationContext context;
+    JdbcTemplate jdbc;
+
+    long[] warehouseIds;
+    long[] productIds;
+    int products;
+    int fullWarehouses;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ProjectoneApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.jpa.show-sql=false",
+                 "--spring.jpa.properties.hibernate.generate_statistics=false",
+                 "--logging.level.root=WARN",
+                 "--spring.main.banner-mode=off");
+        jdbc = context.getBean(JdbcTemplate.class);
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    long randomWarehouseId() {
+        return warehouseIds[ThreadLocalRandom.current().nextInt(fullWarehouses)];
+    }
+
+    long randomProductId() {
+        return productIds[ThreadLocalRandom.current().nextInt(products)];
+    }
+
+    long randomInventoryId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1L);
+    }
+
+    /** A warehouse with nothing in it yet, so every product can be created there as a new row. */
+    long emptyWarehouse() {
+        jdbc.update("INSERT INTO warehouses (name, location, max_capacity, current_load) VALUES (?, ?, ?, 0)",
+            "bench-empty", "bench", Integer.MAX_VALUE);
+        return jdbc.queryForObject("SELECT MAX(warehouse_id) FROM warehouses", Long.class);
+    }
+
+    private void seed() {
+        if (rows < 2) {
+            throw new IllegalArgumentException("rows must be at least 2");
+        }
+        jdbc.update("DELETE FROM inventory");
+        jdbc.update("DELETE FROM products");
+        jdbc.update("DELETE FROM warehouses");
+
+        products = Math.min(MAX_PRODUCTS, rows / 2);
+        fullWarehouses = rows / products;
+        int warehouses = (rows + products - 1) / products;
+
+        List<Object[]> batch = new ArrayList<>();
+        for (int w = 0; w < warehouses; w++) {
+            long load = (long) Math.min(products, rows - w * products) * SEED_QUANTITY;
+            batch.add(new Object[] {"bench-" + w, "bench", Integer.MAX_VALUE, load});
+        }
+        jdbc.batchUpdate("INSERT INTO warehouses (name, location, max_capacity, current_load) VALUES (?, ?, ?, ?)", batch);
+        warehouseIds = jdbc.queryForList("SELECT warehouse_id FROM warehouses ORDER BY warehouse_id", Long.class)
+            .stream().mapToLong(Long::longValue).toArray();
+
+        batch.clear();
+        for (int p = 0; p < products; p++) {
+            batch.add(new Object[] {"bench-" + p, "BENCH-" + p});
+        }
+        jdbc.batchUpdate("INSERT INTO products (name, sku) VALUES (?, ?)", batch);
+        productIds = jdbc.queryForList("SELECT product_id FROM products ORDER BY product_id", Long.class)
+            .stream().mapToLong(Long::longValue).toArray();
+
+        batch.clear();
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[] {i + 1L, warehouseIds[i / products], productIds[i % products], SEED_QUANTITY, "A-" + i});
+            if (batch.size() == SEED_BATCH) {
+                insertInventory(batch);
+            }
+        }
+        insertInventory(batch);
+
+        // Same adjustment as V4__SyncInventorySequence: keep Hibernate's pooled ids clear of the seeded ones
+        jdbc.execute("ALTER SEQUENCE inventory_seq RESTART WITH " + (rows + 51L));
+    }
+
+    private void insertInventory(List<Object[]> batch) {
+        jdbc.batchUpdate("INSERT INTO inventory (inventory_id, warehouse_id, product_id, quantity, storage_location) VALUES (?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+}
@@ -0,0 +1,78 @@
+package com.abrams.projectone.benchmark;
+
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.inventory.InventoryWriteCoalescer;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.warehouse.Warehouse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many threads receiving into the same (warehouse, product): create() straight through
+ * InventoryService, where every call queues on the warehouse lock, against the same calls
+ * through InventoryWriteCoalescer. windowMicros > 0 holds each batch for more writers.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="-p windowMicros=0,1000 -t 32 HotRowBenchmark"
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+// More writers than db.max-concurrent: let them queue for the pool rather than be shed
+@Fork(value = 1, jvmArgsAppend = "-Ddb.queue-timeout=PT30S")
+public class HotRowBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class HotRow {
+        @Param({"0", "1000"})
+        public long windowMicros;
+
+        @Param({"64"})
+        public int maxBatch;
+
+        InventoryService inventoryService;
+        InventoryWriteCoalescer coalescer;
+        Inventory line;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkData data) {
+            inventoryService = data.bean(InventoryService.class);
+            coalescer = new InventoryWriteCoalescer(inventoryService, data.bean(InventoryRepository.class),
+                data.bean(Validator.class), true, Duration.ofNanos(windowMicros * 1000), maxBatch, new SimpleMeterRegistry());
+            Warehouse warehouse = new Warehouse();
+            warehouse.setId(data.warehouseIds[0]);
+            Product product = new Product();
+            product.setId(data.productIds[0]);
+            line = new Inventory(warehouse, product, 1, "BENCH");
+        }
+    }
+
+    @Benchmark
+    public Inventory createDirect(HotRow hot) {
+        return hot.inventoryService.create(hot.line);
+    }
+
+    @Benchmark
+    public Inventory createCoalesced(HotRow hot) {
+        return hot.coalescer.create(hot.line);
+    }
+}
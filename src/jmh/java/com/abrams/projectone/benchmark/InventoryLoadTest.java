@@ -0,0 +1,115 @@
+package com.abrams.projectone.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load against a running instance: {@code clients} threads each send the
+ * next request as soon as the last one returns. Prints throughput, status counts and latency
+ * percentiles, so runs with different db.max-concurrent / pool settings can be compared.
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.abrams.projectone.benchmark.InventoryLoadTest \
+ *     -Dexec.args="http://localhost:8080 /api/inventory?limit=100 200 PT30S"
+ */
+public class InventoryLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        String path = args.length > 1 ? args[1] : "/api/inventory?limit=100";
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        Duration duration = args.length > 3 ? Duration.parse(args[3]) : Duration.ofSeconds(30);
+
+        HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+
+        // Short warm-up so JIT and pools are settled before measuring
+        run(http, request, clients, Duration.ofSeconds(5));
+        Result result = run(http, request, clients, duration);
+        result.print(path, clients, duration);
+    }
+
+    private static Result run(HttpClient http, HttpRequest request, int clients, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<long[]> latencies = new ArrayList<>();
+        AtomicLong ok = new AtomicLong();
+        AtomicLong shed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(clients);
+
+        for (int c = 0; c < clients; c++) {
+            long[] samples = new long[1 << 16];
+            int[] count = new int[1];
+            Thread client = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    long started = System.nanoTime();
+                    int status;
+                    try {
+                        status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    long elapsed = System.nanoTime() - started;
+                    if (status == 200) {
+                        ok.incrementAndGet();
+                        if (count[0] < samples.length) {
+                            samples[count[0]++] = elapsed;
+                        }
+                    } else if (status == 503) {
+                        shed.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                }
+                synchronized (latencies) {
+                    latencies.add(Arrays.copyOf(samples, count[0]));
+                }
+                done.countDown();
+            });
+            client.start();
+        }
+        done.await();
+        return new Result(latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray(), ok.get(), shed.get(), failed.get(), duration);
+    }
+
+    private record Result(long[] sortedNanos, long ok, long shed, long failed, Duration duration) {
+
+        void print(String path, int clients, Duration duration) {
+            double seconds = duration.toMillis() / 1000.0;
+            System.out.printf("%n%s, %d clients, %s%n", path, clients, duration);
+            System.out.printf("%-12s %10s%n", "throughput", String.format("%.1f req/s", ok / seconds));
+            System.out.printf("%-12s %10d%n", "200", ok);
+            System.out.printf("%-12s %10d%n", "503", shed);
+            System.out.printf("%-12s %10d%n", "errors", failed);
+            for (double p : new double[] {0.50, 0.90, 0.99, 0.999}) {
+                System.out.printf("%-12s %10s%n", "p" + (p * 100), millis(percentile(p)));
+            }
+            System.out.printf("%-12s %10s%n", "max", millis(sortedNanos.length == 0 ? 0 : sortedNanos[sortedNanos.length - 1]));
+        }
+
+        private long percentile(double p) {
+            if (sortedNanos.length == 0) {
+                return 0;
+            }
+            return sortedNanos[(int) Math.min(sortedNanos.length - 1, Math.ceil(p * sortedNanos.length) - 1)];
+        }
+
+        private static String millis(long nanos) {
+            return String.format("%.2f ms", nanos / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.abrams.projectone.benchmark;
+
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.warehouse.Warehouse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InventoryService hot paths against a seeded database (see {@link BenchmarkData}).
+ * Reports throughput plus sampled latency percentiles.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="-p rows=1000,100000 InventoryServiceBenchmark"
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Service {
+        @Param({"100"})
+        public int pageSize;
+
+        InventoryService inventoryService;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkData data) {
+            inventoryService = data.bean(InventoryService.class);
+        }
+    }
+
+    /** Walks one empty warehouse product by product so every create() inserts a new row. */
+    @State(Scope.Thread)
+    public static class NewRows {
+        BenchmarkData data;
+        long warehouseId;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void setUp(BenchmarkData data) {
+            this.data = data;
+            warehouseId = data.emptyWarehouse();
+            next = 0;
+        }
+
+        long nextProductId() {
+            if (next == data.products) {
+                warehouseId = data.emptyWarehouse();
+                next = 0;
+            }
+            return data.productIds[next++];
+        }
+    }
+
+    @Benchmark
+    public Inventory createNewRow(Service service, NewRows newRows) {
+        return service.inventoryService.create(line(newRows.warehouseId, newRows.nextProductId(), 1));
+    }
+
+    @Benchmark
+    public Inventory createMerge(Service service, BenchmarkData data) {
+        return service.inventoryService.create(line(data.randomWarehouseId(), data.randomProductId(), 1));
+    }
+
+    @Benchmark
+    public Inventory update(Service service, BenchmarkData data) {
+        Inventory changes = new Inventory();
+        changes.setQuantity(ThreadLocalRandom.current().nextInt(500, 1500));
+        return service.inventoryService.update(data.randomInventoryId(), changes);
+    }
+
+    @Benchmark
+    public void transferInventory(Service service, BenchmarkData data) {
+        long source = data.randomWarehouseId();
+        long dest = data.randomWarehouseId();
+        while (dest == source) {
+            dest = data.randomWarehouseId();
+        }
+        // One unit in a random direction, so stock on the seeded rows random-walks around SEED_QUANTITY
+        service.inventoryService.transferInventory(source, dest, data.randomProductId(), 1);
+    }
+
+    @Benchmark
+    public List<Inventory> getAll(Service service, BenchmarkData data) {
+        long after = ThreadLocalRandom.current().nextLong(Math.max(1, data.rows - service.pageSize));
+        return service.inventoryService.getAll(after, service.pageSize);
+    }
+
+    private static Inventory line(long warehouseId, long productId, int quantity) {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setId(warehouseId);
+        Product product = new Product();
+        product.setId(productId);
+        return new Inventory(warehouse, product, quantity, "BENCH");
+    }
+}
@@ -0,0 +1,24 @@
+package com.abrams.projectone.alert;
+
+import java.time.Instant;
+
+/**
+ * An active alert. For LOW_STOCK {@code value} is the row's quantity and {@code threshold}
+ * the reorder level; for OVER_CAPACITY ({@code productId} null) they are the warehouse's
+ * current load and the load at which it alerts.
+ * {@code clearingSince} is set once the condition stopped holding: the alert is dropped
+ * if it stays clear for alerts.clear-after, and picked up again (occurrences + 1) if not.
+ */
+public record Alert(AlertKind kind, Long warehouseId, Long productId, long value, long threshold,
+                    Instant raisedAt, Instant updatedAt, Instant clearingSince, int occurrences) {
+
+    Alert observed(long value, long threshold, Instant now) {
+        return new Alert(kind, warehouseId, productId, value, threshold, raisedAt, now, null,
+            clearingSince == null ? occurrences : occurrences + 1);
+    }
+
+    Alert clearing(long value, Instant now) {
+        return new Alert(kind, warehouseId, productId, value, threshold, raisedAt, now,
+            clearingSince == null ? now : clearingSince, occurrences);
+    }
+}
@@ -0,0 +1,39 @@
+package com.abrams.projectone.alert;
+
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/alerts")
+public class AlertController {
+
+    private final AlertService alertService;
+
+    public AlertController(AlertService alertService) {
+        this.alertService = alertService;
+    }
+
+    // ?kind=LOW_STOCK&warehouseId=1, both optional
+    @GetMapping
+    public List<Alert> getActive(@RequestParam(required = false) AlertKind kind,
+                                 @RequestParam(required = false) Long warehouseId) {
+        return alertService.getActive(kind, warehouseId);
+    }
+
+    @GetMapping("/rules")
+    public List<AlertRule> getRules() {
+        return alertService.getRules();
+    }
+
+    // {"kind":"LOW_STOCK","productId":7,"threshold":25}; omitted ids mean any warehouse/product
+    @PostMapping("/rules")
+    public AlertRule saveRule(@RequestBody AlertRule rule) {
+        return alertService.saveRule(rule);
+    }
+
+    @DeleteMapping("/rules/{id}")
+    public void deleteRule(@PathVariable Long id) {
+        alertService.deleteRule(id);
+    }
+}
@@ -0,0 +1,298 @@
+package com.abrams.projectone.alert;
+
+import com.abrams.projectone.inventory.InventoryChange;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryView;
+import com.abrams.projectone.warehouse.WarehouseLoad;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Raises and clears alerts from the inventory changes themselves instead of scanning the
+ * tables, so the work done is proportional to the rows written.
+ * <ul>
+ * <li>A transaction's changes are collected as InventoryService publishes them. Just before
+ * commit, while the writer still holds its warehouse locks, the loads of the warehouses
+ * whose stock moved are read in one query and the transaction takes a sequence number.
+ * After commit its observations are applied in that order, so two writers to the same
+ * warehouse can't apply out of order; rolled-back transactions are dropped.</li>
+ * <li>Deduplicated: one alert per (kind, warehouse, product) however often it fires.</li>
+ * <li>Debounced: an alert whose condition clears stays up for alerts.clear-after and is
+ * removed only if it stays clear, so a row bouncing around its threshold is one alert.</li>
+ * </ul>
+ * Active alerts live in memory. They are rebuilt from the tables at start-up and when the
+ * rules change; writes that bypass InventoryService are picked up by the next change to
+ * the same row or warehouse.
+ */
+@Component
+public class AlertEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertEngine.class);
+
+    private final InventoryRepository inventoryRepository;
+    private final WarehouseRepository warehouseRepository;
+    private final AlertRules rules;
+    private final Duration clearAfter;
+    private final MeterRegistry registry;
+
+    private final Map<AlertKey, Alert> active = new ConcurrentHashMap<>();
+    // Guards the sequence and the queue below, and serializes changes to active
+    private final Object lock = new Object();
+    private long sequence;
+    private final TreeMap<Long, Staged> committing = new TreeMap<>();
+    // Non-null while a rebuild reads the tables: what was applied meanwhile, to apply again on top
+    private List<Staged> replay;
+
+    public AlertEngine(InventoryRepository inventoryRepository, WarehouseRepository warehouseRepository, AlertRules rules,
+                       @Value("${alerts.clear-after:PT1M}") Duration clearAfter, MeterRegistry registry) {
+        this.inventoryRepository = inventoryRepository;
+        this.warehouseRepository = warehouseRepository;
+        this.rules = rules;
+        this.clearAfter = clearAfter;
+        this.registry = registry;
+        Gauge.builder("alerts.active", active, Map::size)
+            .description("Alerts currently raised")
+            .register(registry);
+    }
+
+    public List<Alert> active() {
+        return active.values().stream()
+            .sorted(Comparator.comparing(Alert::raisedAt))
+            .toList();
+    }
+
+    @EventListener
+    public void onChange(InventoryChange change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Staged staged = new Staged();
+            staged.add(change);
+            staged.readLoads();
+            synchronized (lock) {
+                apply(staged, Instant.now());
+            }
+            return;
+        }
+        // Looked up among the current transaction's synchronizations, which also keeps a
+        // suspended outer transaction's changes apart from an inner one's
+        Staged staged = TransactionSynchronizationManager.getSynchronizations().stream()
+            .filter(Staged.class::isInstance)
+            .map(Staged.class::cast)
+            .filter(candidate -> candidate.engine() == this)
+            .findFirst()
+            .orElse(null);
+        if (staged == null) {
+            staged = new Staged();
+            TransactionSynchronizationManager.registerSynchronization(staged);
+        }
+        staged.add(change);
+    }
+
+    /**
+     * Re-evaluates everything: rows below the highest low-stock threshold (a range scan
+     * on the quantity index) and every warehouse's load. Alerts that still hold keep
+     * their history. Changes applied while the tables are read may be newer than what
+     * was read, so they are applied again on top of the rebuilt state.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        synchronized (lock) {
+            replay = new ArrayList<>();
+        }
+        List<InventoryView> candidates;
+        List<WarehouseLoad> loads;
+        try {
+            rules.reload();
+            candidates = inventoryRepository.findViewsWithQuantityBelow(rules.highestLowStock());
+            loads = warehouseRepository.findAllLoads();
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                replay = null;
+            }
+            throw e;
+        }
+        Instant now = Instant.now();
+        synchronized (lock) {
+            Map<AlertKey, Alert> previous = new HashMap<>(active);
+            active.clear();
+            for (InventoryView row : candidates) {
+                int threshold = rules.lowStock(row.warehouseId(), row.productId());
+                if (row.quantity() < threshold) {
+                    restore(previous, new AlertKey(AlertKind.LOW_STOCK, row.warehouseId(), row.productId()),
+                        row.quantity(), threshold, now);
+                }
+            }
+            for (WarehouseLoad load : loads) {
+                long limit = rules.capacityLimit(load.warehouseId(), load.maxCapacity());
+                if (load.currentLoad() >= limit) {
+                    restore(previous, new AlertKey(AlertKind.OVER_CAPACITY, load.warehouseId(), null),
+                        load.currentLoad(), limit, now);
+                }
+            }
+            List<Staged> missed = replay;
+            replay = null;
+            missed.forEach(staged -> apply(staged, now));
+        }
+        log.debug("Alerts rebuilt: {} active", active.size());
+    }
+
+    @Scheduled(fixedDelayString = "${alerts.sweep-interval:PT10S}")
+    public void sweep() {
+        sweep(Instant.now());
+    }
+
+    // Drops alerts that have stayed clear for clear-after; returns how many
+    public int sweep(Instant now) {
+        synchronized (lock) {
+            int before = active.size();
+            active.values().removeIf(alert -> alert.clearingSince() != null
+                && !alert.clearingSince().plus(clearAfter).isAfter(now));
+            return before - active.size();
+        }
+    }
+
+    private void restore(Map<AlertKey, Alert> previous, AlertKey key, long value, long threshold, Instant now) {
+        Alert existing = previous.get(key);
+        if (existing != null) {
+            active.put(key, existing.observed(value, threshold, now));
+        } else {
+            raise(key, value, threshold, now);
+        }
+    }
+
+    // Caller holds the lock
+    private void apply(Staged staged, Instant now) {
+        if (replay != null) {
+            replay.add(staged);
+        }
+        staged.quantities.forEach((key, quantity) -> {
+            if (quantity == null) {
+                // The row is gone from this warehouse, so there is nothing left to reorder
+                active.remove(key);
+                return;
+            }
+            observe(key, quantity, rules.lowStock(key.warehouseId(), key.productId()), now);
+        });
+        for (WarehouseLoad load : staged.loads) {
+            observe(new AlertKey(AlertKind.OVER_CAPACITY, load.warehouseId(), null),
+                load.currentLoad(), rules.capacityLimit(load.warehouseId(), load.maxCapacity()), now);
+        }
+    }
+
+    private void observe(AlertKey key, long value, long threshold, Instant now) {
+        boolean firing = key.kind() == AlertKind.LOW_STOCK ? value < threshold : value >= threshold;
+        Alert existing = active.get(key);
+        if (firing) {
+            if (existing == null) {
+                raise(key, value, threshold, now);
+            } else {
+                active.put(key, existing.observed(value, threshold, now));
+            }
+        } else if (existing != null) {
+            active.put(key, existing.clearing(value, now));
+        }
+    }
+
+    private void raise(AlertKey key, long value, long threshold, Instant now) {
+        active.put(key, new Alert(key.kind(), key.warehouseId(), key.productId(), value, threshold, now, now, null, 1));
+        Counter.builder("alerts.raised")
+            .tag("kind", key.kind().name())
+            .register(registry)
+            .increment();
+        log.warn("{} alert: warehouse {} product {} at {} (threshold {})",
+            key.kind(), key.warehouseId(), key.productId(), value, threshold);
+    }
+
+    // Applies every finished transaction at the head of the queue; stops at the first
+    // one that is still committing
+    private void drain() {
+        synchronized (lock) {
+            Map.Entry<Long, Staged> head;
+            while ((head = committing.firstEntry()) != null && head.getValue().done) {
+                committing.pollFirstEntry();
+                if (head.getValue().committed) {
+                    apply(head.getValue(), Instant.now());
+                }
+            }
+        }
+    }
+
+    /**
+     * One transaction's observations: each (warehouse, product)'s last quantity (null when
+     * the row left the warehouse) and, from just before commit, the loads of the
+     * warehouses whose stock moved.
+     */
+    private class Staged implements TransactionSynchronization {
+
+        final Map<AlertKey, Integer> quantities = new LinkedHashMap<>();
+        final Set<Long> movedWarehouses = new TreeSet<>();
+        List<WarehouseLoad> loads = List.of();
+        boolean queued;
+        volatile boolean done;
+        volatile boolean committed;
+
+        AlertEngine engine() {
+            return AlertEngine.this;
+        }
+
+        void add(InventoryChange change) {
+            quantities.put(new AlertKey(AlertKind.LOW_STOCK, change.warehouseId(), change.productId()),
+                change.rowRemoved() ? null : change.quantity());
+            if (change.delta() != 0) {
+                movedWarehouses.add(change.warehouseId());
+            }
+        }
+
+        void readLoads() {
+            if (!movedWarehouses.isEmpty()) {
+                loads = warehouseRepository.findLoads(movedWarehouses);
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            readLoads();
+            synchronized (lock) {
+                committing.put(++sequence, this);
+                queued = true;
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (!queued) {
+                return;
+            }
+            committed = status == STATUS_COMMITTED;
+            done = true;
+            drain();
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.abrams.projectone.alert;
+
+// What alerts are deduplicated on; productId is null for OVER_CAPACITY
+record AlertKey(AlertKind kind, Long warehouseId, Long productId) {
+}
@@ -0,0 +1,8 @@
+package com.abrams.projectone.alert;
+
+public enum AlertKind {
+    // A product's quantity in a warehouse is below its reorder threshold
+    LOW_STOCK,
+    // A warehouse's current load is at or above a percentage of its max capacity
+    OVER_CAPACITY
+}
@@ -0,0 +1,76 @@
+package com.abrams.projectone.alert;
+
+import jakarta.persistence.*;
+
+/**
+ * A threshold for one scope. LOW_STOCK rules are in units and can name a warehouse, a
+ * product or both; OVER_CAPACITY rules are a percentage of max capacity and can only
+ * name a warehouse. Unset ids mean "any"; the most specific rule wins (see {@link AlertRules}).
+ */
+@Entity
+@Table(name = "alert_rules")
+public class AlertRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rule_id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private AlertKind kind;
+
+    @Column(name = "warehouse_id")
+    private Long warehouseId;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer threshold;
+
+    public AlertRule() {}
+
+    public AlertRule(AlertKind kind, Long warehouseId, Long productId, Integer threshold) {
+        this.kind = kind;
+        this.warehouseId = warehouseId;
+        this.productId = productId;
+        this.threshold = threshold;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public AlertKind getKind() {
+        return kind;
+    }
+
+    public void setKind(AlertKind kind) {
+        this.kind = kind;
+    }
+
+    public Long getWarehouseId() {
+        return warehouseId;
+    }
+
+    public void setWarehouseId(Long warehouseId) {
+        this.warehouseId = warehouseId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(Integer threshold) {
+        this.threshold = threshold;
+    }
+}
@@ -0,0 +1,6 @@
+package com.abrams.projectone.alert;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
+}
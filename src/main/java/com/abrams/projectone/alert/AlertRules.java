@@ -0,0 +1,76 @@
+package com.abrams.projectone.alert;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory copy of alert_rules, so evaluating a change never queries for its thresholds.
+ * Reloaded by {@link AlertEngine#rebuild()} at start-up and after every rule change.
+ * <p>
+ * Low stock: warehouse + product, then product, then warehouse, then alerts.low-stock.threshold.
+ * Capacity: warehouse, then alerts.capacity.percent.
+ */
+@Component
+public class AlertRules {
+
+    private final AlertRuleRepository ruleRepository;
+    private final int defaultLowStock;
+    private final int defaultCapacityPercent;
+    // HashMaps: the "any" scopes are null keys
+    private volatile Snapshot snapshot = new Snapshot(new HashMap<>(), new HashMap<>());
+
+    public AlertRules(AlertRuleRepository ruleRepository,
+                      @Value("${alerts.low-stock.threshold:10}") int defaultLowStock,
+                      @Value("${alerts.capacity.percent:90}") int defaultCapacityPercent) {
+        this.ruleRepository = ruleRepository;
+        this.defaultLowStock = defaultLowStock;
+        this.defaultCapacityPercent = defaultCapacityPercent;
+    }
+
+    void reload() {
+        Map<AlertKey, Integer> lowStock = new HashMap<>();
+        Map<Long, Integer> capacity = new HashMap<>();
+        for (AlertRule rule : ruleRepository.findAll()) {
+            if (rule.getKind() == AlertKind.OVER_CAPACITY) {
+                capacity.put(rule.getWarehouseId(), rule.getThreshold());
+            } else {
+                lowStock.put(new AlertKey(AlertKind.LOW_STOCK, rule.getWarehouseId(), rule.getProductId()), rule.getThreshold());
+            }
+        }
+        snapshot = new Snapshot(lowStock, capacity);
+    }
+
+    // Alerts when quantity < this
+    int lowStock(Long warehouseId, Long productId) {
+        Map<AlertKey, Integer> rules = snapshot.lowStock();
+        for (AlertKey scope : List.of(new AlertKey(AlertKind.LOW_STOCK, warehouseId, productId),
+                                      new AlertKey(AlertKind.LOW_STOCK, null, productId),
+                                      new AlertKey(AlertKind.LOW_STOCK, warehouseId, null),
+                                      new AlertKey(AlertKind.LOW_STOCK, null, null))) {
+            Integer threshold = rules.get(scope);
+            if (threshold != null) {
+                return threshold;
+            }
+        }
+        return defaultLowStock;
+    }
+
+    // No row at or above this quantity can be low on stock
+    int highestLowStock() {
+        return snapshot.lowStock().values().stream().mapToInt(Integer::intValue).reduce(defaultLowStock, Math::max);
+    }
+
+    // Alerts when current load >= this
+    long capacityLimit(Long warehouseId, int maxCapacity) {
+        Map<Long, Integer> rules = snapshot.capacity();
+        int percent = rules.getOrDefault(warehouseId, rules.getOrDefault(null, defaultCapacityPercent));
+        return (long) Math.ceil(maxCapacity * percent / 100.0);
+    }
+
+    private record Snapshot(Map<AlertKey, Integer> lowStock, Map<Long, Integer> capacity) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.abrams.projectone.alert;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+
+@Service
+@Timed("alert.service")
+public class AlertService {
+
+    private final AlertEngine alertEngine;
+    private final AlertRuleRepository ruleRepository;
+
+    public AlertService(AlertEngine alertEngine, AlertRuleRepository ruleRepository) {
+        this.alertEngine = alertEngine;
+        this.ruleRepository = ruleRepository;
+    }
+
+    // Served from memory; no query
+    public List<Alert> getActive(AlertKind kind, Long warehouseId) {
+        return alertEngine.active().stream()
+            .filter(alert -> kind == null || alert.kind() == kind)
+            .filter(alert -> warehouseId == null || warehouseId.equals(alert.warehouseId()))
+            .toList();
+    }
+
+    public List<AlertRule> getRules() {
+        return ruleRepository.findAll();
+    }
+
+    // One rule per scope: saving a scope that already has one replaces its threshold.
+    // Rule changes are rare, so the active alerts are simply re-evaluated from scratch.
+    public AlertRule saveRule(AlertRule rule) {
+        validate(rule);
+        AlertRule target = ruleRepository.findAll().stream()
+            .filter(existing -> existing.getKind() == rule.getKind()
+                && Objects.equals(existing.getWarehouseId(), rule.getWarehouseId())
+                && Objects.equals(existing.getProductId(), rule.getProductId()))
+            .findFirst()
+            .orElse(rule);
+        target.setThreshold(rule.getThreshold());
+        AlertRule saved = ruleRepository.save(target);
+        alertEngine.rebuild();
+        return saved;
+    }
+
+    public void deleteRule(Long id) {
+        if (!ruleRepository.existsById(id)) {
+            throw new RuntimeException("Alert rule not found!");
+        }
+        ruleRepository.deleteById(id);
+        alertEngine.rebuild();
+    }
+
+    private void validate(AlertRule rule) {
+        if (rule.getKind() == null || rule.getThreshold() == null) {
+            throw new RuntimeException("Alert rule needs a kind and a threshold.");
+        }
+        if (rule.getKind() == AlertKind.LOW_STOCK && rule.getThreshold() < 1) {
+            throw new RuntimeException("Low-stock threshold must be at least 1.");
+        }
+        if (rule.getKind() == AlertKind.OVER_CAPACITY) {
+            if (rule.getProductId() != null) {
+                throw new RuntimeException("Capacity rules apply to a warehouse, not a product.");
+            }
+            if (rule.getThreshold() < 1 || rule.getThreshold() > 100) {
+                throw new RuntimeException("Capacity threshold is a percentage between 1 and 100.");
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.abrams.projectone.common;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Every public method of the annotated class needs a database connection for its whole run,
+ * so calls go through the limiter in {@link com.abrams.projectone.config.DbConcurrencyConfig}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DbBound {
+}
@@ -0,0 +1,15 @@
+package com.abrams.projectone.common;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A {@link DbBound} method that keeps its connection (and cursor) open for as long as the
+ * client reads, so it takes one of the limiter's stream slots instead of an ordinary one.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DbStream {
+}
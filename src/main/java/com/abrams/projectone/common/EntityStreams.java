@@ -0,0 +1,25 @@
+package com.abrams.projectone.common;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Feeds a repository cursor to a consumer (usually an {@link NdjsonWriter}). Each row is
+ * detached once handed over so the persistence context doesn't grow with the table.
+ * Must run inside the transaction that opened the stream.
+ */
+public final class EntityStreams {
+
+    private EntityStreams() {}
+
+    public static <T> void forEachDetached(Stream<T> rows, EntityManager entityManager, Consumer<? super T> consumer) {
+        try (rows) {
+            rows.forEach(row -> {
+                consumer.accept(row);
+                entityManager.detach(row);
+            });
+        }
+    }
+}
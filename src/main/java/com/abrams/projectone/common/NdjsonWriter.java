@@ -0,0 +1,36 @@
+package com.abrams.projectone.common;
+
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes one JSON document per line so a streamed list never has to be held in memory.
+ */
+public final class NdjsonWriter<T> implements Consumer<T> {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private static final byte NEWLINE = '\n';
+
+    private final OutputStream out;
+    private final ObjectMapper objectMapper;
+
+    public NdjsonWriter(OutputStream out, ObjectMapper objectMapper) {
+        this.out = out;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void accept(T value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write(NEWLINE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
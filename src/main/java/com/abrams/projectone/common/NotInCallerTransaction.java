@@ -0,0 +1,21 @@
+package com.abrams.projectone.common;
+
+import org.springframework.resilience.retry.MethodRetryPredicate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+
+/**
+ * Retry predicate of {@link RetryOnConflict}: retries only when the failed call ran its own
+ * transaction. A call that joined its caller's transaction leaves that transaction
+ * rollback-only (or aborted, on PostgreSQL), so trying again inside it can't succeed. The
+ * failure goes up instead, to whoever started the transaction and can retry all of it.
+ */
+public class NotInCallerTransaction implements MethodRetryPredicate {
+
+    @Override
+    public boolean shouldRetry(Method method, Throwable throwable) {
+        // Checked after @Transactional has finished: still active means it belongs to the caller
+        return !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+}
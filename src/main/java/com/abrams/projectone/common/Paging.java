@@ -0,0 +1,29 @@
+package com.abrams.projectone.common;
+
+import org.springframework.data.domain.Limit;
+
+/**
+ * Keyset paging defaults shared by the list endpoints.
+ * Clients pass the last id they saw as {@code after} and get the next {@code limit} rows in id order.
+ */
+public final class Paging {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private Paging() {}
+
+    public static long afterOrStart(Long after) {
+        return after == null ? 0L : after;
+    }
+
+    public static Limit limit(Integer requested) {
+        if (requested == null) {
+            return Limit.of(DEFAULT_LIMIT);
+        }
+        if (requested < 1) {
+            throw new RuntimeException("Limit must be at least 1.");
+        }
+        return Limit.of(Math.min(requested, MAX_LIMIT));
+    }
+}
@@ -0,0 +1,25 @@
+package com.abrams.projectone.common;
+
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.resilience.annotation.Retryable;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Retries a write when the database reports a deadlock or lock timeout
+ * ({@link ConcurrencyFailureException}): up to 3 more tries, 20ms apart and doubling,
+ * with jitter. The retry advice wraps @Transactional, so each try is a fresh transaction.
+ * Called inside someone else's transaction it doesn't retry at all (see
+ * {@link NotInCallerTransaction}); the caller's own retry starts over instead.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Retryable(includes = ConcurrencyFailureException.class, predicate = NotInCallerTransaction.class,
+           maxRetries = 3, delay = 20, jitter = 10, multiplier = 2)
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,28 @@
+package com.abrams.projectone.common;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * Thrown when there is no capacity to take on more database work right now.
+ * MVC turns it into a 503 with a Retry-After header.
+ */
+public class ServiceBusyException extends ResponseStatusException {
+
+    private final Duration retryAfter;
+
+    public ServiceBusyException(Duration retryAfter) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Server busy, retry later.");
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.toSeconds())));
+        return headers;
+    }
+}
@@ -0,0 +1,48 @@
+package com.abrams.projectone.common;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change counter for one table, used as the strong ETag of its list endpoints so a
+ * conditional GET can be answered without a query.
+ * <p>
+ * Bumped after the writing transaction commits, so a reader that sees the new version and
+ * then queries the primary reads the new rows. A replica may still be behind, which is why
+ * the versioned lists are read on the primary. The start-up epoch keeps ETags from a
+ * previous run from matching.
+ * <p>
+ * The counter lives in memory and only counts this instance's writes. With more than one
+ * instance, a write through another one doesn't change this ETag and a client can get a 304
+ * for a list that has changed; that needs a shared version (e.g. a row bumped by the write)
+ * first.
+ */
+public class TableVersion {
+
+    private final String table;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    public TableVersion(String table) {
+        this.table = table;
+    }
+
+    public String etag() {
+        return "\"" + table + "-" + epoch + "-" + version.get() + "\"";
+    }
+
+    public void changedAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            version.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                version.incrementAndGet();
+            }
+        });
+    }
+}
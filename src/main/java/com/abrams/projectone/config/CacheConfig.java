@@ -0,0 +1,58 @@
+package com.abrams.projectone.config;
+
+import com.abrams.projectone.dashboard.DashboardService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.cache.autoconfigure.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * In-process caches for reference data and the dashboard summary. Each cache is size- and TTL-bounded and
+ * records stats, which the actuator publishes as cache.gets / cache.evictions.
+ * <p>
+ * The cache advice runs outside the transaction advice, so an @CacheEvict on a
+ * @Transactional method fires after the commit and a concurrent reader can't put
+ * the old row back into the cache.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE + 1)
+public class CacheConfig {
+
+    public static final String PRODUCTS = "products";
+    public static final String WAREHOUSES = "warehouses";
+    public static final String DASHBOARD = "dashboard";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> referenceDataCaches(
+            @Value("${cache.products.max-size:10000}") long productsMaxSize,
+            @Value("${cache.products.ttl:PT10M}") Duration productsTtl,
+            @Value("${cache.warehouses.max-size:1000}") long warehousesMaxSize,
+            @Value("${cache.warehouses.ttl:PT1M}") Duration warehousesTtl,
+            @Value("${cache.dashboard.ttl:PT5S}") Duration dashboardTtl) {
+        return cacheManager -> {
+            cacheManager.registerCustomCache(PRODUCTS, Caffeine.newBuilder()
+                    .maximumSize(productsMaxSize)
+                    .expireAfterWrite(productsTtl)
+                    .recordStats()
+                    .build());
+            cacheManager.registerCustomCache(WAREHOUSES, Caffeine.newBuilder()
+                    .maximumSize(warehousesMaxSize)
+                    .expireAfterWrite(warehousesTtl)
+                    .recordStats()
+                    .build());
+            // Aggregates, not reference data: nothing evicts them, the short TTL bounds staleness
+            cacheManager.registerCustomCache(DASHBOARD, Caffeine.newBuilder()
+                    .maximumSize(DashboardService.MAX_TOP)
+                    .expireAfterWrite(dashboardTtl)
+                    .recordStats()
+                    .build());
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package com.abrams.projectone.config;
+
+import com.abrams.projectone.common.DbBound;
+import com.abrams.projectone.common.DbStream;
+import com.abrams.projectone.common.ServiceBusyException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Backpressure for {@link DbBound} services: at most {@code db.max-concurrent} calls run at
+ * once (default: the Hikari pool size). Others wait up to {@code db.queue-timeout} for a slot
+ * and are then rejected with 503 + Retry-After instead of piling up on the connection pool.
+ * <p>
+ * Sits inside the timing and cache advice, so the service timers include the queueing time
+ * and cache hits never wait for a slot.
+ * Retries (outermost) give the slot back while they back off. A DbBound call made from
+ * inside another one runs on the outer call's slot, since it shares its connection.
+ * <p>
+ * Streamed downloads ({@link DbStream}) keep their connection and cursor open at the
+ * client's pace, so they hold one of {@code db.max-streams} stream slots until the stream
+ * closes. Those come out of {@code db.max-concurrent}: slow downloads can't take the slots
+ * ordinary calls need, and the two together never ask for more connections than the pool has.
+ */
+@Configuration
+public class DbConcurrencyConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor dbConcurrencyAdvisor(ObjectProvider<DbWorkLimiter> limiter) {
+        MethodInterceptor interceptor = invocation -> limiter.getObject().invoke(invocation);
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(DbBound.class, true), interceptor);
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return advisor;
+    }
+
+    @Component
+    public static class DbWorkLimiter {
+
+        private final Semaphore permits;
+        private final Semaphore streams;
+        private final Duration queueTimeout;
+        private final Duration retryAfter;
+        private final Counter shed;
+        private final ThreadLocal<Boolean> holding = ThreadLocal.withInitial(() -> false);
+
+        public DbWorkLimiter(@Value("${db.max-concurrent:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrent,
+                             @Value("${db.max-streams:2}") int maxStreams,
+                             @Value("${db.queue-timeout:PT0.2S}") Duration queueTimeout,
+                             @Value("${db.retry-after:PT1S}") Duration retryAfter,
+                             MeterRegistry registry) {
+            if (maxStreams < 1 || maxStreams >= maxConcurrent) {
+                throw new IllegalStateException("db.max-streams must be at least 1 and below db.max-concurrent (" + maxConcurrent + ")");
+            }
+            this.permits = new Semaphore(maxConcurrent - maxStreams, true);
+            this.streams = new Semaphore(maxStreams, true);
+            this.queueTimeout = queueTimeout;
+            this.retryAfter = retryAfter;
+            this.shed = Counter.builder("db.requests.shed").register(registry);
+            Gauge.builder("db.permits.available", permits, Semaphore::availablePermits).register(registry);
+            Gauge.builder("db.stream.permits.available", streams, Semaphore::availablePermits).register(registry);
+        }
+
+        Object invoke(MethodInvocation invocation) throws Throwable {
+            if (holding.get()) {
+                return invocation.proceed();
+            }
+            Semaphore pool = invocation.getMethod().isAnnotationPresent(DbStream.class) ? streams : permits;
+            if (!pool.tryAcquire(queueTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                shed.increment();
+                throw new ServiceBusyException(retryAfter);
+            }
+            holding.set(true);
+            try {
+                return invocation.proceed();
+            } finally {
+                holding.set(false);
+                pool.release();
+            }
+        }
+    }
+}
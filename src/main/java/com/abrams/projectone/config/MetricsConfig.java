@@ -0,0 +1,57 @@
+package com.abrams.projectone.config;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+
+/**
+ * Times every public method of a class annotated with {@code @Timed("name")}, tagged
+ * with class, method and exception. Histogram buckets are switched on per timer name
+ * in application.properties.
+ * <p>
+ * Done as an advisor rather than Micrometer's TimedAspect so it can be ordered: it runs
+ * outside the limiter, cache and transaction advice, so the timing includes queueing, cache hits and the commit.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor timedClassesAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        MethodInterceptor interceptor = invocation -> {
+            Class<?> type = AopUtils.getTargetClass(invocation.getThis());
+            Timed timed = AnnotationUtils.findAnnotation(type, Timed.class);
+            MeterRegistry registry = meterRegistry.getObject();
+            Timer.Sample sample = Timer.start(registry);
+            String exception = "none";
+            try {
+                return invocation.proceed();
+            } catch (Throwable ex) {
+                exception = ex.getClass().getSimpleName();
+                throw ex;
+            } finally {
+                sample.stop(Timer.builder(timed.value())
+                        .tag("class", type.getSimpleName())
+                        .tag("method", invocation.getMethod().getName())
+                        .tag("exception", exception)
+                        .register(registry));
+            }
+        };
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(Timed.class, true), interceptor);
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
@@ -0,0 +1,91 @@
+package com.abrams.projectone.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Read-your-writes on top of replica routing. Every write request (anything but
+ * GET/HEAD/OPTIONS) gets an {@value #HEADER} response header: the time, in epoch millis,
+ * until which the replicas may not have caught up with it. A client that sends the token
+ * back on its next requests is served from the primary until then, so it sees its own
+ * writes; everyone else keeps reading from the replicas.
+ * <p>
+ * A token further out than {@code datasource.replica.stickiness} is ignored, so clients
+ * can't pin themselves to the primary.
+ * <p>
+ * The decision is a thread-local of the request thread. Work the request hands to the task
+ * executor (streamed responses in particular) takes it along through {@link #carryRoute}.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Consistency-Token";
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private final Duration stickiness;
+
+    public ReadYourWritesFilter(Duration stickiness) {
+        this.stickiness = stickiness;
+    }
+
+    // True while the current request has to read from the primary
+    public static boolean primaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY.get());
+    }
+
+    // TaskDecorator: runs task with the submitting thread's routing decision
+    public static Runnable carryRoute(Runnable task) {
+        Boolean primary = PRIMARY.get();
+        if (primary == null) {
+            return task;
+        }
+        return () -> {
+            PRIMARY.set(primary);
+            try {
+                task.run();
+            } finally {
+                PRIMARY.remove();
+            }
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        boolean write = !isSafe(request.getMethod());
+        if (write) {
+            // Set up front: the body may already be committed by the time the write returns
+            response.setHeader(HEADER, Long.toString(now + stickiness.toMillis()));
+        }
+        PRIMARY.set(write || isFresh(request.getHeader(HEADER), now));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            PRIMARY.remove();
+        }
+    }
+
+    private boolean isFresh(String token, long now) {
+        if (token == null) {
+            return false;
+        }
+        try {
+            long until = Long.parseLong(token.trim());
+            return until > now && until <= now + stickiness.toMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isSafe(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+}
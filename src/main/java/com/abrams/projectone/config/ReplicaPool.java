@@ -0,0 +1,98 @@
+package com.abrams.projectone.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Where read-only transactions get their connections: the replicas in turn, skipping any
+ * that recently failed to hand out a connection. A failed replica is left alone for
+ * {@code retry-after} and then simply tried again. With no replica available, or when
+ * the request has to see its own writes ({@link ReadYourWritesFilter}), the primary
+ * serves the read instead.
+ */
+public class ReplicaPool extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaPool.class);
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final Duration retryAfter;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter fallbacks;
+
+    public ReplicaPool(HikariDataSource primary, List<HikariDataSource> replicas, Duration retryAfter, MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.retryAfter = retryAfter;
+        this.fallbacks = Counter.builder("datasource.replica.fallbacks")
+            .description("Read-only connections served by the primary because no replica was available")
+            .register(registry);
+        Gauge.builder("datasource.replica.available", this, ReplicaPool::availableCount)
+            .description("Replicas currently taking reads")
+            .register(registry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReadYourWritesFilter.primaryRequired()) {
+            return primary.getConnection();
+        }
+        long now = System.currentTimeMillis();
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (replica.downUntil > now) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.downUntil = 0;
+                return connection;
+            } catch (SQLException e) {
+                replica.downUntil = now + retryAfter.toMillis();
+                log.warn("Replica {} unavailable, retrying it in {}: {}", replica.dataSource.getPoolName(), retryAfter, e.getMessage());
+            }
+        }
+        fallbacks.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Replica connections use the configured credentials");
+    }
+
+    public int availableCount() {
+        long now = System.currentTimeMillis();
+        return (int) replicas.stream().filter(replica -> replica.downUntil <= now).count();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private static class Replica {
+
+        final HikariDataSource dataSource;
+        volatile long downUntil;
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
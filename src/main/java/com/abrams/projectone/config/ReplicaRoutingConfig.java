@@ -0,0 +1,91 @@
+package com.abrams.projectone.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas, enabled by setting {@code datasource.replica.urls}. Connections of
+ * {@code @Transactional(readOnly = true)} work (inventory lists, streams, the dashboard, and
+ * Spring Data's own read methods outside a transaction) come from {@link ReplicaPool};
+ * everything else, Flyway and Hibernate's start-up checks included, uses the primary.
+ * <p>
+ * The switch is LazyConnectionDataSourceProxy: it hands out a placeholder connection and
+ * only picks the real one at the first statement, by which time the transaction has
+ * marked it read-only. Without replicas configured none of this is created and Boot's
+ * single auto-configured pool is used as before.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.urls")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Not a candidate for plain DataSource injection (JPA, Flyway, health checks)
+    @Bean(defaultCandidate = false)
+    public ReplicaPool replicaPool(HikariDataSource primaryDataSource,
+                                   DataSourceProperties properties,
+                                   @Value("${datasource.replica.urls}") List<String> urls,
+                                   @Value("${datasource.replica.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+                                   @Value("${datasource.replica.connection-timeout:PT1S}") Duration connectionTimeout,
+                                   @Value("${datasource.replica.retry-after:PT30S}") Duration retryAfter,
+                                   MeterRegistry registry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(properties.determineUsername())
+                .password(properties.determinePassword())
+                .build();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setMaximumPoolSize(poolSize);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            // Start even if a replica is down; ReplicaPool routes around it
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+        return new ReplicaPool(primaryDataSource, replicas, retryAfter, registry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, @Qualifier("replicaPool") ReplicaPool replicaPool) {
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primaryDataSource);
+        routing.setReadOnlyDataSource(replicaPool);
+        return routing;
+    }
+
+    // Boot applies it to the application task executor, which runs streamed (async) responses
+    @Bean
+    public TaskDecorator readYourWritesTaskDecorator() {
+        return ReadYourWritesFilter::carryRoute;
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${datasource.replica.stickiness:PT5S}") Duration stickiness) {
+        return new ReadYourWritesFilter(stickiness);
+    }
+}
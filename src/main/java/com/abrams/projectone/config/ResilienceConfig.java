@@ -0,0 +1,11 @@
+package com.abrams.projectone.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.resilience.annotation.EnableResilientMethods;
+
+// Turns on @Retryable / @ConcurrencyLimit. The retry advice wraps @Transactional,
+// so each attempt runs in a fresh transaction.
+@Configuration
+@EnableResilientMethods
+public class ResilienceConfig {
+}
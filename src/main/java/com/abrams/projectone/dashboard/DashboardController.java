@@ -0,0 +1,32 @@
+package com.abrams.projectone.dashboard;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+    private final Duration maxAge;
+
+    public DashboardController(DashboardService dashboardService,
+                               @Value("${cache.dashboard.ttl:PT5S}") Duration maxAge) {
+        this.dashboardService = dashboardService;
+        this.maxAge = maxAge;
+    }
+
+    // MVC answers If-None-Match with 304 from the ETag on the ResponseEntity
+    @GetMapping("/summary")
+    public ResponseEntity<DashboardSummary> summary(@RequestParam(required = false) Integer top) {
+        DashboardSnapshot snapshot = dashboardService.getSummary(DashboardService.top(top));
+        return ResponseEntity.ok()
+            .eTag(snapshot.etag())
+            .cacheControl(CacheControl.maxAge(maxAge))
+            .body(snapshot.summary());
+    }
+}
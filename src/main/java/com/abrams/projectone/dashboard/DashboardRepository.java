@@ -0,0 +1,35 @@
+package com.abrams.projectone.dashboard;
+
+import com.abrams.projectone.warehouse.Warehouse;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+/**
+ * Aggregate reads for the dashboard. Nothing here loads entities; each method is one
+ * grouped query.
+ */
+public interface DashboardRepository extends Repository<Warehouse, Long> {
+
+    // Load comes from the maintained warehouses.current_load counter; the join only counts SKUs
+    @Query("""
+            SELECT new com.abrams.projectone.dashboard.WarehouseSummary(
+                w.id, w.name, w.location, w.currentLoad, w.maxCapacity, COUNT(i.id))
+            FROM Warehouse w LEFT JOIN Inventory i ON i.warehouse = w AND i.quantity > 0
+            GROUP BY w.id, w.name, w.location, w.currentLoad, w.maxCapacity
+            ORDER BY w.id""")
+    List<WarehouseSummary> findWarehouseSummaries();
+
+    @Query("""
+            SELECT new com.abrams.projectone.dashboard.ProductTotal(p.id, p.name, p.sku, SUM(i.quantity))
+            FROM Inventory i JOIN i.product p
+            GROUP BY p.id, p.name, p.sku
+            ORDER BY SUM(i.quantity) DESC, p.id""")
+    List<ProductTotal> findTopProducts(Limit limit);
+
+    @Query("SELECT COUNT(DISTINCT i.product.id) FROM Inventory i WHERE i.quantity > 0")
+    long countActiveProducts();
+}
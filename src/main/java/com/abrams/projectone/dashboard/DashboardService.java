@@ -0,0 +1,54 @@
+package com.abrams.projectone.dashboard;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
+
+import com.abrams.projectone.common.DbBound;
+import com.abrams.projectone.config.CacheConfig;
+
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.List;
+
+@Service
+@Timed("dashboard.service")
+@DbBound
+public class DashboardService {
+
+    public static final int DEFAULT_TOP = 5;
+    public static final int MAX_TOP = 50;
+
+    private final DashboardRepository dashboardRepository;
+    private final ObjectMapper objectMapper;
+
+    public DashboardService(DashboardRepository dashboardRepository, ObjectMapper objectMapper) {
+        this.dashboardRepository = dashboardRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public static int top(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_TOP;
+        }
+        if (requested < 1) {
+            throw new RuntimeException("Top must be at least 1.");
+        }
+        return Math.min(requested, MAX_TOP);
+    }
+
+    // Cached for cache.dashboard.ttl, so a burst of dashboard loads costs one set of aggregate queries
+    @Cacheable(cacheNames = CacheConfig.DASHBOARD, key = "#top")
+    @Transactional(readOnly = true)
+    public DashboardSnapshot getSummary(int top) {
+        List<WarehouseSummary> warehouses = dashboardRepository.findWarehouseSummaries();
+        long totalQuantity = warehouses.stream().mapToLong(WarehouseSummary::currentLoad).sum();
+        DashboardSummary summary = new DashboardSummary(warehouses.size(), totalQuantity,
+            dashboardRepository.countActiveProducts(), warehouses, dashboardRepository.findTopProducts(Limit.of(top)));
+        String etag = DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(summary));
+        return new DashboardSnapshot(summary, etag);
+    }
+}
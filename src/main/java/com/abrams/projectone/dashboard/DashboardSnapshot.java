@@ -0,0 +1,8 @@
+package com.abrams.projectone.dashboard;
+
+/**
+ * A computed summary plus the ETag of its JSON, so conditional requests can be answered
+ * without serializing again.
+ */
+public record DashboardSnapshot(DashboardSummary summary, String etag) {
+}
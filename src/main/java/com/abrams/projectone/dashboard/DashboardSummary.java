@@ -0,0 +1,7 @@
+package com.abrams.projectone.dashboard;
+
+import java.util.List;
+
+public record DashboardSummary(int totalWarehouses, long totalQuantity, long activeProducts,
+                               List<WarehouseSummary> warehouses, List<ProductTotal> topProducts) {
+}
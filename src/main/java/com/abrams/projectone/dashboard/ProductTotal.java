@@ -0,0 +1,4 @@
+package com.abrams.projectone.dashboard;
+
+public record ProductTotal(Long productId, String name, String sku, long quantity) {
+}
@@ -0,0 +1,15 @@
+package com.abrams.projectone.dashboard;
+
+/**
+ * One warehouse on the dashboard: its load counter, capacity and how many distinct
+ * products it stocks.
+ */
+public record WarehouseSummary(Long id, String name, String location, long currentLoad, int maxCapacity,
+                               long skuCount, double utilizationPercent) {
+
+    // Constructor expression target for DashboardRepository
+    public WarehouseSummary(Long id, String name, String location, long currentLoad, int maxCapacity, long skuCount) {
+        this(id, name, location, currentLoad, maxCapacity, skuCount,
+            maxCapacity > 0 ? Math.round(currentLoad * 1000.0 / maxCapacity) / 10.0 : 0.0);
+    }
+}
@@ -0,0 +1,25 @@
+package com.abrams.projectone.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+
+public interface IdempotencyRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Plain INSERT so it runs now: a second request with the same key blocks here on the
+    // primary key until the first commits, then fails as a duplicate
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_hash, created_at) VALUES (:key, :requestHash, :now)",
+           nativeQuery = true)
+    int claim(String key, String requestHash, Instant now);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.response = :response WHERE r.key = :key")
+    int saveResponse(String key, String response);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(Instant before);
+}
@@ -0,0 +1,177 @@
+package com.abrams.projectone.idempotency;
+
+import com.abrams.projectone.common.DbBound;
+import com.abrams.projectone.common.RetryOnConflict;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Makes retried writes safe. The first request with a given Idempotency-Key runs; later
+ * ones with the same key get its response back without running again. The key and that
+ * response are inserted in the same transaction as the write, so both commit or neither
+ * does, and a request that failed can simply be sent again. A duplicate that arrives while
+ * the first is still running waits on the key's row for it to finish (PostgreSQL and H2
+ * block a conflicting insert until the holder commits or rolls back). Where the first
+ * one's response still can't be read after that, the duplicate gets 409 and should be
+ * sent again a little later.
+ * <p>
+ * A lock conflict in the write rolls back the whole transaction, so the write's own
+ * {@code @RetryOnConflict} stands aside and the retry here runs key claim and write again.
+ * <p>
+ * Finished keys are also kept in memory (LRU, idempotency.cache-size), so most replays
+ * don't touch the database. Keys are remembered for idempotency.ttl. Reusing a key for a
+ * different request is rejected with 422.
+ */
+@Service
+@DbBound
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRepository idempotencyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Cache<String, Recorded> recent;
+
+    public IdempotencyService(IdempotencyRepository idempotencyRepository, PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              @Value("${idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${idempotency.cache-size:10000}") long cacheSize) {
+        this.idempotencyRepository = idempotencyRepository;
+        // Always its own transaction: the key must not commit or roll back with anything but the write
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.recent = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(ttl)
+            .build();
+    }
+
+    // Runs action, which joins the transaction recording the key, or replays the response
+    // recorded for the key. operation names the endpoint, so one key sent to two endpoints
+    // counts as two different requests. Retried as a whole on a lock conflict.
+    // Returns the response as recorded, JSON text. Endpoints send it on as it is: decoding
+    // it again would lose what only serializes one way (read-only properties, for one).
+    @RetryOnConflict
+    public String executeJson(String key, String operation, Object request, Supplier<?> action) {
+        return run(key, operation, request, action).json();
+    }
+
+    // For responses that decode to what was recorded (ids and other plain values)
+    @RetryOnConflict
+    public <T> T execute(String key, String operation, Object request, Class<T> responseType, Supplier<T> action) {
+        Outcome<T> outcome = run(key, operation, request, action);
+        return outcome.ran() ? outcome.response() : objectMapper.readValue(outcome.json(), responseType);
+    }
+
+    private <T> Outcome<T> run(String key, String operation, Object request, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters.");
+        }
+        String requestHash = hash(operation, request);
+        Recorded recorded = lookup(key);
+        if (recorded == null) {
+            try {
+                Outcome<T> outcome = transactionTemplate.execute(status -> {
+                    try {
+                        idempotencyRepository.claim(key, requestHash, Instant.now());
+                    } catch (DataIntegrityViolationException e) {
+                        throw new KeyTaken();
+                    }
+                    T response = action.get();
+                    String json = objectMapper.writeValueAsString(response);
+                    idempotencyRepository.saveResponse(key, json);
+                    return new Outcome<>(true, response, json);
+                });
+                recent.put(key, new Recorded(requestHash, outcome.json()));
+                return outcome;
+            } catch (KeyTaken e) {
+                // Another request with this key committed first, or is still holding it
+                recorded = lookup(key);
+                if (recorded == null) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "A request with this Idempotency-Key is still in progress.");
+                }
+            }
+        }
+        if (!recorded.requestHash().equals(requestHash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Idempotency-Key was already used for a different request.");
+        }
+        return new Outcome<>(false, null, recorded.response());
+    }
+
+    @Scheduled(initialDelayString = "${idempotency.purge-interval:PT10M}",
+               fixedDelayString = "${idempotency.purge-interval:PT10M}")
+    public void purge() {
+        purge(Instant.now().minus(ttl));
+    }
+
+    // Forgets keys created before the cutoff; returns how many
+    public int purge(Instant createdBefore) {
+        return transactionTemplate.execute(status -> idempotencyRepository.deleteCreatedBefore(createdBefore));
+    }
+
+    // Read on the primary (not a read-only transaction), since the key may have just been written
+    private Recorded lookup(String key) {
+        Recorded recorded = recent.getIfPresent(key);
+        if (recorded != null) {
+            return recorded;
+        }
+        recorded = transactionTemplate.execute(status -> idempotencyRepository.findById(key)
+            .filter(record -> record.getResponse() != null)
+            .map(record -> new Recorded(record.getRequestHash(), record.getResponse()))
+            .orElse(null));
+        if (recorded != null) {
+            recent.put(key, recorded);
+        }
+        return recorded;
+    }
+
+    private String hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Recorded(String requestHash, String response) {
+    }
+
+    private record Outcome<T>(boolean ran, T response, String json) {
+    }
+
+    // Rolls back the claiming transaction when the key is already there
+    private static class KeyTaken extends RuntimeException {
+        KeyTaken() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.abrams.projectone.inventory;
+
+/**
+ * Outcome of one line of a bulk request. {@code line} is 1-based in the order the lines were sent.
+ */
+public record BulkLineResult(int line, boolean success, Long inventoryId, String error) {
+
+    public static BulkLineResult ok(int line, Long inventoryId) {
+        return new BulkLineResult(line, true, inventoryId, null);
+    }
+
+    public static BulkLineResult failed(int line, String error) {
+        return new BulkLineResult(line, false, null, error);
+    }
+
+    public BulkLineResult atLine(int line) {
+        return new BulkLineResult(line, success, inventoryId, error);
+    }
+}
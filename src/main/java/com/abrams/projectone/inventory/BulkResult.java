@@ -0,0 +1,11 @@
+package com.abrams.projectone.inventory;
+
+import java.util.List;
+
+public record BulkResult(int accepted, int rejected, List<BulkLineResult> lines) {
+
+    public static BulkResult of(List<BulkLineResult> lines) {
+        int accepted = (int) lines.stream().filter(BulkLineResult::success).count();
+        return new BulkResult(accepted, lines.size() - accepted, lines);
+    }
+}
@@ -0,0 +1,25 @@
+package com.abrams.projectone.inventory;
+
+/**
+ * What became of one {@link QuantityChange}: the row as that caller left it, or why it was
+ * rejected. Neither means the change no longer fits the batch's row (it was moved or
+ * deleted meanwhile) and has to be made on its own.
+ */
+public record CoalescedWrite(Inventory inventory, String error) {
+
+    static CoalescedWrite ok(Inventory inventory) {
+        return new CoalescedWrite(inventory, null);
+    }
+
+    static CoalescedWrite failed(String error) {
+        return new CoalescedWrite(null, error);
+    }
+
+    static CoalescedWrite notApplied() {
+        return new CoalescedWrite(null, null);
+    }
+
+    public boolean applied() {
+        return inventory != null || error != null;
+    }
+}
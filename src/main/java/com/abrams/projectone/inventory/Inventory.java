@@ -10,21 +10,33 @@ import jakarta.validation.constraints.NotNull;
 
 
 @Entity
-@Table(name="inventory")
+@Table(name="inventory",
+    // One row per (warehouse, product); create() upserts against this constraint
+    uniqueConstraints = @UniqueConstraint(name = "uk_inventory_warehouse_product", columnNames = {"warehouse_id", "product_id"}),
+    // Covers SUM(quantity) per warehouse as an index-only scan; product_id for product-side lookups
+    indexes = {
+        @Index(name = "ix_inventory_warehouse_quantity", columnList = "warehouse_id, quantity"),
+        @Index(name = "ix_inventory_product", columnList = "product_id"),
+        @Index(name = "ix_inventory_quantity_id", columnList = "quantity, inventory_id")
+    })
 public class Inventory {
     
+    // Pooled sequence (not IDENTITY) so Hibernate can hand out ids without a
+    // round trip per row and batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_seq")
+    @SequenceGenerator(name = "inventory_seq", sequenceName = "inventory_seq", allocationSize = 50)
     @Column(name="inventory_id")
     private Long id;
 
     //Foreign key time! Yippee
-    @ManyToOne
+    // LAZY so list queries don't fire a select per row; read paths fetch-join instead
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="warehouse_id", nullable=false)
     @NotNull(message = "Warehouse is required")
     private Warehouse warehouse;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="product_id", nullable=false)
     @NotNull(message = "Product is required")
     private Product product;
@@ -0,0 +1,102 @@
+package com.abrams.projectone.inventory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feeds large stock files into {@link InventoryService#createBatch} a chunk at a time,
+ * so each transaction (and the warehouse locks it holds) stays short no matter how
+ * big the upload is.
+ */
+@Service
+public class InventoryBulkService {
+
+    private final InventoryService inventoryService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public InventoryBulkService(InventoryService inventoryService, ObjectMapper objectMapper,
+                                @Value("${inventory.bulk.chunk-size:1000}") int chunkSize) {
+        this.inventoryService = inventoryService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkResult ingest(List<Inventory> items) {
+        Chunker chunker = new Chunker();
+        items.forEach(chunker::add);
+        return chunker.finish();
+    }
+
+    // One JSON object per line. A line that doesn't parse is reported and the rest still go in.
+    public BulkResult ingestNdjson(InputStream body) {
+        Chunker chunker = new Chunker();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    chunker.add(objectMapper.readValue(text, Inventory.class));
+                } catch (JacksonException e) {
+                    chunker.reject("Malformed line: " + e.getOriginalMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return chunker.finish();
+    }
+
+    private class Chunker {
+        private final List<BulkLineResult> results = new ArrayList<>();
+        private final List<Inventory> pending = new ArrayList<>();
+        private final List<Integer> pendingLines = new ArrayList<>();
+        private int lineNumber;
+
+        void add(Inventory item) {
+            lineNumber++;
+            pending.add(item);
+            pendingLines.add(lineNumber);
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(String error) {
+            lineNumber++;
+            results.add(BulkLineResult.failed(lineNumber, error));
+        }
+
+        BulkResult finish() {
+            flush();
+            results.sort((a, b) -> Integer.compare(a.line(), b.line()));
+            return BulkResult.of(results);
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            // createBatch numbers lines within the chunk; map them back to the request's numbering
+            for (BulkLineResult result : inventoryService.createBatch(pending)) {
+                results.add(result.atLine(pendingLines.get(result.line() - 1)));
+            }
+            pending.clear();
+            pendingLines.clear();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.abrams.projectone.inventory;
+
+/**
+ * One inventory row changing in one warehouse, published by {@link InventoryService}.
+ * Recorded in the outbox and movement ledger before commit and delivered to
+ * /api/inventory/events subscribers after it.
+ * {@code quantity} is the row's new quantity (0 when it left the warehouse),
+ * {@code delta} how much it moved by, and {@code reason} why (as recorded in the movement ledger).
+ */
+public record InventoryChange(InventoryChangeType type, MovementReason reason, Long inventoryId, Long warehouseId, Long productId,
+                              int quantity, int delta) {
+
+    // The row no longer exists in this warehouse (deleted, or moved to another one by an
+    // edit), as opposed to still being there with quantity 0
+    public boolean rowRemoved() {
+        return type == InventoryChangeType.DELETED
+            || (type == InventoryChangeType.UPDATED && reason == MovementReason.TRANSFER_OUT);
+    }
+}
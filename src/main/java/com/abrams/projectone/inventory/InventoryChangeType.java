@@ -0,0 +1,8 @@
+package com.abrams.projectone.inventory;
+
+public enum InventoryChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    TRANSFERRED
+}
@@ -1,29 +1,95 @@
 package com.abrams.projectone.inventory;
 
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.abrams.projectone.common.NdjsonWriter;
+import com.abrams.projectone.idempotency.IdempotencyService;
+
+import tools.jackson.databind.ObjectMapper;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/inventory")
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final InventoryBulkService inventoryBulkService;
+    private final InventoryTransferService inventoryTransferService;
+    private final InventoryWriteCoalescer inventoryWriteCoalescer;
+    private final InventoryEventStream inventoryEventStream;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
 
-    public InventoryController(InventoryService inventoryService) {
+    public InventoryController(InventoryService inventoryService, InventoryBulkService inventoryBulkService,
+                               InventoryTransferService inventoryTransferService, InventoryWriteCoalescer inventoryWriteCoalescer,
+                               InventoryEventStream inventoryEventStream, IdempotencyService idempotencyService,
+                               ObjectMapper objectMapper) {
         this.inventoryService = inventoryService;
+        this.inventoryBulkService = inventoryBulkService;
+        this.inventoryTransferService = inventoryTransferService;
+        this.inventoryWriteCoalescer = inventoryWriteCoalescer;
+        this.inventoryEventStream = inventoryEventStream;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
     }
 
+    // Filters come from the query string, see InventoryFilter
+    // e.g. ?warehouseId=3&maxQuantity=10&sort=quantity for low stock in one warehouse
     @GetMapping
-    public List<Inventory> getAll() {
-        return inventoryService.getAll();
+    public List<Inventory> getAll(InventoryFilter filter, @RequestParam(required = false) Integer limit) {
+        return inventoryService.getFiltered(filter, limit);
+    }
+
+    @GetMapping("/view")
+    public List<InventoryView> getViews(InventoryFilter filter, @RequestParam(required = false) Integer limit) {
+        return inventoryService.getFilteredViews(filter, limit);
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonWriter.MEDIA_TYPE)
+    public StreamingResponseBody stream() {
+        return out -> inventoryService.streamAll(new NdjsonWriter<>(out, objectMapper));
+    }
+
+    // Live changes instead of polling; reconnects resume from Last-Event-ID
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestParam(required = false) Set<Long> warehouseId,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return inventoryEventStream.subscribe(warehouseId != null ? warehouseId : Set.of(), lastEventId);
     }
 
+    // Concurrent writes to the same row share a transaction, see InventoryWriteCoalescer.
+    // With an Idempotency-Key a retry gets the first response back instead of adding the stock twice.
     @PostMapping
-    public Inventory create(@RequestBody Inventory inventory) {
-        return inventoryService.create(inventory);
+    public ResponseEntity<?> create(@RequestBody Inventory inventory,
+                                    @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey != null) {
+            String json = idempotencyService.executeJson(idempotencyKey, "POST /api/inventory", inventory,
+                () -> inventoryService.create(inventory));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+        }
+        return ResponseEntity.ok(inventoryWriteCoalescer.create(inventory));
+    }
+
+    // Nightly feeds: a JSON array or one JSON object per line, reported per line
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkResult bulkCreate(@RequestBody List<Inventory> items) {
+        return inventoryBulkService.ingest(items);
+    }
+
+    @PostMapping(value = "/bulk", consumes = NdjsonWriter.MEDIA_TYPE)
+    public BulkResult bulkCreateNdjson(InputStream body) {
+        return inventoryBulkService.ingestNdjson(body);
     }
 
     @GetMapping("/{id}")
@@ -33,7 +99,7 @@ public class InventoryController {
 
     @PutMapping("/{id}")
     public Inventory update(@PathVariable Long id, @Valid @RequestBody Inventory inventory) {
-        return inventoryService.update(id, inventory);
+        return inventoryWriteCoalescer.update(id, inventory);
     }
 
     @DeleteMapping("/{id}")
@@ -41,9 +107,12 @@ public class InventoryController {
         inventoryService.delete(id);
     }
 
+    // Same shard: one transaction. Across shards: a saga, see InventoryTransferService
     @PostMapping("/transfer")
-    public String transferInventory(@RequestBody TransferRequest request) {
-        inventoryService.transferInventory(
+    public String transferInventory(@RequestBody TransferRequest request,
+                                    @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        inventoryTransferService.transfer(
+            idempotencyKey,
             request.sourceWarehouseId, 
             request.destWarehouseId, 
             request.productId, 
@@ -52,6 +121,13 @@ public class InventoryController {
         return "Transfer successful!";
     }
 
+    // Rebalancing jobs: many moves in one transaction, reported per transfer (same-shard moves only)
+    @PostMapping("/transfer/batch")
+    public BulkResult transferBatch(@Valid @RequestBody BatchTransferRequest request) {
+        TransferMode mode = request.mode != null ? request.mode : TransferMode.ALL_OR_NOTHING;
+        return inventoryService.transferBatch(request.transfers, mode);
+    }
+
     public static class TransferRequest {
         public Long sourceWarehouseId;
         public Long destWarehouseId;
@@ -59,4 +135,10 @@ public class InventoryController {
         public int amount;
     }
 
+    public static class BatchTransferRequest {
+        public TransferMode mode;
+        @NotEmpty(message = "At least one transfer is required")
+        public List<@NotNull TransferLine> transfers;
+    }
+
 }
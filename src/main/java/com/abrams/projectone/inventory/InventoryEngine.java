@@ -0,0 +1,555 @@
+package com.abrams.projectone.inventory;
+
+import com.abrams.projectone.common.LongIntMap;
+import com.abrams.projectone.warehouse.WarehouseLoad;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-memory stock for high-rate scanner adjustments (inventory.engine.enabled).
+ * Quantities and loads are held per warehouse in primitive maps, and each warehouse has its
+ * own lock, so checks on different warehouses never wait for each other and none of them
+ * touch the database on the way in. The one thing they share is the journal append, a
+ * short write that is serialized.
+ * <ul>
+ * <li>An accepted change is appended to {@link InventoryJournal} before it is applied, and
+ * remembered as pending. A transfer is one journal record.</li>
+ * <li>Every flush-interval the pending changes, summed per (warehouse, product), are written
+ * behind in one transaction through {@link InventoryService#applyBufferedDeltas}, together
+ * with the journal checkpoint. The ledger, outbox, event stream and alerts see them then.</li>
+ * <li>At start-up the state is loaded from the tables and the journal segments written after
+ * the checkpoint are replayed on top.</li>
+ * </ul>
+ * What the engine holds is the database plus its pending changes. Writes through
+ * InventoryService still go straight to the database and are added here once they commit,
+ * unless a load of their warehouse has already read them; until a flush they are checked against a load that doesn't include the pending changes,
+ * so the two can overlap by at most one flush interval of adjustments.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.engine.enabled", havingValue = "true")
+public class InventoryEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryEngine.class);
+
+    // Set while this engine's own write-behind publishes, so it isn't counted twice
+    private static final ThreadLocal<Boolean> flushing = ThreadLocal.withInitial(() -> false);
+
+    private final InventoryService inventoryService;
+    private final InventoryRepository inventoryRepository;
+    private final WarehouseRepository warehouseRepository;
+    private final InventoryEngineCheckpointRepository checkpointRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryJournal journal;
+    private final Counter applied;
+    private final Counter rejected;
+    private final Counter dropped;
+
+    private final Map<Long, WarehouseStock> warehouses = new ConcurrentHashMap<>();
+    // Direct writes between their commit and their apply here
+    private final Set<Committed> committing = ConcurrentHashMap.newKeySet();
+    // Adjustments share it, a flush takes it alone to switch segments and drain pending
+    private final ReentrantReadWriteLock segmentLock = new ReentrantReadWriteLock();
+    // Drained but not yet written, oldest first; only touched by flush() and start()
+    private final Deque<Batch> unflushed = new ArrayDeque<>();
+    private volatile boolean ready;
+
+    public InventoryEngine(InventoryService inventoryService, InventoryRepository inventoryRepository,
+                           WarehouseRepository warehouseRepository, InventoryEngineCheckpointRepository checkpointRepository,
+                           ShardRouter shardRouter, PlatformTransactionManager transactionManager,
+                           @Value("${inventory.engine.journal.directory:inventory-journal}") Path journalDirectory,
+                           @Value("${inventory.engine.journal.sync-every-write:false}") boolean syncEveryWrite,
+                           MeterRegistry registry) {
+        this.inventoryService = inventoryService;
+        this.inventoryRepository = inventoryRepository;
+        this.warehouseRepository = warehouseRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.journal = new InventoryJournal(journalDirectory, syncEveryWrite);
+        this.applied = Counter.builder("inventory.engine.changes").tag("result", "applied").register(registry);
+        this.rejected = Counter.builder("inventory.engine.changes").tag("result", "rejected").register(registry);
+        this.dropped = Counter.builder("inventory.engine.changes").tag("result", "dropped").register(registry);
+        Gauge.builder("inventory.engine.unflushed", unflushed, Deque::size)
+            .description("Journal segments drained but not yet in the database")
+            .register(registry);
+    }
+
+    /**
+     * Loads everything from the tables and replays the journal written since the last
+     * checkpoint. Called at start-up; calling it again discards what is in memory and
+     * reloads, which is what a restart does.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        segmentLock.writeLock().lock();
+        try {
+            ready = false;
+            journal.close();
+            warehouses.clear();
+            unflushed.clear();
+            transactionTemplate.executeWithoutResult(status -> loadAll());
+
+            long checkpoint = checkpointRepository.findById(InventoryEngineCheckpoint.ID)
+                .map(InventoryEngineCheckpoint::getFlushedSegment)
+                .orElse(0L);
+            long last = checkpoint;
+            int replayed = 0;
+            for (long segment : journal.segments()) {
+                if (segment <= checkpoint) {
+                    journal.delete(segment);
+                    continue;
+                }
+                journal.replay(segment, this::replay);
+                List<StockDelta> deltas = drain();
+                if (deltas.isEmpty()) {
+                    journal.delete(segment);
+                } else {
+                    unflushed.add(new Batch(segment, deltas));
+                    replayed++;
+                }
+                last = segment;
+            }
+            journal.open(last + 1);
+            ready = true;
+            log.info("Inventory engine loaded {} warehouses, replayed {} journal segments", warehouses.size(), replayed);
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        flush();
+        journal.close();
+    }
+
+    public int getQuantity(Long warehouseId, Long productId) {
+        WarehouseStock stock = stock(warehouseId);
+        stock.lock.lock();
+        try {
+            return stock.quantities.get(productId, 0);
+        } finally {
+            stock.lock.unlock();
+        }
+    }
+
+    public long getLoad(Long warehouseId) {
+        WarehouseStock stock = stock(warehouseId);
+        stock.lock.lock();
+        try {
+            return stock.load;
+        } finally {
+            stock.lock.unlock();
+        }
+    }
+
+    /**
+     * Adds {@code delta} (negative to take stock out) to one product in one warehouse.
+     * Same rules as the database writes: stock can't go negative, load can't pass capacity.
+     * Returns the new quantity.
+     */
+    public int adjust(Long warehouseId, Long productId, int delta) {
+        if (warehouseId == null || productId == null) {
+            throw new RuntimeException("Warehouse and product are required.");
+        }
+        if (delta == 0) {
+            throw new RuntimeException("Adjustment must not be zero.");
+        }
+        segmentLock.readLock().lock();
+        try {
+            checkReady();
+            WarehouseStock stock = stock(warehouseId);
+            stock.lock.lock();
+            try {
+                int quantity = stock.quantities.get(productId, 0) + delta;
+                if (quantity < 0) {
+                    throw reject("Insufficient stock in warehouse. Available: " + (quantity - delta));
+                }
+                if (delta > 0 && stock.load + delta > stock.maxCapacity) {
+                    throw reject("Warehouse capacity exceeded!");
+                }
+                journal.append(warehouseId, productId, delta);
+                stock.apply(productId, delta, true);
+                applied.increment();
+                return quantity;
+            } finally {
+                stock.lock.unlock();
+            }
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+    }
+
+    // Each line on its own: a rejected line doesn't stop the others
+    public BulkResult adjustAll(List<StockDelta> lines) {
+        List<BulkLineResult> results = new ArrayList<>(lines.size());
+        int line = 0;
+        for (StockDelta d : lines) {
+            line++;
+            try {
+                adjust(d.warehouseId(), d.productId(), d.delta());
+                results.add(BulkLineResult.ok(line, null));
+            } catch (RuntimeException e) {
+                results.add(BulkLineResult.failed(line, e.getMessage()));
+            }
+        }
+        return BulkResult.of(results);
+    }
+
+    public void transfer(Long sourceWarehouseId, Long destWarehouseId, Long productId, int amount) {
+        if (amount <= 0) {
+            throw new RuntimeException("Transfer amount must be positive.");
+        }
+        if (sourceWarehouseId.equals(destWarehouseId)) {
+            throw new RuntimeException("Source and destination warehouses cannot be the same.");
+        }
+        // Written behind in one transaction, which can't span shards
+        if (!shardRouter.sameShard(sourceWarehouseId, destWarehouseId)) {
+            throw new RuntimeException("Warehouses are on different shards; move stock between them with POST /api/inventory/transfer.");
+        }
+        segmentLock.readLock().lock();
+        try {
+            checkReady();
+            WarehouseStock source = stock(sourceWarehouseId);
+            WarehouseStock dest = stock(destWarehouseId);
+            // Ascending id, so A->B and B->A can't deadlock
+            WarehouseStock first = sourceWarehouseId < destWarehouseId ? source : dest;
+            WarehouseStock second = first == source ? dest : source;
+            first.lock.lock();
+            second.lock.lock();
+            try {
+                int available = source.quantities.get(productId, 0);
+                if (available < amount) {
+                    throw reject("Insufficient stock in source warehouse. Available: " + available);
+                }
+                if (dest.load + amount > dest.maxCapacity) {
+                    throw reject("Transfer failed: Destination warehouse capacity exceeded!");
+                }
+                journal.appendTransfer(sourceWarehouseId, destWarehouseId, productId, amount);
+                source.apply(productId, -amount, true);
+                dest.apply(productId, amount, true);
+                applied.increment();
+            } finally {
+                second.lock.unlock();
+                first.lock.unlock();
+            }
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+    }
+
+    // Writes that go straight to the database, applied here once they commit (see Committed)
+    @EventListener
+    public void onChange(InventoryChange change) {
+        if (flushing.get() || change.delta() == 0 || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Committed committed = TransactionSynchronizationManager.getSynchronizations().stream()
+            .filter(Committed.class::isInstance)
+            .map(Committed.class::cast)
+            .filter(candidate -> candidate.engine() == this)
+            .findFirst()
+            .orElse(null);
+        if (committed == null) {
+            committed = new Committed();
+            TransactionSynchronizationManager.registerSynchronization(committed);
+        }
+        committed.changes.add(change);
+    }
+
+    /**
+     * Writes pending changes behind: starts a new journal segment, drains what the old one
+     * holds, and writes each drained segment in its own transaction, oldest first. A segment
+     * that fails stays queued for the next flush. Returns how many segments were written.
+     */
+    @Scheduled(fixedDelayString = "${inventory.engine.flush-interval:PT0.5S}")
+    public synchronized int flush() {
+        if (!ready) {
+            return 0;
+        }
+        segmentLock.writeLock().lock();
+        try {
+            if (!journal.isEmpty()) {
+                unflushed.add(new Batch(journal.rotate(), drain()));
+            }
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+
+        int written = 0;
+        while (!unflushed.isEmpty()) {
+            Batch batch = unflushed.peek();
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                log.warn("Write-behind of journal segment {} failed, will retry: {}", batch.segment(), e.getMessage());
+                break;
+            }
+            journal.delete(batch.segment());
+            unflushed.poll();
+            written++;
+        }
+        if (written > 0) {
+            refreshCapacities();
+        }
+        return written;
+    }
+
+    private void write(Batch batch) {
+        List<StockDelta> skipped;
+        flushing.set(true);
+        try {
+            skipped = transactionTemplate.execute(status -> {
+                List<StockDelta> rejectedDeltas = inventoryService.applyBufferedDeltas(batch.deltas());
+                InventoryEngineCheckpoint checkpoint = checkpointRepository.findById(InventoryEngineCheckpoint.ID)
+                    .orElseGet(() -> new InventoryEngineCheckpoint(batch.segment()));
+                checkpoint.setFlushedSegment(batch.segment());
+                checkpointRepository.save(checkpoint);
+                return rejectedDeltas;
+            });
+        } finally {
+            flushing.remove();
+        }
+        // Not in the database, so not here either
+        for (StockDelta d : skipped) {
+            log.error("Dropped buffered adjustment {} for warehouse {}, product {}: no longer applies",
+                d.delta(), d.warehouseId(), d.productId());
+            dropped.increment();
+            WarehouseStock stock = warehouses.get(d.warehouseId());
+            if (stock != null) {
+                stock.lock.lock();
+                try {
+                    stock.apply(d.productId(), -d.delta(), false);
+                } finally {
+                    stock.lock.unlock();
+                }
+            }
+        }
+    }
+
+    // Capacities are edited through the warehouse API, not here
+    private void refreshCapacities() {
+        for (WarehouseLoad load : warehouseRepository.findAllLoads()) {
+            WarehouseStock stock = warehouses.get(load.warehouseId());
+            if (stock != null) {
+                stock.lock.lock();
+                try {
+                    stock.maxCapacity = load.maxCapacity();
+                } finally {
+                    stock.lock.unlock();
+                }
+            }
+        }
+    }
+
+    // Every warehouse row is locked while it is read, so no write commits in between.
+    // Writes that committed before are in what is read, so their pending apply is skipped.
+    private void loadAll() {
+        List<Long> ids = warehouseRepository.findAllIds();
+        if (ids.isEmpty()) {
+            return;
+        }
+        warehouseRepository.lockAllInIdOrder(ids);
+        committing.forEach(committed -> committed.absorb(null));
+        for (WarehouseLoad load : warehouseRepository.findAllLoads()) {
+            warehouses.put(load.warehouseId(), new WarehouseStock(load.maxCapacity(), load.currentLoad()));
+        }
+        try (Stream<StockLevel> levels = inventoryRepository.streamStockLevels()) {
+            levels.forEach(level -> {
+                WarehouseStock stock = warehouses.get(level.warehouseId());
+                if (stock != null) {
+                    stock.quantities.put(level.productId(), level.quantity());
+                }
+            });
+        }
+    }
+
+    // Warehouses created since start-up are loaded on first use, the same way
+    private WarehouseStock stock(Long warehouseId) {
+        WarehouseStock stock = warehouses.get(warehouseId);
+        if (stock != null) {
+            return stock;
+        }
+        synchronized (warehouses) {
+            stock = warehouses.get(warehouseId);
+            if (stock == null) {
+                stock = transactionTemplate.execute(status -> {
+                    if (warehouseRepository.lockAllInIdOrder(List.of(warehouseId)).isEmpty()) {
+                        return null;
+                    }
+                    committing.forEach(committed -> committed.absorb(warehouseId));
+                    WarehouseLoad load = warehouseRepository.findLoads(List.of(warehouseId)).get(0);
+                    WarehouseStock loaded = new WarehouseStock(load.maxCapacity(), load.currentLoad());
+                    inventoryRepository.findStockLevels(warehouseId)
+                        .forEach(level -> loaded.quantities.put(level.productId(), level.quantity()));
+                    warehouses.put(warehouseId, loaded);
+                    return loaded;
+                });
+            }
+        }
+        if (stock == null) {
+            throw reject("Warehouse not found");
+        }
+        return stock;
+    }
+
+    // Journal records are applied without checks: they were checked when accepted
+    private void replay(long warehouseId, long productId, int delta) {
+        WarehouseStock stock = warehouses.get(warehouseId);
+        if (stock == null) {
+            stock = new WarehouseStock(0, 0);
+            warehouses.put(warehouseId, stock);
+        }
+        stock.apply(productId, delta, true);
+    }
+
+    private List<StockDelta> drain() {
+        List<StockDelta> deltas = new ArrayList<>();
+        warehouses.forEach((warehouseId, stock) -> {
+            stock.lock.lock();
+            try {
+                stock.pending.forEach((productId, delta) -> {
+                    if (delta != 0) {
+                        deltas.add(new StockDelta(warehouseId, productId, delta));
+                    }
+                });
+                stock.pending.clear();
+            } finally {
+                stock.lock.unlock();
+            }
+        });
+        return deltas;
+    }
+
+    private void checkReady() {
+        if (!ready) {
+            throw new RuntimeException("Inventory engine is starting, retry shortly.");
+        }
+    }
+
+    private RuntimeException reject(String message) {
+        rejected.increment();
+        return new RuntimeException(message);
+    }
+
+    private record Batch(long segment, List<StockDelta> deltas) {
+    }
+
+    /**
+     * One transaction's direct writes. It joins {@code committing} just before commit, while
+     * the writer still holds its warehouse locks, and applies its changes after commit. A
+     * load that gets those locks in between reads the committed rows, so it marks the
+     * transaction's changes to its warehouses as already absorbed. A load always marks
+     * before it publishes the warehouse, so each change is counted exactly once.
+     */
+    private class Committed implements TransactionSynchronization {
+
+        final List<InventoryChange> changes = new ArrayList<>();
+        private final Set<Long> absorbed = new HashSet<>();
+        private boolean absorbedAll;
+
+        InventoryEngine engine() {
+            return InventoryEngine.this;
+        }
+
+        // null: every warehouse
+        synchronized void absorb(Long warehouseId) {
+            if (warehouseId == null) {
+                absorbedAll = true;
+            } else {
+                absorbed.add(warehouseId);
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            committing.add(this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                if (status == STATUS_COMMITTED) {
+                    apply();
+                }
+            } finally {
+                committing.remove(this);
+            }
+        }
+
+        private synchronized void apply() {
+            for (InventoryChange change : changes) {
+                if (absorbedAll || absorbed.contains(change.warehouseId())) {
+                    continue;
+                }
+                WarehouseStock stock = warehouses.get(change.warehouseId());
+                if (stock == null) {
+                    // Not loaded yet; it will be read from the table when it is
+                    continue;
+                }
+                stock.lock.lock();
+                try {
+                    stock.apply(change.productId(), change.delta(), false);
+                } finally {
+                    stock.lock.unlock();
+                }
+            }
+        }
+    }
+
+    // One warehouse's stock; every field is guarded by lock
+    private static class WarehouseStock {
+
+        final ReentrantLock lock = new ReentrantLock();
+        final LongIntMap quantities = new LongIntMap();
+        // Accepted here but not yet written behind
+        final LongIntMap pending = new LongIntMap();
+        long maxCapacity;
+        long load;
+
+        WarehouseStock(long maxCapacity, long load) {
+            this.maxCapacity = maxCapacity;
+            this.load = load;
+        }
+
+        void apply(long productId, int delta, boolean buffered) {
+            quantities.add(productId, delta);
+            load += delta;
+            if (buffered) {
+                pending.add(productId, delta);
+            }
+        }
+    }
+}
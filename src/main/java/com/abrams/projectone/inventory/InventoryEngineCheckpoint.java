@@ -0,0 +1,37 @@
+package com.abrams.projectone.inventory;
+
+import jakarta.persistence.*;
+
+/**
+ * The last journal segment {@link InventoryEngine} has written to the database. Updated in
+ * the same transaction as the segment's changes, so after a crash exactly the later
+ * segments are replayed. Single row.
+ */
+@Entity
+@Table(name = "inventory_engine_checkpoint")
+public class InventoryEngineCheckpoint {
+
+    static final int ID = 1;
+
+    @Id
+    @Column(name = "checkpoint_id")
+    private Integer id;
+
+    @Column(name = "flushed_segment", nullable = false)
+    private Long flushedSegment;
+
+    protected InventoryEngineCheckpoint() {}
+
+    InventoryEngineCheckpoint(long flushedSegment) {
+        this.id = ID;
+        this.flushedSegment = flushedSegment;
+    }
+
+    public Long getFlushedSegment() {
+        return flushedSegment;
+    }
+
+    void setFlushedSegment(Long flushedSegment) {
+        this.flushedSegment = flushedSegment;
+    }
+}
@@ -0,0 +1,6 @@
+package com.abrams.projectone.inventory;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface InventoryEngineCheckpointRepository extends JpaRepository<InventoryEngineCheckpoint, Integer> {
+}
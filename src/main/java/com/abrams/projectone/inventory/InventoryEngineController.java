@@ -0,0 +1,36 @@
+package com.abrams.projectone.inventory;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Scanner traffic, answered from memory; see InventoryEngine
+@RestController
+@RequestMapping("/api/inventory/engine")
+@ConditionalOnProperty(name = "inventory.engine.enabled", havingValue = "true")
+public class InventoryEngineController {
+
+    private final InventoryEngine inventoryEngine;
+
+    public InventoryEngineController(InventoryEngine inventoryEngine) {
+        this.inventoryEngine = inventoryEngine;
+    }
+
+    @GetMapping("/stock")
+    public int getQuantity(@RequestParam Long warehouseId, @RequestParam Long productId) {
+        return inventoryEngine.getQuantity(warehouseId, productId);
+    }
+
+    // Each line is applied or rejected on its own
+    @PostMapping("/adjustments")
+    public BulkResult adjust(@RequestBody List<StockDelta> adjustments) {
+        return inventoryEngine.adjustAll(adjustments);
+    }
+
+    @PostMapping("/transfer")
+    public String transfer(@RequestBody InventoryController.TransferRequest request) {
+        inventoryEngine.transfer(request.sourceWarehouseId, request.destWarehouseId, request.productId, request.amount);
+        return "Transfer successful!";
+    }
+}
@@ -0,0 +1,230 @@
+package com.abrams.projectone.inventory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans committed {@link InventoryChange}s out to /api/inventory/events subscribers.
+ * <ul>
+ * <li>Event ids are {@code <epoch>-<sequence>}. The last {@code history-size} changes are kept
+ * so a client reconnecting with Last-Event-ID gets what it missed; if that is no longer
+ * possible (too old, or from before a restart) it gets a {@code reset} event and should refetch.</li>
+ * <li>Each subscriber has a bounded queue. A subscriber that falls {@code buffer-size} events
+ * behind is disconnected rather than slowing everyone down; it can resume with Last-Event-ID.</li>
+ * <li>Sends happen on a small pool of sender threads, never on the committing thread.</li>
+ * </ul>
+ */
+@Component
+public class InventoryEventStream {
+
+    private static final Sequenced HEARTBEAT = new Sequenced(-1, null);
+    private static final Sequenced RESET = new Sequenced(-2, null);
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final int historySize;
+    private final int bufferSize;
+    private final Duration timeout;
+    private final ExecutorService sender;
+    private final Counter dropped;
+
+    // history and sequence are guarded by this lock, so a resuming subscriber can replay
+    // and register without missing or duplicating a change published in between
+    private final Object lock = new Object();
+    private final ArrayDeque<Sequenced> history = new ArrayDeque<>();
+    private long sequence;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public InventoryEventStream(@Value("${inventory.events.history-size:10000}") int historySize,
+                                @Value("${inventory.events.buffer-size:256}") int bufferSize,
+                                @Value("${inventory.events.timeout:PT30M}") Duration timeout,
+                                @Value("${inventory.events.sender-threads:4}") int senderThreads,
+                                MeterRegistry registry) {
+        this.historySize = historySize;
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        AtomicInteger threads = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, task -> {
+            Thread thread = new Thread(task, "inventory-events-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dropped = Counter.builder("inventory.events.dropped")
+            .description("Subscribers disconnected for falling behind")
+            .register(registry);
+        Gauge.builder("inventory.events.subscribers", subscribers, List::size).register(registry);
+    }
+
+    /**
+     * @param warehouseIds only changes in these warehouses; empty means all
+     * @param lastEventId  resume after this event, or null for live changes only
+     */
+    public SseEmitter subscribe(Set<Long> warehouseIds, String lastEventId) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeout.toMillis()), warehouseIds);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(e -> subscribers.remove(subscriber));
+        synchronized (lock) {
+            if (lastEventId != null) {
+                replay(subscriber, lastEventId);
+            }
+            subscribers.add(subscriber);
+        }
+        return subscriber.emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void publish(InventoryChange change) {
+        synchronized (lock) {
+            Sequenced event = new Sequenced(++sequence, change);
+            history.addLast(event);
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.matches(change) && !subscriber.offer(event)) {
+                    drop(subscriber);
+                }
+            }
+        }
+    }
+
+    // Keeps proxies from idling the connection out and finds clients that went away
+    @Scheduled(fixedDelayString = "${inventory.events.heartbeat:PT30S}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.offer(HEARTBEAT)) {
+                drop(subscriber);
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        sender.shutdownNow();
+    }
+
+    private void replay(Subscriber subscriber, String lastEventId) {
+        long after = parseSequence(lastEventId);
+        long oldest = history.isEmpty() ? sequence + 1 : history.peekFirst().sequence();
+        if (after < 0 || after > sequence || after < oldest - 1) {
+            subscriber.offer(RESET);
+            return;
+        }
+        for (Sequenced event : history) {
+            if (event.sequence() > after && subscriber.matches(event.change()) && !subscriber.offer(event)) {
+                // More missed than the buffer holds: cheaper for the client to refetch
+                subscriber.queue.clear();
+                subscriber.offer(RESET);
+                return;
+            }
+        }
+    }
+
+    // -1 for ids from another run or that don't parse
+    private long parseSequence(String lastEventId) {
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !lastEventId.substring(0, dash).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.queue.clear();
+        dropped.increment();
+        sender.execute(subscriber.emitter::complete);
+    }
+
+    private record Sequenced(long sequence, InventoryChange change) {
+    }
+
+    private class Subscriber {
+
+        final SseEmitter emitter;
+        final Set<Long> warehouseIds;
+        final ArrayBlockingQueue<Sequenced> queue = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, Set<Long> warehouseIds) {
+            this.emitter = emitter;
+            this.warehouseIds = warehouseIds;
+        }
+
+        boolean matches(InventoryChange change) {
+            return warehouseIds.isEmpty() || warehouseIds.contains(change.warehouseId());
+        }
+
+        boolean offer(Sequenced event) {
+            if (!queue.offer(event)) {
+                return false;
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+            return true;
+        }
+
+        private void drain() {
+            try {
+                Sequenced event;
+                while ((event = queue.poll()) != null) {
+                    send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already completed
+                subscribers.remove(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // Something may have arrived after the last poll but before draining was cleared
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void send(Sequenced event) throws IOException {
+            if (event == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else if (event == RESET) {
+                emitter.send(SseEmitter.event().name("reset").data("resync"));
+            } else {
+                emitter.send(SseEmitter.event()
+                    .id(epoch + "-" + event.sequence())
+                    .name(event.change().type().name().toLowerCase())
+                    .data(event.change(), MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.abrams.projectone.inventory;
+
+/**
+ * Query parameters of the inventory list endpoints. Every field is optional; set ones
+ * are ANDed and pushed down into one SQL statement by {@link InventoryQueryRepository}.
+ * <ul>
+ * <li>{@code sku}, {@code location}: prefixes of the product SKU / storage location</li>
+ * <li>{@code minQuantity}, {@code maxQuantity}: inclusive quantity range</li>
+ * <li>{@code sort}: id (default), quantity or -quantity</li>
+ * <li>{@code after}, {@code afterQuantity}: keyset cursor, the id (and, when sorting by
+ * quantity, the quantity) of the last row of the previous page</li>
+ * </ul>
+ */
+public record InventoryFilter(Long warehouseId, Long productId, String sku, String location,
+                              Integer minQuantity, Integer maxQuantity, String sort,
+                              Long after, Integer afterQuantity) {
+
+    public static InventoryFilter none() {
+        return new InventoryFilter(null, null, null, null, null, null, null, null, null);
+    }
+
+    public InventorySort order() {
+        return InventorySort.parse(sort);
+    }
+
+    // Plain id-ordered paging, which the existing keyset queries already serve
+    public boolean isUnfiltered() {
+        return warehouseId == null && productId == null && isBlank(sku) && isBlank(location)
+            && minQuantity == null && maxQuantity == null && order() == InventorySort.ID;
+    }
+
+    public void validate() {
+        if (minQuantity != null && maxQuantity != null && minQuantity > maxQuantity) {
+            throw new RuntimeException("minQuantity cannot be greater than maxQuantity.");
+        }
+        if (after != null && order() != InventorySort.ID && afterQuantity == null) {
+            throw new RuntimeException("afterQuantity is required to page when sorting by quantity.");
+        }
+    }
+
+    static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
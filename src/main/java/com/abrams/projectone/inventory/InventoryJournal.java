@@ -0,0 +1,163 @@
+package com.abrams.projectone.inventory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of {@link InventoryEngine} changes in numbered segment files, one
+ * fixed-size record (warehouse id, destination warehouse id, product id, delta) per change.
+ * An adjustment has no destination (0); a transfer is one record, so replay applies its
+ * debit and credit together or, if a crash cut the record short, neither. The engine
+ * starts a new segment each time it flushes, and a segment is deleted once its changes
+ * are in the database.
+ * <p>
+ * Appends go to a single file, so they are serialized; each is one short write into the
+ * OS page cache.
+ * <p>
+ * Each record is written straight to the file, so it survives the process dying. It
+ * survives the machine dying only once forced to disk: on every flush, or on every
+ * write with inventory.engine.journal.sync-every-write (much slower).
+ */
+class InventoryJournal {
+
+    private static final int RECORD_BYTES = Long.BYTES * 3 + Integer.BYTES;
+    private static final long NO_DESTINATION = 0;
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final boolean syncEveryWrite;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private FileChannel channel;
+    private long segment;
+    private boolean written;
+
+    InventoryJournal(Path directory, boolean syncEveryWrite) {
+        this.directory = directory;
+        this.syncEveryWrite = syncEveryWrite;
+    }
+
+    @FunctionalInterface
+    interface Replay {
+        void apply(long warehouseId, long productId, int delta);
+    }
+
+    // Segment numbers on disk, oldest first
+    List<Long> segments() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                .filter(name -> name.endsWith(SUFFIX))
+                .map(name -> Long.valueOf(name.substring(0, name.length() - SUFFIX.length())))
+                .sorted()
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Reads a segment back. A record cut short by a crash mid-write was never applied, so it is ignored.
+    void replay(long segment, Replay replay) {
+        try (FileChannel in = FileChannel.open(file(segment), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES * 1024);
+            while (in.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_BYTES) {
+                    long warehouseId = buffer.getLong();
+                    long destWarehouseId = buffer.getLong();
+                    long productId = buffer.getLong();
+                    int delta = buffer.getInt();
+                    if (destWarehouseId == NO_DESTINATION) {
+                        replay.apply(warehouseId, productId, delta);
+                    } else {
+                        replay.apply(warehouseId, productId, -delta);
+                        replay.apply(destWarehouseId, productId, delta);
+                    }
+                }
+                buffer.compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    synchronized void open(long segment) {
+        try {
+            Files.createDirectories(directory);
+            channel = FileChannel.open(file(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            this.segment = segment;
+            written = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void append(long warehouseId, long productId, int delta) {
+        write(warehouseId, NO_DESTINATION, productId, delta);
+    }
+
+    void appendTransfer(long sourceWarehouseId, long destWarehouseId, long productId, int amount) {
+        write(sourceWarehouseId, destWarehouseId, productId, amount);
+    }
+
+    private synchronized void write(long warehouseId, long destWarehouseId, long productId, int delta) {
+        record.clear();
+        record.putLong(warehouseId).putLong(destWarehouseId).putLong(productId).putInt(delta).flip();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            if (syncEveryWrite) {
+                channel.force(false);
+            }
+            written = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Forces the current segment to disk and starts the next one. Returns the finished segment.
+    synchronized long rotate() {
+        long finished = segment;
+        close();
+        open(finished + 1);
+        return finished;
+    }
+
+    synchronized boolean isEmpty() {
+        return !written;
+    }
+
+    synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void delete(long segment) {
+        try {
+            Files.deleteIfExists(file(segment));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path file(long segment) {
+        return directory.resolve(String.format("%020d%s", segment, SUFFIX));
+    }
+}
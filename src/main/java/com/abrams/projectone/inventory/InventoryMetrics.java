@@ -0,0 +1,41 @@
+package com.abrams.projectone.inventory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Business counters for inventory writes:
+ * inventory.create.rows{result=inserted|merged} and
+ * inventory.rejections{reason=capacity|insufficient_stock, operation=...}.
+ */
+@Component
+class InventoryMetrics {
+
+    private final MeterRegistry registry;
+    private final Counter inserted;
+    private final Counter merged;
+
+    InventoryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.inserted = Counter.builder("inventory.create.rows").tag("result", "inserted").register(registry);
+        this.merged = Counter.builder("inventory.create.rows").tag("result", "merged").register(registry);
+    }
+
+    void created(boolean insertedNewRow) {
+        (insertedNewRow ? inserted : merged).increment();
+    }
+
+    void capacityRejected(String operation) {
+        rejected("capacity", operation);
+    }
+
+    void insufficientStock(String operation) {
+        rejected("insufficient_stock", operation);
+    }
+
+    private void rejected(String reason, String operation) {
+        registry.counter("inventory.rejections", "reason", reason, "operation", operation).increment();
+    }
+}
@@ -0,0 +1,11 @@
+package com.abrams.projectone.inventory;
+
+import java.util.List;
+
+public interface InventoryQueryRepository {
+
+    // One statement each: filter, order and keyset cursor all in SQL, warehouse and product in the same join
+    List<Inventory> findFiltered(InventoryFilter filter, int limit);
+
+    List<InventoryView> findFilteredViews(InventoryFilter filter, int limit);
+}
@@ -0,0 +1,62 @@
+package com.abrams.projectone.inventory;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.List;
+
+class InventoryQueryRepositoryImpl implements InventoryQueryRepository {
+
+    private final EntityManager entityManager;
+
+    InventoryQueryRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Inventory> findFiltered(InventoryFilter filter, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Inventory> query = cb.createQuery(Inventory.class);
+        Root<Inventory> root = query.from(Inventory.class);
+        root.fetch("warehouse");
+        root.fetch("product");
+        return run(query.select(root), root, cb, filter, limit);
+    }
+
+    @Override
+    public List<InventoryView> findFilteredViews(InventoryFilter filter, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<InventoryView> query = cb.createQuery(InventoryView.class);
+        Root<Inventory> root = query.from(Inventory.class);
+        Path<Object> warehouse = root.get("warehouse");
+        Path<Object> product = root.get("product");
+        query.select(cb.construct(InventoryView.class,
+            root.get("id"), warehouse.get("id"), warehouse.get("name"),
+            product.get("id"), product.get("sku"), root.get("quantity"), root.get("storageLocation")));
+        return run(query, root, cb, filter, limit);
+    }
+
+    private <T> List<T> run(CriteriaQuery<T> query, Root<Inventory> root, CriteriaBuilder cb, InventoryFilter filter, int limit) {
+        Predicate where = InventorySpecifications.matching(filter).toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        query.orderBy(order(filter.order(), root, cb));
+        return entityManager.createQuery(query)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    private static List<Order> order(InventorySort sort, Root<Inventory> root, CriteriaBuilder cb) {
+        return switch (sort) {
+            case ID -> List.of(cb.asc(root.get("id")));
+            case QUANTITY_ASC -> List.of(cb.asc(root.get("quantity")), cb.asc(root.get("id")));
+            case QUANTITY_DESC -> List.of(cb.desc(root.get("quantity")), cb.desc(root.get("id")));
+        };
+    }
+}
@@ -1,19 +1,87 @@
 package com.abrams.projectone.inventory;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface InventoryRepository extends JpaRepository<Inventory, Long> {
+public interface InventoryRepository extends JpaRepository<Inventory, Long>, InventoryUpsertRepository, InventoryQueryRepository {
+
+    // Warehouse and product are LAZY, so every read that hands entities back
+    // to callers loads them in the same statement.
+    @Override
+    @EntityGraph(attributePaths = {"warehouse", "product"})
+    Optional<Inventory> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"warehouse", "product"})
+    List<Inventory> findAll();
 
     // FIX 1: Use explicit query to ensure we find the record by the nested IDs
-    @Query("SELECT i FROM Inventory i WHERE i.warehouse.id = :warehouseId AND i.product.id = :productId")
+    @Query("SELECT i FROM Inventory i JOIN FETCH i.warehouse JOIN FETCH i.product WHERE i.warehouse.id = :warehouseId AND i.product.id = :productId")
     Optional<Inventory> findByWarehouseIdAndProductId(Long warehouseId, Long productId);
 
+    // Every existing row a batch could merge into; callers filter the exact pairs in memory
+    @Query("SELECT i FROM Inventory i WHERE i.warehouse.id IN :warehouseIds AND i.product.id IN :productIds")
+    List<Inventory> findAllForPairs(Collection<Long> warehouseIds, Collection<Long> productIds);
+
+    @Query("SELECT i.warehouse.id FROM Inventory i WHERE i.id = :id")
+    Optional<Long> findWarehouseIdById(Long id);
+
+    @Query("SELECT new com.abrams.projectone.inventory.StockLevel(i.warehouse.id, i.product.id, i.quantity) FROM Inventory i WHERE i.id = :id")
+    Optional<StockLevel> findStockLevelById(Long id);
+
+    // For taking stock out; adding goes through upsertQuantity, which also creates the row
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity + :delta WHERE i.warehouse.id = :warehouseId AND i.product.id = :productId")
+    int addQuantity(Long warehouseId, Long productId, int delta);
+
     // FIX 2: Return Long (because SQL SUM returns Long/BigInt)
     @Query("SELECT COALESCE(SUM(i.quantity), 0) FROM Inventory i WHERE i.warehouse.id = :warehouseId")
     Long getTotalQuantityInWarehouse(Long warehouseId);
-}
\ No newline at end of file
+
+    // Keyset page: everything after the last id the client saw, in id order
+    @Query("SELECT i FROM Inventory i JOIN FETCH i.warehouse JOIN FETCH i.product WHERE i.id > :afterId ORDER BY i.id")
+    List<Inventory> findPageAfter(Long afterId, Limit limit);
+
+    @Query("""
+            SELECT new com.abrams.projectone.inventory.InventoryView(
+                i.id, w.id, w.name, p.id, p.sku, i.quantity, i.storageLocation)
+            FROM Inventory i JOIN i.warehouse w JOIN i.product p
+            WHERE i.id > :afterId
+            ORDER BY i.id""")
+    List<InventoryView> findViewPageAfter(Long afterId, Limit limit);
+
+    // Rows that could be low on stock; a range scan on ix_inventory_quantity_id
+    @Query("""
+            SELECT new com.abrams.projectone.inventory.InventoryView(
+                i.id, w.id, w.name, p.id, p.sku, i.quantity, i.storageLocation)
+            FROM Inventory i JOIN i.warehouse w JOIN i.product p
+            WHERE i.quantity < :quantity""")
+    List<InventoryView> findViewsWithQuantityBelow(int quantity);
+
+    // Quantities only, for loading InventoryEngine
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.abrams.projectone.inventory.StockLevel(i.warehouse.id, i.product.id, i.quantity) FROM Inventory i")
+    Stream<StockLevel> streamStockLevels();
+
+    @Query("SELECT new com.abrams.projectone.inventory.StockLevel(i.warehouse.id, i.product.id, i.quantity) FROM Inventory i WHERE i.warehouse.id = :warehouseId")
+    List<StockLevel> findStockLevels(Long warehouseId);
+
+    // Cursor over the whole table; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT i FROM Inventory i JOIN FETCH i.warehouse JOIN FETCH i.product ORDER BY i.id")
+    Stream<Inventory> streamAll();
+}
@@ -1,65 +1,468 @@
 package com.abrams.projectone.inventory;
 
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+
+import com.abrams.projectone.common.DbBound;
+import com.abrams.projectone.common.DbStream;
+import com.abrams.projectone.common.EntityStreams;
+import com.abrams.projectone.common.Paging;
+import com.abrams.projectone.common.RetryOnConflict;
 import com.abrams.projectone.product.Product;
 import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.product.ProductService;
 import com.abrams.projectone.warehouse.Warehouse;
-import com.abrams.projectone.warehouse.WarehouseRepository; 
+import com.abrams.projectone.warehouse.WarehouseLoad;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import com.abrams.projectone.warehouse.WarehouseService;
 
 @Service
+@Timed("inventory.service")
+@DbBound
 public class InventoryService {
 
+    private static final String CROSS_SHARD = "Warehouses are on different shards; move stock between them with POST /api/inventory/transfer.";
+
     private final InventoryRepository inventoryRepository;
     private final WarehouseRepository warehouseRepository;
     private final ProductRepository productRepository;
-
-    public InventoryService(InventoryRepository inventoryRepository, WarehouseRepository warehouseRepository, ProductRepository productRepository) {
+    private final ProductService productService;
+    private final WarehouseService warehouseService;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final InventoryMetrics metrics;
+    private final ApplicationEventPublisher events;
+    private final ShardRouter shardRouter;
+    private final TransferSagaRepository transferSagaRepository;
+
+    public InventoryService(InventoryRepository inventoryRepository, WarehouseRepository warehouseRepository, ProductRepository productRepository,
+                            ProductService productService, WarehouseService warehouseService, EntityManager entityManager, Validator validator,
+                            InventoryMetrics metrics, ApplicationEventPublisher events, ShardRouter shardRouter,
+                            TransferSagaRepository transferSagaRepository) {
         this.inventoryRepository = inventoryRepository;
         this.warehouseRepository = warehouseRepository;
         this.productRepository = productRepository;
+        this.productService = productService;
+        this.warehouseService = warehouseService;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.metrics = metrics;
+        this.events = events;
+        this.shardRouter = shardRouter;
+        this.transferSagaRepository = transferSagaRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Inventory> getAll(Long after, Integer limit) {
+        return inventoryRepository.findPageAfter(Paging.afterOrStart(after), Paging.limit(limit));
+    }
+
+    // Filtered views are one Criteria query; without filters this is the plain keyset page above
+    @Transactional(readOnly = true)
+    public List<Inventory> getFiltered(InventoryFilter filter, Integer limit) {
+        filter.validate();
+        if (filter.isUnfiltered()) {
+            return getAll(filter.after(), limit);
+        }
+        return inventoryRepository.findFiltered(filter, Paging.limit(limit).max());
+    }
+
+    @Transactional(readOnly = true)
+    public List<InventoryView> getViews(Long after, Integer limit) {
+        return inventoryRepository.findViewPageAfter(Paging.afterOrStart(after), Paging.limit(limit));
     }
 
-    public List<Inventory> getAll() {
-        return inventoryRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<InventoryView> getFilteredViews(InventoryFilter filter, Integer limit) {
+        filter.validate();
+        if (filter.isUnfiltered()) {
+            return getViews(filter.after(), limit);
+        }
+        return inventoryRepository.findFilteredViews(filter, Paging.limit(limit).max());
+    }
+
+    // Walks the whole table through a DB cursor, see EntityStreams. Runs at the client's
+    // pace, so it holds a stream slot rather than an ordinary one (see DbStream).
+    @DbStream
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Inventory> consumer) {
+        EntityStreams.forEachDetached(inventoryRepository.streamAll(), entityManager, consumer);
     }
 
+    // Every write locks the warehouse rows it touches (in id order, see lockWarehouses)
+    // before reading any inventory rows, so concurrent writers to a warehouse queue up
+    // instead of racing. Deadlocks/lock timeouts the DB still reports are retried.
+
+    @RetryOnConflict
+    @Transactional
     public Inventory create(Inventory inventory) {
-        // 1. FETCH FULL WAREHOUSE DATA (Existing logic)
+        // The row is written with native SQL below, so run the entity's bean validation ourselves
+        Set<ConstraintViolation<Inventory>> violations = validator.validate(inventory);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+
+        // 1. FETCH FULL WAREHOUSE DATA (locks the row for the rest of the transaction)
         Long warehouseId = inventory.getWarehouse().getId();
-        Warehouse warehouse = warehouseRepository.findById(warehouseId)
+        Warehouse warehouse = lockWarehouses(warehouseId).stream().findFirst()
             .orElseThrow(() -> new RuntimeException("Warehouse not found"));
-        inventory.setWarehouse(warehouse);
 
         // 2. FETCH FULL PRODUCT DATA (New Logic!)
         // This ensures the return object has Name/SKU, not just an ID.
+        // Products are reference data, so this is usually a cache hit.
         Long productId = inventory.getProduct().getId();
-        Product product = productRepository.findById(productId)
-            .orElseThrow(() -> new RuntimeException("Product not found"));
-        inventory.setProduct(product);
+        Product product = productService.getById(productId);
 
-        // 3. CAPACITY CHECK (Existing logic)
-        Integer maxCapacity = warehouse.getMaxCapacity();
-        Long currentLoad = inventoryRepository.getTotalQuantityInWarehouse(warehouseId);
-        
-        if (currentLoad + inventory.getQuantity() > maxCapacity) {
+        // 3. CAPACITY CHECK - reserves the space on warehouses.current_load in the same statement
+        if (warehouseRepository.tryAddLoad(warehouseId, inventory.getQuantity()) == 0) {
+             metrics.capacityRejected("create");
              throw new RuntimeException("Warehouse capacity exceeded!");
         }
 
-        // 4. DUPLICATE CHECK (Existing logic)
-        Optional<Inventory> existingInventory = 
-            inventoryRepository.findByWarehouseIdAndProductId(warehouseId, productId);
+        // 4. INSERT OR MERGE - one upsert against the (warehouse, product) unique constraint
+        InventoryUpsertRepository.UpsertedRow row = inventoryRepository.upsertQuantity(
+            warehouseId, productId, inventory.getQuantity(), inventory.getStorageLocation());
+        metrics.created(row.inserted());
+        publish(row.inserted() ? InventoryChangeType.CREATED : InventoryChangeType.UPDATED, MovementReason.RECEIVE,
+            row.inventoryId(), warehouseId, productId, row.quantity(), inventory.getQuantity());
+
+        // If this session already holds the row, bring it up to date instead of handing back a second copy
+        Inventory managed = entityManager.getReference(Inventory.class, row.inventoryId());
+        if (Hibernate.isInitialized(managed)) {
+            entityManager.refresh(managed);
+            return managed;
+        }
+        Inventory saved = new Inventory(warehouse, product, row.quantity(), row.storageLocation());
+        saved.setId(row.inventoryId());
+        return saved;
+    }
 
-        if (existingInventory.isPresent()) {
-            Inventory existing = existingInventory.get();
-            existing.setQuantity(existing.getQuantity() + inventory.getQuantity());
-            return inventoryRepository.save(existing);
+    /**
+     * Same rules as {@link #create} for a whole batch of lines, in one transaction:
+     * one locking query for the warehouses, one IN query each for products and
+     * existing rows, capacity tracked in memory, then batched inserts/updates.
+     * Bad lines are reported and skipped; they don't fail the batch.
+     * Results are in input order with {@code line} = 1-based position in {@code lines}.
+     */
+    @RetryOnConflict
+    @Transactional
+    public List<BulkLineResult> createBatch(List<Inventory> lines) {
+        Set<Long> warehouseIds = new TreeSet<>();
+        Set<Long> productIds = new HashSet<>();
+        for (Inventory line : lines) {
+            if (line.getWarehouse() != null && line.getWarehouse().getId() != null) {
+                warehouseIds.add(line.getWarehouse().getId());
+            }
+            if (line.getProduct() != null && line.getProduct().getId() != null) {
+                productIds.add(line.getProduct().getId());
+            }
+        }
+
+        // 1. Lock + resolve everything the batch touches up front
+        Map<Long, Warehouse> warehouses = warehouseIds.isEmpty() ? Map.of()
+            : lockWarehouses(warehouseIds.toArray(Long[]::new)).stream()
+                .collect(Collectors.toMap(Warehouse::getId, Function.identity()));
+        Map<Long, Long> room = warehouseIds.isEmpty() ? new HashMap<>()
+            : warehouseRepository.findLoads(warehouses.keySet()).stream()
+                .collect(Collectors.toMap(WarehouseLoad::warehouseId, WarehouseLoad::remaining));
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<StockKey, Inventory> rows = loadRows(warehouses.keySet(), products.keySet());
+
+        // 2. Apply each line in memory, merging duplicates like create() does
+        List<BulkLineResult> results = new ArrayList<>(lines.size());
+        Map<Long, Long> added = new HashMap<>();
+        int lineNumber = 0;
+        for (Inventory line : lines) {
+            lineNumber++;
+            Set<ConstraintViolation<Inventory>> violations = validator.validate(line);
+            if (!violations.isEmpty()) {
+                results.add(BulkLineResult.failed(lineNumber, violations.iterator().next().getMessage()));
+                continue;
+            }
+            Warehouse warehouse = warehouses.get(line.getWarehouse().getId());
+            if (warehouse == null) {
+                results.add(BulkLineResult.failed(lineNumber, "Warehouse not found"));
+                continue;
+            }
+            Product product = products.get(line.getProduct().getId());
+            if (product == null) {
+                results.add(BulkLineResult.failed(lineNumber, "Product not found"));
+                continue;
+            }
+            int quantity = line.getQuantity();
+            if (room.get(warehouse.getId()) < quantity) {
+                metrics.capacityRejected("bulk_create");
+                results.add(BulkLineResult.failed(lineNumber, "Warehouse capacity exceeded!"));
+                continue;
+            }
+            room.merge(warehouse.getId(), (long) -quantity, Long::sum);
+            added.merge(warehouse.getId(), (long) quantity, Long::sum);
+
+            StockKey key = new StockKey(warehouse.getId(), product.getId());
+            Inventory row = rows.get(key);
+            boolean inserted = row == null;
+            metrics.created(inserted);
+            if (row != null) {
+                row.setQuantity(row.getQuantity() + quantity);
+            } else {
+                row = new Inventory(warehouse, product, quantity, line.getStorageLocation());
+                // persist now so the sequence assigns the id; the INSERT itself is batched at flush
+                entityManager.persist(row);
+                rows.put(key, row);
+            }
+            publish(inserted ? InventoryChangeType.CREATED : InventoryChangeType.UPDATED, MovementReason.RECEIVE,
+                row.getId(), warehouse.getId(), product.getId(), row.getQuantity(), quantity);
+            results.add(BulkLineResult.ok(lineNumber, row.getId()));
+        }
+
+        // 3. One counter update per warehouse; the lock guarantees the room we computed is still there
+        added.forEach((warehouseId, quantity) -> {
+            if (warehouseRepository.tryAddLoad(warehouseId, quantity) == 0) {
+                throw new IllegalStateException("Capacity changed under lock for warehouse " + warehouseId);
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Runs many transfers in one transaction. Warehouses, loads, products and every
+     * affected inventory row are loaded up front in a few set-based queries; the
+     * changes go out at flush as batched updates/inserts plus one counter update per
+     * warehouse. See {@link TransferMode} for how failures are handled.
+     * Successful lines carry the destination row's id (null if the batch emptied it again).
+     */
+    @RetryOnConflict
+    @Transactional
+    public BulkResult transferBatch(List<TransferLine> transfers, TransferMode mode) {
+        Set<Long> warehouseIds = new TreeSet<>();
+        Set<Long> productIds = new HashSet<>();
+        for (TransferLine t : transfers) {
+            if (t.sourceWarehouseId() != null) {
+                warehouseIds.add(t.sourceWarehouseId());
+            }
+            if (t.destWarehouseId() != null) {
+                warehouseIds.add(t.destWarehouseId());
+            }
+            if (t.productId() != null) {
+                productIds.add(t.productId());
+            }
+        }
+
+        // 1. Lock + load everything up front
+        Map<Long, Warehouse> warehouses = warehouseIds.isEmpty() ? Map.of()
+            : lockWarehouses(warehouseIds.toArray(Long[]::new)).stream()
+                .collect(Collectors.toMap(Warehouse::getId, Function.identity()));
+        Map<Long, Long> room = warehouseIds.isEmpty() ? new HashMap<>()
+            : warehouseRepository.findLoads(warehouses.keySet()).stream()
+                .collect(Collectors.toMap(WarehouseLoad::warehouseId, WarehouseLoad::remaining));
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<StockKey, Inventory> rows = loadRows(warehouses.keySet(), products.keySet());
+        Map<StockKey, Integer> stock = new HashMap<>();
+        rows.forEach((key, row) -> stock.put(key, row.getQuantity()));
+        Map<Long, Long> netLoad = new HashMap<>();
+
+        // 2. Validate against the running state
+        String[] errors = new String[transfers.size()];
+        for (int n = 0; n < transfers.size(); n++) {
+            errors[n] = checkTransfer(transfers.get(n), warehouses, products, shardRouter);
+        }
+
+        if (mode == TransferMode.BEST_EFFORT) {
+            for (int n = 0; n < transfers.size(); n++) {
+                if (errors[n] != null) {
+                    continue;
+                }
+                TransferLine t = transfers.get(n);
+                int available = stock.getOrDefault(new StockKey(t.sourceWarehouseId(), t.productId()), 0);
+                if (available < t.amount()) {
+                    metrics.insufficientStock("batch_transfer");
+                    errors[n] = "Insufficient stock in source warehouse. Available: " + available;
+                } else if (room.get(t.destWarehouseId()) < t.amount()) {
+                    metrics.capacityRejected("batch_transfer");
+                    errors[n] = "Transfer failed: Destination warehouse capacity exceeded!";
+                } else {
+                    applyTransfer(t, stock, room, netLoad);
+                }
+            }
         } else {
-            return inventoryRepository.save(inventory);
+            String batchError = firstError(errors);
+            if (batchError == null) {
+                transfers.forEach(t -> applyTransfer(t, stock, room, netLoad));
+                batchError = checkNetStock(stock);
+                if (batchError != null) {
+                    metrics.insufficientStock("batch_transfer");
+                } else {
+                    batchError = checkNetCapacity(room, netLoad);
+                    if (batchError != null) {
+                        metrics.capacityRejected("batch_transfer");
+                    }
+                }
+            }
+            if (batchError != null) {
+                for (int n = 0; n < errors.length; n++) {
+                    if (errors[n] == null) {
+                        errors[n] = "Batch rejected: " + batchError;
+                    }
+                }
+                return BulkResult.of(toResults(transfers, errors, rows));
+            }
+        }
+
+        // 3. Write the final quantities: dirty rows update, new rows insert, emptied rows go away
+        stock.forEach((key, quantity) -> {
+            Inventory row = rows.get(key);
+            int previous = row != null ? row.getQuantity() : 0;
+            if (row == null && quantity > 0) {
+                row = new Inventory(warehouses.get(key.warehouseId()), products.get(key.productId()), quantity, "Transferred");
+                entityManager.persist(row);
+                rows.put(key, row);
+            } else if (row != null && quantity == 0) {
+                inventoryRepository.delete(row);
+                rows.remove(key);
+            } else if (row != null) {
+                row.setQuantity(quantity);
+            }
+            if (row != null && quantity != previous) {
+                publish(InventoryChangeType.TRANSFERRED, quantity < previous ? MovementReason.TRANSFER_OUT : MovementReason.TRANSFER_IN,
+                    row.getId(), key.warehouseId(), key.productId(), quantity, quantity - previous);
+            }
+        });
+        netLoad.forEach((warehouseId, delta) -> {
+            if (delta > 0 && warehouseRepository.tryAddLoad(warehouseId, delta) == 0) {
+                throw new IllegalStateException("Capacity changed under lock for warehouse " + warehouseId);
+            }
+            if (delta < 0) {
+                warehouseRepository.releaseLoad(warehouseId, -delta);
+            }
+        });
+        return BulkResult.of(toResults(transfers, errors, rows));
+    }
+
+    // The same rules for a single transfer, a saga and a batch line: no missing ids,
+    // no zero or negative amounts, no moves onto the same warehouse
+    private static String checkTransferRequest(Long sourceWarehouseId, Long destWarehouseId, Long productId, int amount) {
+        if (sourceWarehouseId == null || destWarehouseId == null || productId == null) {
+            return "Source warehouse, destination warehouse and product are required.";
+        }
+        if (amount <= 0) {
+            return "Transfer amount must be positive.";
+        }
+        if (sourceWarehouseId.equals(destWarehouseId)) {
+            return "Source and destination warehouses cannot be the same.";
+        }
+        return null;
+    }
+
+    private static String checkTransfer(TransferLine t, Map<Long, Warehouse> warehouses, Map<Long, Product> products,
+                                        ShardRouter shardRouter) {
+        String invalid = checkTransferRequest(t.sourceWarehouseId(), t.destWarehouseId(), t.productId(), t.amount());
+        if (invalid != null) {
+            return invalid;
+        }
+        if (!shardRouter.sameShard(t.sourceWarehouseId(), t.destWarehouseId())) {
+            return CROSS_SHARD;
+        }
+        if (!warehouses.containsKey(t.sourceWarehouseId())) {
+            return "Source warehouse not found.";
+        }
+        if (!warehouses.containsKey(t.destWarehouseId())) {
+            return "Destination warehouse not found.";
+        }
+        if (!products.containsKey(t.productId())) {
+            return "Product not found.";
+        }
+        return null;
+    }
+
+    private static void applyTransfer(TransferLine t, Map<StockKey, Integer> stock, Map<Long, Long> room, Map<Long, Long> netLoad) {
+        stock.merge(new StockKey(t.sourceWarehouseId(), t.productId()), -t.amount(), Integer::sum);
+        stock.merge(new StockKey(t.destWarehouseId(), t.productId()), t.amount(), Integer::sum);
+        room.merge(t.sourceWarehouseId(), (long) t.amount(), Long::sum);
+        room.merge(t.destWarehouseId(), (long) -t.amount(), Long::sum);
+        netLoad.merge(t.sourceWarehouseId(), (long) -t.amount(), Long::sum);
+        netLoad.merge(t.destWarehouseId(), (long) t.amount(), Long::sum);
+    }
+
+    // Only the end state has to be valid; the order of moves inside the batch doesn't matter
+    private static String checkNetStock(Map<StockKey, Integer> stock) {
+        for (Map.Entry<StockKey, Integer> entry : stock.entrySet()) {
+            if (entry.getValue() < 0) {
+                StockKey key = entry.getKey();
+                return "Insufficient stock of product " + key.productId() + " in warehouse " + key.warehouseId() + ".";
+            }
+        }
+        return null;
+    }
+
+    private static String checkNetCapacity(Map<Long, Long> room, Map<Long, Long> netLoad) {
+        for (Map.Entry<Long, Long> entry : netLoad.entrySet()) {
+            if (entry.getValue() > 0 && room.get(entry.getKey()) < 0) {
+                return "Capacity exceeded for warehouse " + entry.getKey() + ".";
+            }
+        }
+        return null;
+    }
+
+    private static String firstError(String[] errors) {
+        for (int n = 0; n < errors.length; n++) {
+            if (errors[n] != null) {
+                return "line " + (n + 1) + " failed";
+            }
+        }
+        return null;
+    }
+
+    private static List<BulkLineResult> toResults(List<TransferLine> transfers, String[] errors, Map<StockKey, Inventory> rows) {
+        List<BulkLineResult> results = new ArrayList<>(transfers.size());
+        for (int n = 0; n < transfers.size(); n++) {
+            if (errors[n] != null) {
+                results.add(BulkLineResult.failed(n + 1, errors[n]));
+            } else {
+                TransferLine t = transfers.get(n);
+                Inventory dest = rows.get(new StockKey(t.destWarehouseId(), t.productId()));
+                results.add(BulkLineResult.ok(n + 1, dest != null ? dest.getId() : null));
+            }
+        }
+        return results;
+    }
+
+    // Existing rows for every (warehouse, product) pair a batch could touch
+    private Map<StockKey, Inventory> loadRows(Set<Long> warehouseIds, Set<Long> productIds) {
+        Map<StockKey, Inventory> rows = new HashMap<>();
+        if (!warehouseIds.isEmpty() && !productIds.isEmpty()) {
+            for (Inventory row : inventoryRepository.findAllForPairs(warehouseIds, productIds)) {
+                rows.put(new StockKey(row.getWarehouse().getId(), row.getProduct().getId()), row);
+            }
         }
+        return rows;
+    }
+
+    private record StockKey(Long warehouseId, Long productId) {
     }
 
     public Inventory getById(Long id) {
@@ -67,114 +470,444 @@ public class InventoryService {
             .orElseThrow(() -> new RuntimeException("Inventory record not found!"));
     }
 
+    @RetryOnConflict
+    @Transactional
     public Inventory update(Long id, Inventory updatedInventory) {
-        // 1. Find existing record
-        Inventory existing = inventoryRepository.findById(id)
+        // 1. Find which warehouse the record lives in right now
+        Long sourceWarehouseId = inventoryRepository.findWarehouseIdById(id)
             .orElseThrow(() -> new RuntimeException("Inventory record not found!"));
 
         // 2. Determine target values (handle partial updates)
-        Warehouse targetWarehouse = existing.getWarehouse();
+        Long targetWarehouseId = sourceWarehouseId;
         if (updatedInventory.getWarehouse() != null && updatedInventory.getWarehouse().getId() != null) {
-            targetWarehouse = warehouseRepository.findById(updatedInventory.getWarehouse().getId())
-                .orElseThrow(() -> new RuntimeException("Warehouse not found"));
+            targetWarehouseId = updatedInventory.getWarehouse().getId();
         }
-
-        int targetQuantity = existing.getQuantity();
-        if (updatedInventory.getQuantity() != null) {
-            targetQuantity = updatedInventory.getQuantity();
+        if (!shardRouter.sameShard(sourceWarehouseId, targetWarehouseId)) {
+            throw new RuntimeException(CROSS_SHARD);
         }
+        Integer requestedQuantity = updatedInventory.getQuantity();
+        Long requestedProductId = updatedInventory.getProduct() != null ? updatedInventory.getProduct().getId() : null;
+        String requestedLocation = updatedInventory.getStorageLocation();
+
+        // 3. Lock both warehouses, then load the row now that nobody else can change it
+        List<Warehouse> locked = lockWarehouses(sourceWarehouseId, targetWarehouseId);
+        Long lockedTargetId = targetWarehouseId;
+        Warehouse targetWarehouse = locked.stream()
+            .filter(w -> w.getId().equals(lockedTargetId))
+            .findFirst()
+            .orElseThrow(() -> new RuntimeException("Warehouse not found"));
+        Inventory existing = loadLocked(id, sourceWarehouseId);
 
-        // 3. Check Capacity
-        boolean warehouseChanged = !existing.getWarehouse().getId().equals(targetWarehouse.getId());
-        boolean quantityChanged = existing.getQuantity() != targetQuantity;
+        int previousQuantity = existing.getQuantity();
+        Long previousProductId = existing.getProduct().getId();
+        int targetQuantity = previousQuantity;
+        if (requestedQuantity != null) {
+            targetQuantity = requestedQuantity;
+        }
 
-        if (warehouseChanged || quantityChanged) {
-            Long currentLoad = inventoryRepository.getTotalQuantityInWarehouse(targetWarehouse.getId());
-            
-            // If same warehouse, subtract old quantity first. If moving, use full load.
-            long effectiveLoad = warehouseChanged ? currentLoad : (currentLoad - existing.getQuantity());
+        // 4. Check Capacity (moves the difference on the warehouse load counters)
+        boolean warehouseChanged = !sourceWarehouseId.equals(targetWarehouseId);
+        Long targetProductId = requestedProductId != null ? requestedProductId : previousProductId;
+        if ((warehouseChanged || !targetProductId.equals(previousProductId))
+                && inventoryRepository.findByWarehouseIdAndProductId(targetWarehouseId, targetProductId).isPresent()) {
+            // One row per (warehouse, product): moving onto another row's pair would need a merge the caller didn't ask for
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                "Warehouse " + targetWarehouseId + " already has a row for product " + targetProductId + ".");
+        }
 
-            if (effectiveLoad + targetQuantity > targetWarehouse.getMaxCapacity()) {
+        if (warehouseChanged) {
+            if (warehouseRepository.tryAddLoad(targetWarehouseId, targetQuantity) == 0) {
+                metrics.capacityRejected("update");
+                throw new RuntimeException("Update failed: Warehouse capacity exceeded!");
+            }
+            warehouseRepository.releaseLoad(sourceWarehouseId, existing.getQuantity());
+        } else {
+            int delta = targetQuantity - existing.getQuantity();
+            if (delta > 0 && warehouseRepository.tryAddLoad(sourceWarehouseId, delta) == 0) {
+                metrics.capacityRejected("update");
                 throw new RuntimeException("Update failed: Warehouse capacity exceeded!");
             }
+            if (delta < 0) {
+                warehouseRepository.releaseLoad(sourceWarehouseId, -delta);
+            }
         }
 
-        // 4. Apply Updates
+        // 5. Apply Updates
         existing.setWarehouse(targetWarehouse);
         existing.setQuantity(targetQuantity);
 
-        if (updatedInventory.getProduct() != null && updatedInventory.getProduct().getId() != null) {
-            Product product = productRepository.findById(updatedInventory.getProduct().getId())
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+        if (requestedProductId != null) {
+            Product product = productService.getById(requestedProductId);
             existing.setProduct(product);
         }
 
-        if (updatedInventory.getStorageLocation() != null) {
-                existing.setStorageLocation(updatedInventory.getStorageLocation());
+        if (requestedLocation != null) {
+                existing.setStorageLocation(requestedLocation);
         }
 
-        // 5. Save
-        return inventoryRepository.save(existing);
+        // 6. Save
+        Inventory saved = inventoryRepository.save(existing);
+        Long productId = saved.getProduct().getId();
+        if (warehouseChanged || !productId.equals(previousProductId)) {
+            // The stock leaves its old (warehouse, product) and arrives under the new one,
+            // so the ledger and the watchers of each see their own side of the move
+            MovementReason out = warehouseChanged ? MovementReason.TRANSFER_OUT : MovementReason.ADJUST;
+            MovementReason in = warehouseChanged ? MovementReason.TRANSFER_IN : MovementReason.ADJUST;
+            publish(InventoryChangeType.UPDATED, out, id, sourceWarehouseId, previousProductId, 0, -previousQuantity);
+            publish(InventoryChangeType.UPDATED, in, id, targetWarehouseId, productId, targetQuantity, targetQuantity);
+        } else {
+            publish(InventoryChangeType.UPDATED, MovementReason.ADJUST, id, sourceWarehouseId, productId, targetQuantity, targetQuantity - previousQuantity);
+        }
+        return saved;
     }
 
+    @RetryOnConflict
+    @Transactional
     public void delete(Long id) {
-        Inventory existing = inventoryRepository.findById(id)
+        Long warehouseId = inventoryRepository.findWarehouseIdById(id)
             .orElseThrow(() -> new RuntimeException("Inventory record not found!"));
 
+        lockWarehouses(warehouseId);
+        Inventory existing = loadLocked(id, warehouseId);
+
+        warehouseRepository.releaseLoad(warehouseId, existing.getQuantity());
         inventoryRepository.delete(existing);
+        publish(InventoryChangeType.DELETED, MovementReason.DELETE, id, warehouseId, existing.getProduct().getId(), 0, -existing.getQuantity());
     }
 
-   @Transactional
+    @RetryOnConflict
+    @Transactional
     public void transferInventory(Long sourceWarehouseId, Long destWarehouseId, Long productId, int amount) {
         
-        if (amount <= 0) {
-            throw new RuntimeException("Transfer amount must be positive.");
+        String invalid = checkTransferRequest(sourceWarehouseId, destWarehouseId, productId, amount);
+        if (invalid != null) {
+            throw new RuntimeException(invalid);
         }
-        if (sourceWarehouseId.equals(destWarehouseId)) {
-            throw new RuntimeException("Source and destination warehouses cannot be the same.");
+        if (!shardRouter.sameShard(sourceWarehouseId, destWarehouseId)) {
+            throw new RuntimeException(CROSS_SHARD);
         }
 
+        // 1. LOCK BOTH WAREHOUSES (ascending id, so A->B and B->A can't deadlock)
+        List<Warehouse> locked = lockWarehouses(sourceWarehouseId, destWarehouseId);
+
         // 2. RETRIEVE SOURCE INVENTORY
         Inventory sourceInventory = inventoryRepository.findByWarehouseIdAndProductId(sourceWarehouseId, productId)
                 .orElseThrow(() -> new RuntimeException("Product not found in source warehouse."));
 
         // 3. CHECK SOURCE AVAILABILITY
         if (sourceInventory.getQuantity() < amount) {
+            metrics.insufficientStock("transfer");
             throw new RuntimeException("Insufficient stock in source warehouse. Available: " 
                                        + sourceInventory.getQuantity());
         }
 
-        // 4. RETRIEVE DESTINATION WAREHOUSE (Needed for Capacity Check)
-        Warehouse destWarehouse = warehouseRepository.findById(destWarehouseId)
+        // 4. RETRIEVE DESTINATION WAREHOUSE (Needed for the new inventory row)
+        Warehouse destWarehouse = locked.stream()
+             .filter(w -> w.getId().equals(destWarehouseId))
+             .findFirst()
              .orElseThrow(() -> new RuntimeException("Destination warehouse not found."));
 
-        // 5. CHECK DESTINATION CAPACITY
-        // Calculate current load (handles nulls by returning 0)
-        Long currentDestLoad = inventoryRepository.getTotalQuantityInWarehouse(destWarehouseId);
-        
-        if (currentDestLoad + amount > destWarehouse.getMaxCapacity()) {
+        // 5. CHECK DESTINATION CAPACITY (and reserve it)
+        if (warehouseRepository.tryAddLoad(destWarehouseId, amount) == 0) {
+             metrics.capacityRejected("transfer");
              throw new RuntimeException("Transfer failed: Destination warehouse capacity exceeded!");
         }
+        warehouseRepository.releaseLoad(sourceWarehouseId, amount);
 
         // 6. PERFORM THE TRANSFER
         
-        // Deduct from Source
+        // Deduct from Source; an emptied row goes away (rows hold at least 1, like in transferBatch)
         sourceInventory.setQuantity(sourceInventory.getQuantity() - amount);
-        inventoryRepository.save(sourceInventory);
+        if (sourceInventory.getQuantity() == 0) {
+            inventoryRepository.delete(sourceInventory);
+        } else {
+            inventoryRepository.save(sourceInventory);
+        }
 
         // Add to Destination
         Optional<Inventory> destInventoryOpt = 
             inventoryRepository.findByWarehouseIdAndProductId(destWarehouseId, productId);
 
+        Inventory destInventory;
         if (destInventoryOpt.isPresent()) {
             // Update existing record
-            Inventory destInventory = destInventoryOpt.get();
+            destInventory = destInventoryOpt.get();
             destInventory.setQuantity(destInventory.getQuantity() + amount);
-            inventoryRepository.save(destInventory);
+            destInventory = inventoryRepository.save(destInventory);
         } else {
             // Create new record if it doesn't exist
             Inventory newInventory = new Inventory(destWarehouse, sourceInventory.getProduct(), amount, "Transferred");
-            inventoryRepository.save(newInventory);
+            destInventory = inventoryRepository.save(newInventory);
+        }
+
+        publish(InventoryChangeType.TRANSFERRED, MovementReason.TRANSFER_OUT, sourceInventory.getId(), sourceWarehouseId, productId, sourceInventory.getQuantity(), -amount);
+        publish(InventoryChangeType.TRANSFERRED, MovementReason.TRANSFER_IN, destInventory.getId(), destWarehouseId, productId, destInventory.getQuantity(), amount);
+    }
+
+    /**
+     * Applies the changes {@link InventoryWriteCoalescer} collected for one (warehouse,
+     * product) in arrival order, accepting or rejecting each one the way create() or
+     * update() would. The accepted ones become one row write and one load update. Each
+     * change still publishes its own event.
+     */
+    @RetryOnConflict
+    @Transactional
+    public List<CoalescedWrite> applyCoalesced(Long warehouseId, Long productId, List<QuantityChange> changes) {
+        Warehouse warehouse = lockWarehouses(warehouseId).stream().findFirst()
+            .orElseThrow(() -> new RuntimeException("Warehouse not found"));
+        Product product = productService.getById(productId);
+        long room = warehouseRepository.findLoads(List.of(warehouseId)).get(0).remaining();
+        Optional<Inventory> existing = inventoryRepository.findByWarehouseIdAndProductId(warehouseId, productId);
+        existing.ifPresent(entityManager::refresh);
+
+        Long inventoryId = existing.map(Inventory::getId).orElse(null);
+        String location = existing.map(Inventory::getStorageLocation).orElse(null);
+        int initial = existing.map(Inventory::getQuantity).orElse(0);
+        int quantity = initial;
+        // Quantity each accepted change left the row at, by position; null if not accepted
+        Integer[] after = new Integer[changes.size()];
+        List<CoalescedWrite> results = new ArrayList<>(changes.size());
+        for (int n = 0; n < changes.size(); n++) {
+            QuantityChange change = changes.get(n);
+            int delta = change.increment() ? change.quantity() : change.quantity() - quantity;
+            if (!change.increment() && (!change.inventoryId().equals(inventoryId)
+                    || (change.storageLocation() != null && !change.storageLocation().equals(location)))) {
+                results.add(CoalescedWrite.notApplied());
+                continue;
+            }
+            if (delta > room) {
+                metrics.capacityRejected(change.increment() ? "create" : "update");
+                results.add(CoalescedWrite.failed(change.increment()
+                    ? "Warehouse capacity exceeded!" : "Update failed: Warehouse capacity exceeded!"));
+                continue;
+            }
+            if (location == null) {
+                location = change.storageLocation();
+            }
+            room -= delta;
+            quantity += delta;
+            after[n] = quantity;
+            results.add(null);
+        }
+
+        int sum = quantity - initial;
+        boolean inserted = false;
+        if (sum > 0) {
+            InventoryUpsertRepository.UpsertedRow row = inventoryRepository.upsertQuantity(warehouseId, productId, sum, location);
+            inventoryId = row.inventoryId();
+            inserted = row.inserted();
+            if (warehouseRepository.tryAddLoad(warehouseId, sum) == 0) {
+                throw new IllegalStateException("Capacity changed under lock for warehouse " + warehouseId);
+            }
+        } else if (sum < 0) {
+            inventoryRepository.addQuantity(warehouseId, productId, sum);
+            warehouseRepository.releaseLoad(warehouseId, -sum);
+        }
+
+        int previous = initial;
+        for (int n = 0; n < changes.size(); n++) {
+            if (after[n] == null) {
+                continue;
+            }
+            QuantityChange change = changes.get(n);
+            if (change.increment()) {
+                metrics.created(inserted);
+            }
+            publish(inserted ? InventoryChangeType.CREATED : InventoryChangeType.UPDATED,
+                change.increment() ? MovementReason.RECEIVE : MovementReason.ADJUST,
+                inventoryId, warehouseId, productId, after[n], after[n] - previous);
+            inserted = false;
+            previous = after[n];
+            Inventory row = new Inventory(warehouse, product, after[n], location);
+            row.setId(inventoryId);
+            results.set(n, CoalescedWrite.ok(row));
+        }
+        return results;
+    }
+
+    /**
+     * Write-behind for {@link InventoryEngine}: adds each delta to its row (creating the row
+     * if needed) and to the warehouse load counters, and publishes the changes like any
+     * other write. The engine has already checked capacity. Deltas that no longer apply
+     * (warehouse or product gone, or stock taken by a write the engine hadn't seen yet)
+     * are skipped and returned. At most one delta per (warehouse, product).
+     */
+    @Transactional
+    public List<StockDelta> applyBufferedDeltas(List<StockDelta> deltas) {
+        Set<Long> warehouseIds = new TreeSet<>();
+        Set<Long> productIds = new HashSet<>();
+        for (StockDelta d : deltas) {
+            warehouseIds.add(d.warehouseId());
+            productIds.add(d.productId());
+        }
+
+        Map<Long, Warehouse> warehouses = warehouseIds.isEmpty() ? Map.of()
+            : lockWarehouses(warehouseIds.toArray(Long[]::new)).stream()
+                .collect(Collectors.toMap(Warehouse::getId, Function.identity()));
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<StockKey, Inventory> rows = loadRows(warehouses.keySet(), products.keySet());
+
+        List<StockDelta> rejected = new ArrayList<>();
+        Map<Long, Long> netLoad = new HashMap<>();
+        for (StockDelta d : deltas) {
+            if (d.delta() == 0) {
+                continue;
+            }
+            Warehouse warehouse = warehouses.get(d.warehouseId());
+            Product product = products.get(d.productId());
+            StockKey key = new StockKey(d.warehouseId(), d.productId());
+            Inventory row = rows.get(key);
+            int quantity = (row != null ? row.getQuantity() : 0) + d.delta();
+            if (warehouse == null || product == null || quantity < 0) {
+                rejected.add(d);
+                continue;
+            }
+            InventoryChangeType type;
+            if (row == null) {
+                row = new Inventory(warehouse, product, quantity, "Scanned");
+                entityManager.persist(row);
+                rows.put(key, row);
+                type = InventoryChangeType.CREATED;
+            } else if (quantity == 0) {
+                // Emptied: rows hold at least 1, so it goes away like in transferBatch
+                inventoryRepository.delete(row);
+                rows.remove(key);
+                type = InventoryChangeType.DELETED;
+            } else {
+                row.setQuantity(quantity);
+                type = InventoryChangeType.UPDATED;
+            }
+            netLoad.merge(d.warehouseId(), (long) d.delta(), Long::sum);
+            publish(type, MovementReason.ADJUST, row.getId(), d.warehouseId(), d.productId(), quantity, d.delta());
+        }
+        netLoad.forEach((warehouseId, delta) -> {
+            if (delta > 0) {
+                warehouseRepository.addLoad(warehouseId, delta);
+            } else if (delta < 0) {
+                warehouseRepository.releaseLoad(warehouseId, -delta);
+            }
+        });
+        return rejected;
+    }
+
+    // Cross-shard transfers (see InventoryTransferService): each step is its own transaction
+    // and locks only the warehouse on its side.
+
+    // Step 1, on the source shard: take the stock out and record the saga
+    @RetryOnConflict
+    @Transactional
+    public TransferSaga startTransfer(Long sourceWarehouseId, Long destWarehouseId, Long productId, int amount) {
+        String invalid = checkTransferRequest(sourceWarehouseId, destWarehouseId, productId, amount);
+        if (invalid != null) {
+            throw new RuntimeException(invalid);
+        }
+
+        lockWarehouses(sourceWarehouseId);
+        Inventory source = inventoryRepository.findByWarehouseIdAndProductId(sourceWarehouseId, productId)
+            .orElseThrow(() -> new RuntimeException("Product not found in source warehouse."));
+        if (source.getQuantity() < amount) {
+            metrics.insufficientStock("transfer");
+            throw new RuntimeException("Insufficient stock in source warehouse. Available: " + source.getQuantity());
+        }
+
+        warehouseRepository.releaseLoad(sourceWarehouseId, amount);
+        source.setQuantity(source.getQuantity() - amount);
+        if (source.getQuantity() == 0) {
+            inventoryRepository.delete(source);
+        }
+        TransferSaga saga = transferSagaRepository.save(
+            new TransferSaga(sourceWarehouseId, destWarehouseId, productId, amount, Instant.now()));
+        publish(InventoryChangeType.TRANSFERRED, MovementReason.TRANSFER_OUT, source.getId(), sourceWarehouseId, productId,
+            source.getQuantity(), -amount);
+        return saga;
+    }
+
+    // Step 2, on the destination shard. A saga that is no longer DEBITED was already
+    // finished one way or the other, so running this again changes nothing.
+    @RetryOnConflict
+    @Transactional
+    public TransferSaga completeTransfer(Long sagaId) {
+        TransferSaga saga = transferSagaRepository.lockById(sagaId)
+            .orElseThrow(() -> new RuntimeException("Transfer not found"));
+        if (saga.getState() != TransferSagaState.DEBITED) {
+            return saga;
+        }
+        Long destWarehouseId = saga.getDestWarehouseId();
+        Warehouse destWarehouse = lockWarehouses(destWarehouseId).stream().findFirst()
+            .orElseThrow(() -> new RuntimeException("Destination warehouse not found."));
+        if (warehouseRepository.tryAddLoad(destWarehouseId, saga.getAmount()) == 0) {
+            metrics.capacityRejected("transfer");
+            throw new RuntimeException("Transfer failed: Destination warehouse capacity exceeded!");
+        }
+
+        Inventory dest = addStock(destWarehouse, saga.getProductId(), saga.getAmount(), "Transferred");
+        saga.complete(Instant.now());
+        publish(InventoryChangeType.TRANSFERRED, MovementReason.TRANSFER_IN, dest.getId(), destWarehouseId, saga.getProductId(),
+            dest.getQuantity(), saga.getAmount());
+        return saga;
+    }
+
+    // Compensation, on the source shard: the stock goes back where it came from. The space
+    // it left is not reserved in between, so this may take the source over capacity.
+    @RetryOnConflict
+    @Transactional
+    public TransferSaga cancelTransfer(Long sagaId, String reason) {
+        TransferSaga saga = transferSagaRepository.lockById(sagaId)
+            .orElseThrow(() -> new RuntimeException("Transfer not found"));
+        if (saga.getState() != TransferSagaState.DEBITED) {
+            return saga;
+        }
+        Long sourceWarehouseId = saga.getSourceWarehouseId();
+        Warehouse sourceWarehouse = lockWarehouses(sourceWarehouseId).stream().findFirst()
+            .orElseThrow(() -> new RuntimeException("Source warehouse not found."));
+        warehouseRepository.addLoad(sourceWarehouseId, saga.getAmount());
+
+        Inventory source = addStock(sourceWarehouse, saga.getProductId(), saga.getAmount(), "Returned");
+        saga.cancel(reason, Instant.now());
+        publish(InventoryChangeType.TRANSFERRED, MovementReason.TRANSFER_CANCELLED, source.getId(), sourceWarehouseId,
+            saga.getProductId(), source.getQuantity(), saga.getAmount());
+        return saga;
+    }
+
+    // Adds to the (warehouse, product) row, creating it if the warehouse has none.
+    // Caller holds the warehouse lock.
+    private Inventory addStock(Warehouse warehouse, Long productId, int amount, String storageLocation) {
+        Optional<Inventory> existing = inventoryRepository.findByWarehouseIdAndProductId(warehouse.getId(), productId);
+        if (existing.isPresent()) {
+            Inventory row = existing.get();
+            row.setQuantity(row.getQuantity() + amount);
+            return row;
+        }
+        return inventoryRepository.save(new Inventory(warehouse, productService.getById(productId), amount, storageLocation));
+    }
+
+    // Delivered to InventoryEventStream only once the surrounding transaction commits
+    private void publish(InventoryChangeType type, MovementReason reason, Long inventoryId, Long warehouseId, Long productId,
+                         int quantity, int delta) {
+        events.publishEvent(new InventoryChange(type, reason, inventoryId, warehouseId, productId, quantity, delta));
+    }
+
+    // Row-locks the given warehouses in ascending id order. All writers go through
+    // here first, so lock acquisition order is the same everywhere.
+    // Anything locked here is about to have its currentLoad changed, so its cache
+    // entry is dropped when the transaction commits.
+    private List<Warehouse> lockWarehouses(Long... warehouseIds) {
+        Set<Long> ordered = new TreeSet<>(List.of(warehouseIds));
+        warehouseService.evictAfterCommit(ordered);
+        return warehouseRepository.lockAllInIdOrder(ordered);
+    }
+
+    // Loads the row after its warehouse is locked. refresh() makes sure we see the
+    // committed state even if the entity was already in the persistence context. If
+    // the row moved warehouses before we got the lock, the retry starts over.
+    private Inventory loadLocked(Long id, Long lockedWarehouseId) {
+        Inventory inventory = inventoryRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Inventory record not found!"));
+        entityManager.refresh(inventory);
+        if (!inventory.getWarehouse().getId().equals(lockedWarehouseId)) {
+            throw new OptimisticLockingFailureException("Inventory record " + id + " moved to another warehouse");
         }
+        return inventory;
     }
-}
\ No newline at end of file
+}
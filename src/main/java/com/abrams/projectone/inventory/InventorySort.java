@@ -0,0 +1,24 @@
+package com.abrams.projectone.inventory;
+
+/**
+ * Orderings for filtered inventory lists, each backed by an index and a keyset cursor.
+ * Quantity orders break ties by id in the same direction, which is exactly
+ * ix_inventory_quantity_id read forwards or backwards.
+ */
+public enum InventorySort {
+    ID,
+    QUANTITY_ASC,
+    QUANTITY_DESC;
+
+    // ?sort=id (default), quantity, -quantity
+    public static InventorySort parse(String sort) {
+        if (sort == null || sort.isBlank() || sort.equals("id")) {
+            return ID;
+        }
+        return switch (sort) {
+            case "quantity" -> QUANTITY_ASC;
+            case "-quantity" -> QUANTITY_DESC;
+            default -> throw new RuntimeException("Unknown sort: " + sort + ". Use id, quantity or -quantity.");
+        };
+    }
+}
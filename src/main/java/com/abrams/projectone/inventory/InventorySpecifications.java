@@ -0,0 +1,64 @@
+package com.abrams.projectone.inventory;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import jakarta.persistence.criteria.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link InventoryFilter} as Criteria predicates. Product and warehouse are reached
+ * through paths (implicit joins), so the projection in InventoryQueryRepositoryImpl
+ * shares the same join instead of adding a second one; id filters compare the foreign
+ * key column and need no join at all.
+ */
+final class InventorySpecifications {
+
+    private InventorySpecifications() {}
+
+    static Specification<Inventory> matching(InventoryFilter filter) {
+        List<Specification<Inventory>> specs = new ArrayList<>();
+        if (filter.warehouseId() != null) {
+            specs.add((root, query, cb) -> cb.equal(root.get("warehouse").get("id"), filter.warehouseId()));
+        }
+        if (filter.productId() != null) {
+            specs.add((root, query, cb) -> cb.equal(root.get("product").get("id"), filter.productId()));
+        }
+        if (!InventoryFilter.isBlank(filter.sku())) {
+            specs.add((root, query, cb) -> cb.like(root.get("product").get("sku"), startsWith(filter.sku()), '\\'));
+        }
+        if (!InventoryFilter.isBlank(filter.location())) {
+            specs.add((root, query, cb) -> cb.like(root.get("storageLocation"), startsWith(filter.location()), '\\'));
+        }
+        if (filter.minQuantity() != null) {
+            specs.add((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("quantity"), filter.minQuantity()));
+        }
+        if (filter.maxQuantity() != null) {
+            specs.add((root, query, cb) -> cb.lessThanOrEqualTo(root.get("quantity"), filter.maxQuantity()));
+        }
+        if (filter.after() != null) {
+            specs.add(after(filter.order(), filter.after(), filter.afterQuantity()));
+        }
+        return Specification.allOf(specs);
+    }
+
+    // Rows strictly after the cursor in the given order
+    private static Specification<Inventory> after(InventorySort sort, Long afterId, Integer afterQuantity) {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("id");
+            Path<Integer> quantity = root.get("quantity");
+            return switch (sort) {
+                case ID -> cb.greaterThan(id, afterId);
+                case QUANTITY_ASC -> cb.or(cb.greaterThan(quantity, afterQuantity),
+                    cb.and(cb.equal(quantity, afterQuantity), cb.greaterThan(id, afterId)));
+                case QUANTITY_DESC -> cb.or(cb.lessThan(quantity, afterQuantity),
+                    cb.and(cb.equal(quantity, afterQuantity), cb.lessThan(id, afterId)));
+            };
+        };
+    }
+
+    private static String startsWith(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
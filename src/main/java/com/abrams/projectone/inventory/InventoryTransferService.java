@@ -0,0 +1,158 @@
+package com.abrams.projectone.inventory;
+
+import com.abrams.projectone.idempotency.IdempotencyService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Transfers between any two warehouses. Warehouses on the same shard (see {@link ShardRouter})
+ * use the single-transaction {@link InventoryService#transferInventory}. Across shards there is
+ * no transaction spanning both, so the transfer runs as a saga of local transactions:
+ * <ol>
+ * <li>debit the source and record the saga as DEBITED,</li>
+ * <li>credit the destination and mark the saga COMPLETED,</li>
+ * <li>or, if the credit fails (no room, warehouse gone), put the stock back at the source
+ * and mark the saga CANCELLED.</li>
+ * </ol>
+ * In between the stock is in neither warehouse. A saga left DEBITED by a crash is finished
+ * by {@link #recover()}. Counted in inventory.transfer.sagas{result=completed|cancelled}.
+ * <p>
+ * With an Idempotency-Key the key is recorded with the single transaction, or with the
+ * saga's debit. A retried cross-shard request then finishes that same saga (if recovery
+ * hasn't yet) and reports how it ended, rather than debiting again.
+ */
+@Service
+public class InventoryTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryTransferService.class);
+    private static final int RECOVERY_BATCH = 100;
+
+    private final InventoryService inventoryService;
+    private final ShardRouter shardRouter;
+    private final TransferSagaRepository transferSagaRepository;
+    private final IdempotencyService idempotencyService;
+    private final Duration recoverAfter;
+    private final MeterRegistry registry;
+
+    public InventoryTransferService(InventoryService inventoryService, ShardRouter shardRouter,
+                                    TransferSagaRepository transferSagaRepository, IdempotencyService idempotencyService,
+                                    @Value("${inventory.transfer.recover-after:PT1M}") Duration recoverAfter,
+                                    MeterRegistry registry) {
+        this.inventoryService = inventoryService;
+        this.shardRouter = shardRouter;
+        this.transferSagaRepository = transferSagaRepository;
+        this.idempotencyService = idempotencyService;
+        this.recoverAfter = recoverAfter;
+        this.registry = registry;
+    }
+
+    public void transfer(Long sourceWarehouseId, Long destWarehouseId, Long productId, int amount) {
+        if (shardRouter.sameShard(sourceWarehouseId, destWarehouseId)) {
+            inventoryService.transferInventory(sourceWarehouseId, destWarehouseId, productId, amount);
+            return;
+        }
+        // Nothing has changed if the debit fails, so its errors go straight back
+        TransferSaga saga = inventoryService.startTransfer(sourceWarehouseId, destWarehouseId, productId, amount);
+        finish(saga.getId(), true);
+    }
+
+    public void transfer(String idempotencyKey, Long sourceWarehouseId, Long destWarehouseId, Long productId, int amount) {
+        if (idempotencyKey == null) {
+            transfer(sourceWarehouseId, destWarehouseId, productId, amount);
+            return;
+        }
+        // The recorded response is the saga id, or null for a same-shard transfer
+        AtomicBoolean started = new AtomicBoolean();
+        Long sagaId = idempotencyService.execute(idempotencyKey, "POST /api/inventory/transfer",
+            Arrays.asList(sourceWarehouseId, destWarehouseId, productId, amount), Long.class, () -> {
+                if (shardRouter.sameShard(sourceWarehouseId, destWarehouseId)) {
+                    inventoryService.transferInventory(sourceWarehouseId, destWarehouseId, productId, amount);
+                    return null;
+                }
+                started.set(true);
+                return inventoryService.startTransfer(sourceWarehouseId, destWarehouseId, productId, amount).getId();
+            });
+        if (sagaId != null) {
+            finish(sagaId, started.get());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${inventory.transfer.recovery-interval:PT1M}",
+               fixedDelayString = "${inventory.transfer.recovery-interval:PT1M}")
+    public void recover() {
+        recover(Instant.now().minus(recoverAfter));
+    }
+
+    // Finishes sagas that have been DEBITED since before the cutoff: credit them if that
+    // works now, otherwise give the stock back. Returns how many were finished.
+    public int recover(Instant debitedBefore) {
+        List<Long> stuck = transferSagaRepository.findIdsInStateSince(TransferSagaState.DEBITED, debitedBefore, Limit.of(RECOVERY_BATCH));
+        int finished = 0;
+        for (Long sagaId : stuck) {
+            try {
+                if (inventoryService.completeTransfer(sagaId).getState() == TransferSagaState.COMPLETED) {
+                    finished(TransferSagaState.COMPLETED);
+                }
+                finished++;
+            } catch (RuntimeException e) {
+                if (cancel(sagaId, e)) {
+                    finished++;
+                }
+            }
+        }
+        if (!stuck.isEmpty()) {
+            log.info("Recovered {} of {} stuck transfers", finished, stuck.size());
+        }
+        return finished;
+    }
+
+    // Credits the destination, or gives the stock back if that fails. A saga already finished
+    // (by the first try of a retried request, or by recovery) just reports how it ended;
+    // only the run that started it counts it.
+    private void finish(Long sagaId, boolean count) {
+        TransferSaga saga;
+        try {
+            saga = inventoryService.completeTransfer(sagaId);
+        } catch (RuntimeException e) {
+            cancel(sagaId, e);
+            throw e;
+        }
+        if (saga.getState() == TransferSagaState.CANCELLED) {
+            throw new RuntimeException(saga.getFailureReason());
+        }
+        if (count) {
+            finished(TransferSagaState.COMPLETED);
+        }
+    }
+
+    // If this fails too the saga stays DEBITED and recovery tries again later
+    private boolean cancel(Long sagaId, RuntimeException cause) {
+        try {
+            if (inventoryService.cancelTransfer(sagaId, cause.getMessage()).getState() == TransferSagaState.CANCELLED) {
+                finished(TransferSagaState.CANCELLED);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Could not cancel transfer {} after: {}", sagaId, cause.getMessage(), e);
+            cause.addSuppressed(e);
+            return false;
+        }
+    }
+
+    private void finished(TransferSagaState state) {
+        registry.counter("inventory.transfer.sagas", "result", state.name().toLowerCase()).increment();
+    }
+}
@@ -0,0 +1,18 @@
+package com.abrams.projectone.inventory;
+
+/**
+ * Native insert-or-add for an inventory row, so {@link InventoryService#create}
+ * doesn't need a lookup before it writes.
+ */
+public interface InventoryUpsertRepository {
+
+    /**
+     * Inserts the row, or adds {@code quantity} to the existing row for the same
+     * (warehouse, product). The storage location only applies to new rows.
+     * {@code inserted} tells the two cases apart.
+     */
+    UpsertedRow upsertQuantity(Long warehouseId, Long productId, int quantity, String storageLocation);
+
+    record UpsertedRow(Long inventoryId, int quantity, String storageLocation, boolean inserted) {
+    }
+}
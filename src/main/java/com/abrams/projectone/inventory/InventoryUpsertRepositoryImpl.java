@@ -0,0 +1,113 @@
+package com.abrams.projectone.inventory;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.util.List;
+
+class InventoryUpsertRepositoryImpl implements InventoryUpsertRepository {
+
+    // Postgres: add to an existing row first, one round trip with RETURNING. Only when there
+    // is none does the upsert run, so nextval is drawn for inserts and not for every merge
+    // (an insert that loses a race to a concurrent one still burns a value, which is harmless).
+    private static final String POSTGRES_ADD = """
+            UPDATE inventory SET quantity = quantity + :quantity
+            WHERE warehouse_id = :warehouseId AND product_id = :productId
+            RETURNING inventory_id, quantity, storage_location""";
+
+    // The unique (warehouse_id, product_id) constraint decides between insert and update.
+    // xmax is only 0 on a freshly inserted row version, which tells insert from update.
+    private static final String POSTGRES_UPSERT = """
+            INSERT INTO inventory (inventory_id, warehouse_id, product_id, quantity, storage_location)
+            VALUES (nextval('inventory_seq'), :warehouseId, :productId, :quantity, :storageLocation)
+            ON CONFLICT (warehouse_id, product_id)
+            DO UPDATE SET quantity = inventory.quantity + EXCLUDED.quantity
+            RETURNING inventory_id, quantity, storage_location, (xmax = 0) AS inserted""";
+
+    // Other databases (the H2 test database has no ON CONFLICT ... DO UPDATE): add to an
+    // existing row first, and only MERGE when there was none
+    private static final String STANDARD_ADD = """
+            UPDATE inventory SET quantity = quantity + :quantity
+            WHERE warehouse_id = :warehouseId AND product_id = :productId""";
+
+    private static final String STANDARD_MERGE = """
+            MERGE INTO inventory i
+            USING (VALUES (CAST(:warehouseId AS BIGINT), CAST(:productId AS BIGINT), CAST(:quantity AS INTEGER),
+                           CAST(:storageLocation AS VARCHAR(255))))
+                AS s (warehouse_id, product_id, quantity, storage_location)
+            ON i.warehouse_id = s.warehouse_id AND i.product_id = s.product_id
+            WHEN MATCHED THEN UPDATE SET quantity = i.quantity + s.quantity
+            WHEN NOT MATCHED THEN INSERT (inventory_id, warehouse_id, product_id, quantity, storage_location)
+                VALUES (NEXT VALUE FOR inventory_seq, s.warehouse_id, s.product_id, s.quantity, s.storage_location)""";
+
+    private static final String SELECT_ROW = """
+            SELECT inventory_id, quantity, storage_location FROM inventory
+            WHERE warehouse_id = :warehouseId AND product_id = :productId""";
+
+    private final EntityManager entityManager;
+    private volatile Boolean postgres;
+
+    InventoryUpsertRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public UpsertedRow upsertQuantity(Long warehouseId, Long productId, int quantity, String storageLocation) {
+        if (isPostgres()) {
+            Query add = entityManager.createNativeQuery(POSTGRES_ADD);
+            bind(add, warehouseId, productId);
+            add.setParameter("quantity", quantity);
+            List<?> added = add.getResultList();
+            if (!added.isEmpty()) {
+                return toRow((Object[]) added.get(0), false);
+            }
+            Query upsert = entityManager.createNativeQuery(POSTGRES_UPSERT);
+            bind(upsert, warehouseId, productId);
+            upsert.setParameter("quantity", quantity);
+            upsert.setParameter("storageLocation", storageLocation);
+            Object[] row = (Object[]) upsert.getSingleResult();
+            return toRow(row, (Boolean) row[3]);
+        }
+
+        Query add = entityManager.createNativeQuery(STANDARD_ADD);
+        bind(add, warehouseId, productId);
+        add.setParameter("quantity", quantity);
+        boolean inserted = add.executeUpdate() == 0;
+        if (inserted) {
+            // Still a MERGE so a row that appeared since the UPDATE is added to, not duplicated
+            Query merge = entityManager.createNativeQuery(STANDARD_MERGE);
+            bind(merge, warehouseId, productId);
+            merge.setParameter("quantity", quantity);
+            merge.setParameter("storageLocation", storageLocation);
+            merge.executeUpdate();
+        }
+
+        Query select = entityManager.createNativeQuery(SELECT_ROW);
+        bind(select, warehouseId, productId);
+        return toRow((Object[]) select.getSingleResult(), inserted);
+    }
+
+    private static void bind(Query query, Long warehouseId, Long productId) {
+        query.setParameter("warehouseId", warehouseId);
+        query.setParameter("productId", productId);
+    }
+
+    private static UpsertedRow toRow(Object[] row, boolean inserted) {
+        return new UpsertedRow(((Number) row[0]).longValue(), ((Number) row[1]).intValue(), (String) row[2], inserted);
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            Dialect dialect = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+            postgres = dialect instanceof PostgreSQLDialect;
+        }
+        return postgres;
+    }
+}
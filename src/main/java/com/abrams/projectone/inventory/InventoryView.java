@@ -0,0 +1,15 @@
+package com.abrams.projectone.inventory;
+
+/**
+ * Flat read model of an inventory row. Built straight from a single joined query,
+ * so listing never materializes Warehouse/Product entities.
+ */
+public record InventoryView(
+        Long inventoryId,
+        Long warehouseId,
+        String warehouseName,
+        Long productId,
+        String sku,
+        Integer quantity,
+        String storageLocation) {
+}
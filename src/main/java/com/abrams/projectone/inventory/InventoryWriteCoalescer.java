@@ -0,0 +1,212 @@
+package com.abrams.projectone.inventory;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sits in front of {@link InventoryService#create} and quantity-only
+ * {@link InventoryService#update} calls. When many callers write the same (warehouse,
+ * product) at once they would otherwise queue on its warehouse lock one transaction at a
+ * time. Instead they queue here, and one of them applies everything queued so far in a
+ * single transaction ({@link InventoryService#applyCoalesced}): one row write, one load
+ * update, and still a separate accept/reject for each caller.
+ * <p>
+ * Batches form on their own under contention: whoever finds no batch running for its key
+ * runs the next one, so a lone caller pays nothing. inventory.coalesce.window makes each
+ * batch wait a little for more callers; inventory.coalesce.max-batch caps it. Callers
+ * already in a transaction go straight to InventoryService, since their write must
+ * commit or roll back with the rest of that transaction. Batch sizes are recorded in
+ * inventory.coalesce.batch.size.
+ */
+@Component
+public class InventoryWriteCoalescer {
+
+    private final InventoryService inventoryService;
+    private final InventoryRepository inventoryRepository;
+    private final Validator validator;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final DistributionSummary batchSize;
+
+    private final Map<Key, Lane> lanes = new ConcurrentHashMap<>();
+
+    public InventoryWriteCoalescer(InventoryService inventoryService, InventoryRepository inventoryRepository, Validator validator,
+                                   @Value("${inventory.coalesce.enabled:true}") boolean enabled,
+                                   @Value("${inventory.coalesce.window:PT0S}") Duration window,
+                                   @Value("${inventory.coalesce.max-batch:64}") int maxBatch,
+                                   MeterRegistry registry) {
+        this.inventoryService = inventoryService;
+        this.inventoryRepository = inventoryRepository;
+        this.validator = validator;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+        this.batchSize = DistributionSummary.builder("inventory.coalesce.batch.size")
+            .description("Writes applied per coalesced transaction")
+            .register(registry);
+    }
+
+    public Inventory create(Inventory inventory) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return inventoryService.create(inventory);
+        }
+        Set<ConstraintViolation<Inventory>> violations = validator.validate(inventory);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        Key key = new Key(inventory.getWarehouse().getId(), inventory.getProduct().getId());
+        CoalescedWrite result = submit(key, QuantityChange.add(inventory.getQuantity(), inventory.getStorageLocation()));
+        return result.applied() ? unwrap(result) : inventoryService.create(inventory);
+    }
+
+    public Inventory update(Long id, Inventory updatedInventory) {
+        if (!enabled || updatedInventory.getQuantity() == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return inventoryService.update(id, updatedInventory);
+        }
+        StockLevel current = inventoryRepository.findStockLevelById(id)
+            .orElseThrow(() -> new RuntimeException("Inventory record not found!"));
+        // PUT bodies repeat the warehouse and product; only a change to them needs the full update
+        boolean quantityOnly = (updatedInventory.getWarehouse() == null || current.warehouseId().equals(updatedInventory.getWarehouse().getId()))
+            && (updatedInventory.getProduct() == null || current.productId().equals(updatedInventory.getProduct().getId()));
+        if (!quantityOnly) {
+            return inventoryService.update(id, updatedInventory);
+        }
+        CoalescedWrite result = submit(new Key(current.warehouseId(), current.productId()),
+            QuantityChange.set(id, updatedInventory.getQuantity(), updatedInventory.getStorageLocation()));
+        // The row moved, went away or is getting a new location
+        return result.applied() ? unwrap(result) : inventoryService.update(id, updatedInventory);
+    }
+
+    private CoalescedWrite submit(Key key, QuantityChange change) {
+        Pending pending = new Pending(change);
+        while (true) {
+            Lane lane = lanes.computeIfAbsent(key, k -> new Lane());
+            boolean lead;
+            synchronized (lane) {
+                if (lane.retired) {
+                    continue;
+                }
+                lane.queue.add(pending);
+                lead = !lane.running;
+                lane.running = true;
+            }
+            if (lead) {
+                runBatch(key, lane);
+            }
+            break;
+        }
+        // Either answered by a batch, or handed the next batch to run
+        while (pending.promoted.join()) {
+            pending.resetPromotion();
+            runBatch(key, lanes.get(key));
+        }
+        try {
+            return pending.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    // Runs one batch, then hands the lane to the first caller still waiting, if any
+    private void runBatch(Key key, Lane lane) {
+        if (windowNanos > 0) {
+            LockSupport.parkNanos(windowNanos);
+        }
+        List<Pending> batch = new ArrayList<>();
+        synchronized (lane) {
+            while (!lane.queue.isEmpty() && batch.size() < maxBatch) {
+                batch.add(lane.queue.poll());
+            }
+        }
+        try {
+            List<CoalescedWrite> results = inventoryService.applyCoalesced(key.warehouseId(), key.productId(),
+                batch.stream().map(p -> p.change).toList());
+            batchSize.record(batch.size());
+            for (int n = 0; n < batch.size(); n++) {
+                batch.get(n).answer(results.get(n));
+            }
+        } catch (RuntimeException | Error e) {
+            batch.forEach(p -> p.fail(e));
+        } finally {
+            synchronized (lane) {
+                Pending next = lane.queue.peek();
+                if (next != null) {
+                    next.promote();
+                } else {
+                    lane.running = false;
+                    lane.retired = true;
+                    lanes.remove(key, lane);
+                }
+            }
+        }
+    }
+
+    private static Inventory unwrap(CoalescedWrite result) {
+        if (result.error() != null) {
+            throw new RuntimeException(result.error());
+        }
+        return result.inventory();
+    }
+
+    private record Key(Long warehouseId, Long productId) {
+    }
+
+    // Callers waiting on one key; guarded by its own monitor
+    private static class Lane {
+        final ArrayDeque<Pending> queue = new ArrayDeque<>();
+        boolean running;
+        boolean retired;
+    }
+
+    private static class Pending {
+        final QuantityChange change;
+        final CompletableFuture<CoalescedWrite> result = new CompletableFuture<>();
+        // Completes with true when this caller is to run the next batch, false once answered
+        volatile CompletableFuture<Boolean> promoted = new CompletableFuture<>();
+
+        Pending(QuantityChange change) {
+            this.change = change;
+        }
+
+        void answer(CoalescedWrite write) {
+            result.complete(write);
+            promoted.complete(false);
+        }
+
+        void fail(Throwable e) {
+            result.completeExceptionally(e);
+            promoted.complete(false);
+        }
+
+        void promote() {
+            promoted.complete(true);
+        }
+
+        void resetPromotion() {
+            promoted = new CompletableFuture<>();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.abrams.projectone.inventory;
+
+public enum MovementReason {
+    RECEIVE,
+    ADJUST,
+    TRANSFER_OUT,
+    TRANSFER_IN,
+    // A cross-shard transfer that could not be credited puts the stock back
+    TRANSFER_CANCELLED,
+    DELETE
+}
@@ -0,0 +1,18 @@
+package com.abrams.projectone.inventory;
+
+/**
+ * One caller's change in a batch collected by {@link InventoryWriteCoalescer}: either
+ * {@code quantity} more units received (a create() that merges), or the row
+ * {@code inventoryId} set to {@code quantity} (an update() that keeps the row where it is).
+ * A set only applies if {@code storageLocation} is null or the row's current one.
+ */
+public record QuantityChange(Long inventoryId, int quantity, boolean increment, String storageLocation) {
+
+    public static QuantityChange add(int quantity, String storageLocation) {
+        return new QuantityChange(null, quantity, true, storageLocation);
+    }
+
+    public static QuantityChange set(Long inventoryId, int quantity, String storageLocation) {
+        return new QuantityChange(inventoryId, quantity, false, storageLocation);
+    }
+}
@@ -0,0 +1,65 @@
+package com.abrams.projectone.inventory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Which shard owns a warehouse's stock. A warehouse's inventory rows and its load counter
+ * always live together, so single-warehouse writes never leave their shard; only moves
+ * between warehouses on different shards need {@link InventoryTransferService}.
+ * <p>
+ * Warehouses hash onto inventory.shards.count shards unless pinned in
+ * inventory.shards.assignments (e.g. {@code 12:3,40:0}), which is how a busy warehouse
+ * is moved to a node of its own. With one shard (the default) everything is local.
+ * <p>
+ * This is a placeholder for routing that doesn't exist yet: every shard is still the one
+ * configured datasource. Only the write rules follow the shard map, that is, which
+ * writes may run in one transaction and which need a saga. Splitting the data later then
+ * only needs per-shard datasources; callers don't change.
+ */
+@Component
+public class ShardRouter {
+
+    private final int shards;
+    private final Map<Long, Integer> assignments;
+
+    public ShardRouter(@Value("${inventory.shards.count:1}") int shards,
+                       @Value("${inventory.shards.assignments:}") String assignments) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("inventory.shards.count must be at least 1");
+        }
+        this.shards = shards;
+        this.assignments = parse(assignments, shards);
+    }
+
+    public int shardOf(Long warehouseId) {
+        Integer pinned = assignments.get(warehouseId);
+        return pinned != null ? pinned : Math.floorMod(Long.hashCode(warehouseId), shards);
+    }
+
+    public boolean sameShard(Long warehouseId, Long otherWarehouseId) {
+        return shards == 1 || shardOf(warehouseId) == shardOf(otherWarehouseId);
+    }
+
+    private static Map<Long, Integer> parse(String assignments, int shards) {
+        Map<Long, Integer> parsed = new HashMap<>();
+        if (assignments.isBlank()) {
+            return parsed;
+        }
+        for (String entry : assignments.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Shard assignment must be warehouseId:shard, got '" + entry + "'");
+            }
+            int shard = Integer.parseInt(parts[1].trim());
+            if (shard < 0 || shard >= shards) {
+                throw new IllegalArgumentException("Shard " + shard + " is outside 0.." + (shards - 1));
+            }
+            parsed.put(Long.valueOf(parts[0].trim()), shard);
+        }
+        return parsed;
+    }
+}
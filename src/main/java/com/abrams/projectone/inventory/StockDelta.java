@@ -0,0 +1,8 @@
+package com.abrams.projectone.inventory;
+
+/**
+ * A change of {@code delta} units to one product's stock in one warehouse: a line of
+ * POST /api/inventory/engine/adjustments, and what {@link InventoryEngine} writes behind.
+ */
+public record StockDelta(Long warehouseId, Long productId, int delta) {
+}
@@ -0,0 +1,5 @@
+package com.abrams.projectone.inventory;
+
+// One row's quantity, without the entity around it
+public record StockLevel(Long warehouseId, Long productId, int quantity) {
+}
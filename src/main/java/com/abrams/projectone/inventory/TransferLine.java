@@ -0,0 +1,7 @@
+package com.abrams.projectone.inventory;
+
+/**
+ * One move inside a batch transfer. Same fields as {@link InventoryController.TransferRequest}.
+ */
+public record TransferLine(Long sourceWarehouseId, Long destWarehouseId, Long productId, int amount) {
+}
@@ -0,0 +1,8 @@
+package com.abrams.projectone.inventory;
+
+public enum TransferMode {
+    // Any bad line, or a batch whose net effect breaks stock/capacity, applies nothing
+    ALL_OR_NOTHING,
+    // Lines are checked in order against what earlier accepted lines left behind; bad ones are skipped
+    BEST_EFFORT
+}
@@ -0,0 +1,105 @@
+package com.abrams.projectone.inventory;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A transfer between warehouses on different shards, one row per transfer. It is written
+ * by the debit step and moved on by exactly one of the credit or cancel steps; each step
+ * locks it first, so a step that runs twice finds the saga already past it.
+ */
+@Entity
+@Table(name = "transfer_sagas",
+    indexes = @Index(name = "ix_transfer_sagas_state_updated", columnList = "state, updated_at"))
+public class TransferSaga {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "saga_id")
+    private Long id;
+
+    @Column(name = "source_warehouse_id", nullable = false)
+    private Long sourceWarehouseId;
+
+    @Column(name = "dest_warehouse_id", nullable = false)
+    private Long destWarehouseId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TransferSagaState state;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    protected TransferSaga() {}
+
+    TransferSaga(Long sourceWarehouseId, Long destWarehouseId, Long productId, int amount, Instant now) {
+        this.sourceWarehouseId = sourceWarehouseId;
+        this.destWarehouseId = destWarehouseId;
+        this.productId = productId;
+        this.amount = amount;
+        this.state = TransferSagaState.DEBITED;
+        this.createdAt = now;
+        this.updatedAt = now;
+    }
+
+    void complete(Instant now) {
+        state = TransferSagaState.COMPLETED;
+        updatedAt = now;
+    }
+
+    void cancel(String reason, Instant now) {
+        state = TransferSagaState.CANCELLED;
+        failureReason = reason != null && reason.length() > 255 ? reason.substring(0, 255) : reason;
+        updatedAt = now;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getSourceWarehouseId() {
+        return sourceWarehouseId;
+    }
+
+    public Long getDestWarehouseId() {
+        return destWarehouseId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public TransferSagaState getState() {
+        return state;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
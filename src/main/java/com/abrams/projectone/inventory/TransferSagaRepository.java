@@ -0,0 +1,23 @@
+package com.abrams.projectone.inventory;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import jakarta.persistence.LockModeType;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface TransferSagaRepository extends JpaRepository<TransferSaga, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM TransferSaga s WHERE s.id = :id")
+    Optional<TransferSaga> lockById(Long id);
+
+    // Sagas a crashed or failed run left half done, oldest first
+    @Query("SELECT s.id FROM TransferSaga s WHERE s.state = :state AND s.updatedAt < :before ORDER BY s.updatedAt")
+    List<Long> findIdsInStateSince(TransferSagaState state, Instant before, Limit limit);
+}
@@ -0,0 +1,11 @@
+package com.abrams.projectone.inventory;
+
+/**
+ * DEBITED: the stock has left the source shard and is on its way. Every saga ends
+ * COMPLETED (credited at the destination) or CANCELLED (put back at the source).
+ */
+public enum TransferSagaState {
+    DEBITED,
+    COMPLETED,
+    CANCELLED
+}
@@ -0,0 +1,22 @@
+package com.abrams.projectone.ledger;
+
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/api/inventory")
+public class InventoryHistoryController {
+
+    private final InventoryHistoryService inventoryHistoryService;
+
+    public InventoryHistoryController(InventoryHistoryService inventoryHistoryService) {
+        this.inventoryHistoryService = inventoryHistoryService;
+    }
+
+    // ?warehouseId=1&timestamp=2026-01-31T23:59:59Z
+    @GetMapping("/as-of")
+    public StockAsOf asOf(@RequestParam Long warehouseId, @RequestParam Instant timestamp) {
+        return inventoryHistoryService.stockAsOf(warehouseId, timestamp);
+    }
+}
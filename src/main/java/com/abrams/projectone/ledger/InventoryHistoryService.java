@@ -0,0 +1,56 @@
+package com.abrams.projectone.ledger;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.abrams.projectone.common.DbBound;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+@Timed("ledger.service")
+@DbBound
+public class InventoryHistoryService {
+
+    private final InventorySnapshotRepository snapshotRepository;
+    private final InventoryMovementRepository movementRepository;
+
+    public InventoryHistoryService(InventorySnapshotRepository snapshotRepository, InventoryMovementRepository movementRepository) {
+        this.snapshotRepository = snapshotRepository;
+        this.movementRepository = movementRepository;
+    }
+
+    // Nearest snapshot at or before the timestamp, then only the movements after it:
+    // the work is bounded by the snapshot interval, not by how long the ledger is
+    @Transactional(readOnly = true)
+    public StockAsOf stockAsOf(Long warehouseId, Instant timestamp) {
+        if (timestamp.isAfter(Instant.now())) {
+            throw new RuntimeException("Timestamp cannot be in the future.");
+        }
+        InventorySnapshot snapshot = snapshotRepository
+            .findFirstByWarehouseIdAndTakenAtLessThanEqualOrderByTakenAtDesc(warehouseId, timestamp)
+            .orElse(null);
+
+        Map<Long, Long> stock = new TreeMap<>();
+        Instant after = Instant.EPOCH;
+        if (snapshot != null) {
+            after = snapshot.getTakenAt();
+            snapshotRepository.findLines(snapshot.getId()).forEach(line -> stock.put(line.productId(), line.quantity()));
+        }
+        int replayed = 0;
+        for (MovementTotal total : movementRepository.sumDeltasBetween(warehouseId, after, timestamp)) {
+            stock.merge(total.productId(), total.delta(), Long::sum);
+            replayed += (int) total.movements();
+        }
+
+        List<ProductStock> lines = stock.entrySet().stream()
+            .filter(e -> e.getValue() != 0)
+            .map(e -> new ProductStock(e.getKey(), e.getValue()))
+            .toList();
+        return new StockAsOf(warehouseId, timestamp, snapshot != null ? after : null, replayed, lines);
+    }
+}
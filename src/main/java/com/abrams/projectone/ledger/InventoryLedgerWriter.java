@@ -0,0 +1,38 @@
+package com.abrams.projectone.ledger;
+
+import com.abrams.projectone.inventory.InventoryChange;
+
+import jakarta.persistence.EntityManager;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Appends an {@link InventoryMovement} for every stock change, in the transaction that
+ * made it. The timestamp is taken just before commit, while the writer still holds its
+ * warehouse lock, so a snapshot (which takes the same lock) never sees a movement
+ * stamped before it commit after it.
+ */
+@Component
+public class InventoryLedgerWriter {
+
+    private final EntityManager entityManager;
+
+    public InventoryLedgerWriter(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void record(InventoryChange change) {
+        // Location-only edits don't move stock
+        if (change.delta() == 0) {
+            return;
+        }
+        entityManager.persist(new InventoryMovement(change.warehouseId(), change.productId(), change.inventoryId(),
+            change.delta(), change.reason(), Instant.now().truncatedTo(ChronoUnit.MICROS)));
+    }
+}
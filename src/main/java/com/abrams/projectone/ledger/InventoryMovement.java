@@ -0,0 +1,82 @@
+package com.abrams.projectone.ledger;
+
+import com.abrams.projectone.inventory.MovementReason;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * One signed change to one product's stock in one warehouse. Rows are only ever inserted.
+ */
+@Entity
+@Table(name = "inventory_movements",
+    indexes = @Index(name = "ix_inventory_movements_warehouse_time", columnList = "warehouse_id, occurred_at"))
+public class InventoryMovement {
+
+    // Pooled sequence so a transaction's movements go out as one batched insert
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_movement_seq")
+    @SequenceGenerator(name = "inventory_movement_seq", sequenceName = "inventory_movement_seq", allocationSize = 50)
+    @Column(name = "movement_id")
+    private Long id;
+
+    // Plain ids rather than associations: the ledger outlives warehouses, products and rows
+    @Column(name = "warehouse_id", nullable = false)
+    private Long warehouseId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "inventory_id", nullable = false)
+    private Long inventoryId;
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private MovementReason reason;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    protected InventoryMovement() {}
+
+    public InventoryMovement(Long warehouseId, Long productId, Long inventoryId, int delta, MovementReason reason, Instant occurredAt) {
+        this.warehouseId = warehouseId;
+        this.productId = productId;
+        this.inventoryId = inventoryId;
+        this.delta = delta;
+        this.reason = reason;
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getWarehouseId() {
+        return warehouseId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Long getInventoryId() {
+        return inventoryId;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public MovementReason getReason() {
+        return reason;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -0,0 +1,20 @@
+package com.abrams.projectone.ledger;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
+
+    // Net change per product in (after, until]; a range scan on (warehouse_id, occurred_at)
+    @Query("""
+            SELECT new com.abrams.projectone.ledger.MovementTotal(m.productId, SUM(m.delta), COUNT(m))
+            FROM InventoryMovement m
+            WHERE m.warehouseId = :warehouseId AND m.occurredAt > :after AND m.occurredAt <= :until
+            GROUP BY m.productId""")
+    List<MovementTotal> sumDeltasBetween(Long warehouseId, Instant after, Instant until);
+
+    boolean existsByWarehouseIdAndOccurredAtAfter(Long warehouseId, Instant after);
+}
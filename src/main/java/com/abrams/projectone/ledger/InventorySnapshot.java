@@ -0,0 +1,51 @@
+package com.abrams.projectone.ledger;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A warehouse's stock per product at {@code takenAt}. Lines are written and read in bulk
+ * by {@link InventorySnapshotRepository}; the collection is never loaded through here.
+ */
+@Entity
+@Table(name = "inventory_snapshots",
+    indexes = @Index(name = "ix_inventory_snapshots_warehouse_time", columnList = "warehouse_id, taken_at"))
+public class InventorySnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "snapshot_id")
+    private Long id;
+
+    @Column(name = "warehouse_id", nullable = false)
+    private Long warehouseId;
+
+    @Column(name = "taken_at", nullable = false)
+    private Instant takenAt;
+
+    @ElementCollection
+    @CollectionTable(name = "inventory_snapshot_lines", joinColumns = @JoinColumn(name = "snapshot_id"))
+    private List<SnapshotLine> lines = new ArrayList<>();
+
+    protected InventorySnapshot() {}
+
+    public InventorySnapshot(Long warehouseId, Instant takenAt) {
+        this.warehouseId = warehouseId;
+        this.takenAt = takenAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getWarehouseId() {
+        return warehouseId;
+    }
+
+    public Instant getTakenAt() {
+        return takenAt;
+    }
+}
@@ -0,0 +1,30 @@
+package com.abrams.projectone.ledger;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface InventorySnapshotRepository extends JpaRepository<InventorySnapshot, Long> {
+
+    Optional<InventorySnapshot> findFirstByWarehouseIdAndTakenAtLessThanEqualOrderByTakenAtDesc(Long warehouseId, Instant takenAt);
+
+    Optional<InventorySnapshot> findFirstByWarehouseIdOrderByTakenAtDesc(Long warehouseId);
+
+    @Query("""
+            SELECT new com.abrams.projectone.ledger.ProductStock(l.productId, l.quantity)
+            FROM InventorySnapshot s JOIN s.lines l
+            WHERE s.id = :snapshotId""")
+    List<ProductStock> findLines(Long snapshotId);
+
+    // Copies the warehouse's current rows in one statement; the caller holds the warehouse lock
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO inventory_snapshot_lines (snapshot_id, product_id, quantity)
+            SELECT :snapshotId, product_id, quantity FROM inventory
+            WHERE warehouse_id = :warehouseId AND quantity > 0""")
+    int copyCurrentStock(Long snapshotId, Long warehouseId);
+}
@@ -0,0 +1,75 @@
+package com.abrams.projectone.ledger;
+
+import com.abrams.projectone.warehouse.WarehouseRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Periodically snapshots each warehouse that has had movements since its last snapshot,
+ * which keeps as-of queries to at most one interval of ledger replay.
+ * <p>
+ * Each warehouse is snapshotted in its own short transaction that holds the warehouse
+ * lock, so the copy of its inventory rows is exactly the ledger up to {@code takenAt}:
+ * writers to that warehouse wait for the copy, everyone else carries on.
+ */
+@Component
+public class InventorySnapshotter {
+
+    private static final Logger log = LoggerFactory.getLogger(InventorySnapshotter.class);
+
+    private final WarehouseRepository warehouseRepository;
+    private final InventorySnapshotRepository snapshotRepository;
+    private final InventoryMovementRepository movementRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public InventorySnapshotter(WarehouseRepository warehouseRepository, InventorySnapshotRepository snapshotRepository,
+                                InventoryMovementRepository movementRepository, PlatformTransactionManager transactionManager) {
+        this.warehouseRepository = warehouseRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.movementRepository = movementRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @return number of warehouses snapshotted
+     */
+    @Scheduled(initialDelayString = "${inventory.snapshot.interval:PT1H}",
+               fixedDelayString = "${inventory.snapshot.interval:PT1H}")
+    public int snapshotAll() {
+        int taken = 0;
+        for (Long warehouseId : warehouseRepository.findAllIds()) {
+            Instant last = snapshotRepository.findFirstByWarehouseIdOrderByTakenAtDesc(warehouseId)
+                .map(InventorySnapshot::getTakenAt)
+                .orElse(Instant.EPOCH);
+            if (movementRepository.existsByWarehouseIdAndOccurredAtAfter(warehouseId, last)) {
+                snapshot(warehouseId);
+                taken++;
+            }
+        }
+        if (taken > 0) {
+            log.info("Took inventory snapshots of {} warehouses", taken);
+        }
+        return taken;
+    }
+
+    public void snapshot(Long warehouseId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<?> locked = warehouseRepository.lockAllInIdOrder(List.of(warehouseId));
+            if (locked.isEmpty()) {
+                return;
+            }
+            InventorySnapshot snapshot = snapshotRepository.save(
+                new InventorySnapshot(warehouseId, Instant.now().truncatedTo(ChronoUnit.MICROS)));
+            snapshotRepository.copyCurrentStock(snapshot.getId(), warehouseId);
+        });
+    }
+}
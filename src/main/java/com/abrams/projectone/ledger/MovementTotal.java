@@ -0,0 +1,4 @@
+package com.abrams.projectone.ledger;
+
+record MovementTotal(Long productId, long delta, long movements) {
+}
@@ -0,0 +1,4 @@
+package com.abrams.projectone.ledger;
+
+public record ProductStock(Long productId, long quantity) {
+}
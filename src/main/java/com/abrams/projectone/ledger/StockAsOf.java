@@ -0,0 +1,12 @@
+package com.abrams.projectone.ledger;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A warehouse's stock at {@code asOf}, rebuilt from the snapshot taken at
+ * {@code snapshotTakenAt} (null if there was none) plus the movements since.
+ */
+public record StockAsOf(Long warehouseId, Instant asOf, Instant snapshotTakenAt, int movementsReplayed,
+                        List<ProductStock> stock) {
+}
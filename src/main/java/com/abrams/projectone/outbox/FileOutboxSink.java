@@ -0,0 +1,54 @@
+package com.abrams.projectone.outbox;
+
+import com.abrams.projectone.common.NdjsonWriter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Appends each batch to an NDJSON file (outbox.file.path), one event per line, and
+ * only returns once the batch is on disk.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public FileOutboxSink(@Value("${outbox.file.path:outbox.ndjson}") Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void deliver(List<OutboxEvent> batch) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            NdjsonWriter<Line> writer = new NdjsonWriter<>(out, objectMapper);
+            for (OutboxEvent event : batch) {
+                writer.accept(new Line(event.getId(), event.getAggregateType(), event.getAggregateId(),
+                    event.getEventType(), event.getCreatedAt(), objectMapper.readTree(event.getPayload())));
+            }
+            out.flush();
+            channel.force(false);
+        }
+    }
+
+    record Line(Long id, String aggregateType, Long aggregateId, String type, Instant createdAt, JsonNode payload) {
+    }
+}
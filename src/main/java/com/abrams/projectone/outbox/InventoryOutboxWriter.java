@@ -0,0 +1,36 @@
+package com.abrams.projectone.outbox;
+
+import com.abrams.projectone.inventory.InventoryChange;
+
+import jakarta.persistence.EntityManager;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Records every InventoryChange in the outbox as part of the transaction that made it.
+ * Rows are persisted just before commit, so all of a transaction's events are flushed
+ * together as one batched insert and roll back with it.
+ */
+@Component
+public class InventoryOutboxWriter {
+
+    static final String AGGREGATE_TYPE = "inventory";
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public InventoryOutboxWriter(EntityManager entityManager, ObjectMapper objectMapper) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void record(InventoryChange change) {
+        entityManager.persist(new OutboxEvent(AGGREGATE_TYPE, change.inventoryId(), change.type().name(),
+            objectMapper.writeValueAsString(change)));
+    }
+}
@@ -0,0 +1,26 @@
+package com.abrams.projectone.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Default sink: logs each event. Stands in for the real downstream until one is wired up.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "log", matchIfMissing = true)
+public class LogOutboxSink implements OutboxSink {
+
+    private static final Logger log = LoggerFactory.getLogger(LogOutboxSink.class);
+
+    @Override
+    public void deliver(List<OutboxEvent> batch) {
+        for (OutboxEvent event : batch) {
+            log.info("outbox {} {} {}#{} {}", event.getId(), event.getEventType(),
+                event.getAggregateType(), event.getAggregateId(), event.getPayload());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.abrams.projectone.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox to the {@link OutboxSink} in id order, outbox.batch-size rows per
+ * transaction: lock the batch, deliver it, delete it, commit. Deleting in the same
+ * transaction is what records the batch as delivered, so nothing is lost or skipped
+ * even when rows commit out of id order; the highest delivered id is exported as
+ * outbox.delivered.offset.
+ * <p>
+ * A failed delivery rolls back, leaves the batch in place and pauses dispatching with
+ * exponential backoff (outbox.retry-initial doubling up to outbox.retry-max).
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxRepository outboxRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retryInitial;
+    private final Duration retryMax;
+    private final Counter delivered;
+    private final Counter failures;
+    private final AtomicLong offset = new AtomicLong();
+
+    private int consecutiveFailures;
+    private Instant pausedUntil = Instant.MIN;
+
+    public OutboxDispatcher(OutboxRepository outboxRepository, OutboxSink sink, PlatformTransactionManager transactionManager,
+                            @Value("${outbox.batch-size:500}") int batchSize,
+                            @Value("${outbox.retry-initial:PT1S}") Duration retryInitial,
+                            @Value("${outbox.retry-max:PT5M}") Duration retryMax,
+                            MeterRegistry registry) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.retryInitial = retryInitial;
+        this.retryMax = retryMax;
+        this.delivered = Counter.builder("outbox.delivered")
+            .description("Outbox events handed to the sink")
+            .register(registry);
+        this.failures = Counter.builder("outbox.delivery.failures")
+            .description("Outbox batches the sink rejected")
+            .register(registry);
+        Gauge.builder("outbox.delivered.offset", offset, AtomicLong::get)
+            .description("Highest outbox id delivered")
+            .register(registry);
+    }
+
+    /**
+     * Delivers batches until the outbox is empty or the sink fails.
+     *
+     * @return number of events delivered
+     */
+    @Scheduled(initialDelayString = "${outbox.dispatch-interval:PT1S}",
+               fixedDelayString = "${outbox.dispatch-interval:PT1S}")
+    public synchronized int dispatch() {
+        if (Instant.now().isBefore(pausedUntil)) {
+            return 0;
+        }
+        int total = 0;
+        int sent;
+        do {
+            try {
+                sent = transactionTemplate.execute(status -> deliverNextBatch());
+            } catch (RuntimeException e) {
+                backOff(e);
+                return total;
+            }
+            total += sent;
+        } while (sent == batchSize);
+        consecutiveFailures = 0;
+        return total;
+    }
+
+    private int deliverNextBatch() {
+        List<OutboxEvent> batch = outboxRepository.lockNextBatch(Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            sink.deliver(batch);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Outbox delivery failed", e);
+        }
+        List<Long> ids = batch.stream().map(OutboxEvent::getId).toList();
+        outboxRepository.deleteDelivered(ids);
+        delivered.increment(ids.size());
+        offset.accumulateAndGet(ids.get(ids.size() - 1), Math::max);
+        return ids.size();
+    }
+
+    private void backOff(RuntimeException e) {
+        failures.increment();
+        Duration delay = retryInitial.multipliedBy(1L << Math.min(consecutiveFailures, 20));
+        if (delay.compareTo(retryMax) > 0) {
+            delay = retryMax;
+        }
+        consecutiveFailures++;
+        pausedUntil = Instant.now().plus(delay);
+        log.warn("Outbox delivery failed ({} in a row), retrying in {}", consecutiveFailures, delay, e);
+    }
+}
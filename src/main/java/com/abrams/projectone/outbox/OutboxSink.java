@@ -0,0 +1,16 @@
+package com.abrams.projectone.outbox;
+
+import java.util.List;
+
+/**
+ * Where OutboxDispatcher delivers events. Delivery is at-least-once: a batch is only
+ * removed from the outbox after deliver() returns, so a crash in between sends it
+ * again. Receivers can dedupe on the outbox id.
+ */
+public interface OutboxSink {
+
+    /**
+     * Delivers the batch, oldest first, or throws so it is retried later.
+     */
+    void deliver(List<OutboxEvent> batch) throws Exception;
+}
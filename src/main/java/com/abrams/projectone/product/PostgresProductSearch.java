@@ -0,0 +1,83 @@
+package com.abrams.projectone.product;
+
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Product search on PostgreSQL, one indexed query per tier (see V7 search indexes):
+ * the prefix tiers range-scan C-collated expression indexes, the substring and
+ * similarity tiers use pg_trgm GIN indexes. Every query is LIMITed, so none of them
+ * has to visit all rows that match a broad term.
+ */
+@Component
+class PostgresProductSearch {
+
+    private static final String SKU_PREFIX = """
+            SELECT * FROM products
+            WHERE lower(sku) COLLATE "C" LIKE :pattern ESCAPE '\\'
+            ORDER BY lower(sku) COLLATE "C"
+            LIMIT :limit""";
+
+    private static final String NAME_PREFIX = """
+            SELECT * FROM products
+            WHERE lower(name) COLLATE "C" LIKE :pattern ESCAPE '\\'
+            ORDER BY lower(name) COLLATE "C"
+            LIMIT :limit""";
+
+    // No ORDER BY: that would sort every match. Closest (shortest) names are put first afterwards.
+    private static final String NAME_CONTAINS = """
+            SELECT * FROM products
+            WHERE lower(name) LIKE :pattern ESCAPE '\\'
+            LIMIT :limit""";
+
+    // % is pg_trgm's similarity operator (pg_trgm.similarity_threshold, 0.3 by default)
+    private static final String NAME_SIMILAR = """
+            SELECT * FROM products
+            WHERE lower(name) % :text
+            ORDER BY similarity(lower(name), :text) DESC
+            LIMIT :limit""";
+
+    private static final String DESCRIPTION_CONTAINS = """
+            SELECT * FROM products
+            WHERE lower(description) LIKE :pattern ESCAPE '\\'
+            LIMIT :limit""";
+
+    private final EntityManager entityManager;
+
+    PostgresProductSearch(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    List<Product> search(ProductQuery query) {
+        RankedMatches matches = new RankedMatches(query.limit());
+        matches.addAll(run(SKU_PREFIX, "pattern", query.prefixPattern(), query.limit()));
+        if (!matches.full()) {
+            matches.addAll(run(NAME_PREFIX, "pattern", query.prefixPattern(), query.limit()));
+        }
+        if (query.substringSearch()) {
+            if (!matches.full()) {
+                List<Product> contains = run(NAME_CONTAINS, "pattern", query.containsPattern(), query.limit());
+                matches.addAll(contains.stream().sorted(Comparator.comparingInt(p -> p.getName().length())).toList());
+            }
+            if (!matches.full()) {
+                matches.addAll(run(NAME_SIMILAR, "text", query.text(), query.limit()));
+            }
+            if (!matches.full()) {
+                matches.addAll(run(DESCRIPTION_CONTAINS, "pattern", query.containsPattern(), query.limit()));
+            }
+        }
+        return matches.toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Product> run(String sql, String parameter, String value, int limit) {
+        return entityManager.createNativeQuery(sql, Product.class)
+            .setParameter(parameter, value)
+            .setParameter("limit", limit)
+            .getResultList();
+    }
+}
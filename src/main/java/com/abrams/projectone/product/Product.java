@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 
 @Entity
-@Table(name="products")
+@Table(name="products", indexes = @Index(name = "ux_products_sku", columnList = "sku", unique = true))
 public class Product {
 
     @Id
@@ -1,6 +1,14 @@
 package com.abrams.projectone.product;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.abrams.projectone.common.NdjsonWriter;
+
+import tools.jackson.databind.ObjectMapper;
 
 import jakarta.validation.Valid;
 
@@ -11,14 +19,39 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ObjectMapper objectMapper;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ObjectMapper objectMapper) {
         this.productService = productService;
+        this.objectMapper = objectMapper;
     }
 
+    // Polled by the UI: answer If-None-Match from the table version without a query.
+    // The version is read before the rows, so a concurrent write can only make the ETag
+    // older than the body (next poll refetches), never newer.
     @GetMapping
-    public List<Product> getAll() {
-        return productService.getAll();
+    public ResponseEntity<List<Product>> getAll(@RequestParam(required = false) Long after,
+                                                @RequestParam(required = false) Integer limit,
+                                                WebRequest request) {
+        String etag = productService.listEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache())
+            .eTag(etag)
+            .body(productService.getAll(after, limit));
+    }
+
+    // Product pickers: ?q=<sku prefix or part of a name/description>&limit=
+    @GetMapping("/search")
+    public List<Product> search(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        return productService.search(q, limit);
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonWriter.MEDIA_TYPE)
+    public StreamingResponseBody stream() {
+        return out -> productService.streamAll(new NdjsonWriter<>(out, objectMapper));
     }
 
     @PostMapping
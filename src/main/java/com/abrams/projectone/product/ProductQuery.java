@@ -0,0 +1,41 @@
+package com.abrams.projectone.product;
+
+import java.util.Locale;
+
+/**
+ * A normalized product search: lower-cased, trimmed, plus the LIKE patterns for it.
+ * Queries shorter than {@link #MIN_SUBSTRING_LENGTH} only prefix-match; anything
+ * shorter has no trigram to look up and would match most of the catalog anyway.
+ */
+record ProductQuery(String text, int limit) {
+
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 100;
+    static final int MIN_SUBSTRING_LENGTH = 3;
+
+    static ProductQuery of(String q, Integer limit) {
+        if (q == null || q.isBlank()) {
+            throw new RuntimeException("Search query is required.");
+        }
+        if (limit != null && limit < 1) {
+            throw new RuntimeException("Limit must be at least 1.");
+        }
+        return new ProductQuery(q.trim().toLowerCase(Locale.ROOT), limit == null ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT));
+    }
+
+    boolean substringSearch() {
+        return text.length() >= MIN_SUBSTRING_LENGTH;
+    }
+
+    String prefixPattern() {
+        return escapeLike(text) + "%";
+    }
+
+    String containsPattern() {
+        return "%" + escapeLike(text) + "%";
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,300 @@
+package com.abrams.projectone.product;
+
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory product search for databases without pg_trgm (the embedded H2 used in
+ * development and tests). Same tiers and ranking as {@link PostgresProductSearch}:
+ * sorted maps answer SKU and name prefixes, trigram posting sets answer substrings
+ * and similarity (shared trigrams / all trigrams, cut off at 0.3 like pg_trgm).
+ * <p>
+ * Built at start-up and kept current by ProductService after each commit; writes that
+ * bypass the service are picked up by the periodic rebuild. Changes that commit while a
+ * rebuild reads the table are replayed onto the new index before it is swapped in, so the
+ * swap doesn't lose them. Inactive on PostgreSQL.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final double SIMILARITY_THRESHOLD = 0.3;
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final ProductRepository productRepository;
+    private final boolean active;
+    private volatile Index index = new Index();
+    // Guards the swap; non-null while a rebuild runs, holding the changes to replay onto it
+    private final Object changes = new Object();
+    private List<Consumer<Index>> pending;
+
+    public ProductSearchIndex(ProductRepository productRepository, EntityManagerFactory entityManagerFactory) {
+        this.productRepository = productRepository;
+        this.active = !(entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices()
+            .getDialect() instanceof PostgreSQLDialect);
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${product.search.rebuild-interval:PT10M}",
+               fixedDelayString = "${product.search.rebuild-interval:PT10M}")
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        if (!active) {
+            return;
+        }
+        // Recording starts before the read, so a change either is in the rows read or gets replayed
+        synchronized (changes) {
+            pending = new ArrayList<>();
+        }
+        Index rebuilt = new Index();
+        try (Stream<Product> rows = productRepository.streamAll()) {
+            rows.forEach(rebuilt::put);
+        } catch (RuntimeException e) {
+            synchronized (changes) {
+                pending = null;
+            }
+            throw e;
+        }
+        synchronized (changes) {
+            pending.forEach(change -> change.accept(rebuilt));
+            pending = null;
+            index = rebuilt;
+        }
+        log.debug("Product search index rebuilt with {} products", rebuilt.byId.size());
+    }
+
+    void putAfterCommit(Product product) {
+        if (active) {
+            Entry entry = Entry.of(product);
+            afterCommit(() -> apply(current -> current.put(entry)));
+        }
+    }
+
+    void removeAfterCommit(Long id) {
+        if (active) {
+            afterCommit(() -> apply(current -> current.remove(id)));
+        }
+    }
+
+    private void apply(Consumer<Index> change) {
+        synchronized (changes) {
+            change.accept(index);
+            if (pending != null) {
+                pending.add(change);
+            }
+        }
+    }
+
+    List<Product> search(ProductQuery query) {
+        Index current = index;
+        RankedMatches matches = new RankedMatches(query.limit());
+        matches.addAll(current.prefix(current.bySku, query));
+        if (!matches.full()) {
+            matches.addAll(current.prefix(current.byName, query));
+        }
+        if (query.substringSearch()) {
+            if (!matches.full()) {
+                matches.addAll(current.nameContains(query));
+            }
+            if (!matches.full()) {
+                matches.addAll(current.similarNames(query));
+            }
+            if (!matches.full()) {
+                matches.addAll(current.descriptionContains(query));
+            }
+        }
+        return matches.toList();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Set<String> trigrams(String text) {
+        if (text == null || text.length() < 3) {
+            return Set.of();
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(text.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private record Entry(Long id, String name, String sku, String description,
+                         String lowerName, String lowerSku, String lowerDescription, Set<String> nameGrams) {
+
+        static Entry of(Product product) {
+            String lowerName = product.getName().toLowerCase(Locale.ROOT);
+            String lowerDescription = product.getDescription() == null ? null : product.getDescription().toLowerCase(Locale.ROOT);
+            return new Entry(product.getId(), product.getName(), product.getSku(), product.getDescription(),
+                lowerName, product.getSku().toLowerCase(Locale.ROOT), lowerDescription, trigrams(lowerName));
+        }
+
+        // Sorted-map keys: the text, then the id so equal names don't collide
+        String nameKey() {
+            return lowerName + KEY_SEPARATOR + id;
+        }
+
+        String skuKey() {
+            return lowerSku + KEY_SEPARATOR + id;
+        }
+
+        // Callers get their own copy, never the indexed instance
+        Product toProduct() {
+            Product product = new Product(name, sku, description);
+            product.setId(id);
+            return product;
+        }
+    }
+
+    private static class Index {
+
+        final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+        final ConcurrentSkipListMap<String, Entry> bySku = new ConcurrentSkipListMap<>();
+        final ConcurrentSkipListMap<String, Entry> byName = new ConcurrentSkipListMap<>();
+        final Map<String, Set<Long>> nameGrams = new ConcurrentHashMap<>();
+        final Map<String, Set<Long>> descriptionGrams = new ConcurrentHashMap<>();
+
+        void put(Product product) {
+            put(Entry.of(product));
+        }
+
+        synchronized void put(Entry entry) {
+            remove(entry.id());
+            byId.put(entry.id(), entry);
+            bySku.put(entry.skuKey(), entry);
+            byName.put(entry.nameKey(), entry);
+            entry.nameGrams().forEach(gram -> nameGrams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(entry.id()));
+            trigrams(entry.lowerDescription())
+                .forEach(gram -> descriptionGrams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(entry.id()));
+        }
+
+        synchronized void remove(Long id) {
+            Entry entry = byId.remove(id);
+            if (entry == null) {
+                return;
+            }
+            bySku.remove(entry.skuKey());
+            byName.remove(entry.nameKey());
+            entry.nameGrams().forEach(gram -> unpost(nameGrams, gram, id));
+            trigrams(entry.lowerDescription()).forEach(gram -> unpost(descriptionGrams, gram, id));
+        }
+
+        private static void unpost(Map<String, Set<Long>> postings, String gram, Long id) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+            }
+        }
+
+        List<Product> prefix(ConcurrentSkipListMap<String, Entry> sorted, ProductQuery query) {
+            return sorted.subMap(query.text(), query.text() + Character.MAX_VALUE).values().stream()
+                .limit(query.limit())
+                .map(Entry::toProduct)
+                .toList();
+        }
+
+        List<Product> nameContains(ProductQuery query) {
+            return candidates(nameGrams, query.text()).stream()
+                .map(byId::get)
+                .filter(e -> e != null && e.lowerName().contains(query.text()))
+                .sorted(Comparator.comparingInt(e -> e.name().length()))
+                .limit(query.limit())
+                .map(Entry::toProduct)
+                .toList();
+        }
+
+        List<Product> descriptionContains(ProductQuery query) {
+            return candidates(descriptionGrams, query.text()).stream()
+                .map(byId::get)
+                .filter(e -> e != null && e.lowerDescription() != null && e.lowerDescription().contains(query.text()))
+                .limit(query.limit())
+                .map(Entry::toProduct)
+                .toList();
+        }
+
+        List<Product> similarNames(ProductQuery query) {
+            Set<String> queryGrams = trigrams(query.text());
+            Map<Long, Integer> shared = new HashMap<>();
+            for (String gram : queryGrams) {
+                nameGrams.getOrDefault(gram, Set.of()).forEach(id -> shared.merge(id, 1, Integer::sum));
+            }
+            record Scored(Entry entry, double similarity) {
+            }
+            List<Scored> scored = new ArrayList<>();
+            shared.forEach((id, count) -> {
+                Entry entry = byId.get(id);
+                if (entry != null) {
+                    double similarity = (double) count / (queryGrams.size() + entry.nameGrams().size() - count);
+                    if (similarity >= SIMILARITY_THRESHOLD) {
+                        scored.add(new Scored(entry, similarity));
+                    }
+                }
+            });
+            return scored.stream()
+                .sorted(Comparator.comparingDouble(Scored::similarity).reversed())
+                .limit(query.limit())
+                .map(s -> s.entry().toProduct())
+                .toList();
+        }
+
+        // Ids whose text has every trigram of the query, starting from the rarest one
+        private static Set<Long> candidates(Map<String, Set<Long>> postings, String text) {
+            List<Set<Long>> lists = new ArrayList<>();
+            for (String gram : trigrams(text)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids == null || ids.isEmpty()) {
+                    return Set.of();
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            Set<Long> result = new HashSet<>(lists.get(0));
+            for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+                result.retainAll(lists.get(i));
+            }
+            return result;
+        }
+    }
+}
@@ -1,30 +1,83 @@
 package com.abrams.projectone.product;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.abrams.projectone.common.EntityStreams;
+import com.abrams.projectone.common.Paging;
+import com.abrams.projectone.common.TableVersion;
+import com.abrams.projectone.config.CacheConfig;
+
+import jakarta.persistence.EntityManager;
+
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
 
 @Service
+@Timed("product.service")
 public class ProductService {
 
+    private static final String SKU_INDEX = "ux_products_sku";
+
     private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final ProductSearchIndex searchIndex;
+    private final PostgresProductSearch postgresSearch;
+    private final TableVersion version = new TableVersion("products");
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, EntityManager entityManager,
+                          ProductSearchIndex searchIndex, PostgresProductSearch postgresSearch) {
         this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.searchIndex = searchIndex;
+        this.postgresSearch = postgresSearch;
+    }
+
+    // Changes whenever a product is created, updated or deleted
+    public String listEtag() {
+        return version.etag();
     }
 
-    public List<Product> getAll() {
-        return productRepository.findAll();
+    // On the primary, not a replica: the ETag is only true of the primary's rows (see TableVersion)
+    @Transactional
+    public List<Product> getAll(Long after, Integer limit) {
+        return productRepository.findPageAfter(Paging.afterOrStart(after), Paging.limit(limit));
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Product> consumer) {
+        EntityStreams.forEachDetached(productRepository.streamAll(), entityManager, consumer);
+    }
+
+    // Ranked: SKU prefix, name prefix, name substring, similar name, description substring
+    @Transactional(readOnly = true)
+    public List<Product> search(String q, Integer limit) {
+        ProductQuery query = ProductQuery.of(q, limit);
+        return searchIndex.isActive() ? searchIndex.search(query) : postgresSearch.search(query);
     }
 
     public Product create(Product product) {
-        return productRepository.save(product);
+        Product saved = saveChecked(product);
+        version.changedAfterCommit();
+        searchIndex.putAfterCommit(saved);
+        return saved;
     }
 
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id")
     public Product getById(Long id) {
         return productRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Product not found!"));
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+    @Transactional
     public Product update(Long id, Product updatedProduct) {
         Product existing = productRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Product not found!"));
@@ -33,14 +86,33 @@ public class ProductService {
         existing.setSku(updatedProduct.getSku());
         existing.setDescription(updatedProduct.getDescription());
 
-        return productRepository.save(existing);
+        version.changedAfterCommit();
+        Product saved = saveChecked(existing);
+        searchIndex.putAfterCommit(saved);
+        return saved;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+    @Transactional
     public void delete(Long id) {
         Product existing = productRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Product not found!"));
 
         productRepository.delete(existing);
+        version.changedAfterCommit();
+        searchIndex.removeAfterCommit(id);
     }
 
+    // Flushed here so a duplicate SKU is a 409, not a 500 at commit
+    private Product saveChecked(Product product) {
+        try {
+            return productRepository.saveAndFlush(product);
+        } catch (DataIntegrityViolationException e) {
+            String detail = String.valueOf(e.getMostSpecificCause().getMessage());
+            if (detail.toLowerCase(Locale.ROOT).contains(SKU_INDEX)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "A product with SKU " + product.getSku() + " already exists.");
+            }
+            throw e;
+        }
+    }
 }
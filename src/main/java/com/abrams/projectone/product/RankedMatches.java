@@ -0,0 +1,40 @@
+package com.abrams.projectone.product;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects search hits tier by tier (SKU prefix, name prefix, name substring, similar
+ * name, description substring). Earlier tiers rank first, a product only counts once,
+ * and the search stops as soon as the limit is reached, so broad queries are answered
+ * from the cheap prefix tiers. Each tier fetches up to the full limit, which is always
+ * enough to fill what is left after duplicates.
+ */
+class RankedMatches {
+
+    private final int limit;
+    private final Map<Long, Product> matches = new LinkedHashMap<>();
+
+    RankedMatches(int limit) {
+        this.limit = limit;
+    }
+
+    boolean full() {
+        return matches.size() >= limit;
+    }
+
+    void addAll(List<Product> tier) {
+        for (Product product : tier) {
+            if (full()) {
+                return;
+            }
+            matches.putIfAbsent(product.getId(), product);
+        }
+    }
+
+    List<Product> toList() {
+        return new ArrayList<>(matches.values());
+    }
+}
@@ -1,5 +1,9 @@
 package com.abrams.projectone.warehouse;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import org.hibernate.annotations.ColumnDefault;
+
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -28,6 +32,14 @@ public class Warehouse {
     @Min(value = 1, message = "Max capacity must be at least 1")
     private Integer maxCapacity;
 
+    // Running SUM(inventory.quantity) for this warehouse. Only ever changed by the
+    // conditional UPDATEs in WarehouseRepository, never by entity flushes.
+    // Existing rows start at 0 when the column is added; WarehouseLoadReconciler fixes them on its first run.
+    @Column(name = "current_load", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long currentLoad = 0L;
+
     public Long getId() {
         return id;
     }
@@ -60,6 +72,10 @@ public class Warehouse {
         this.maxCapacity = maxCapacity;
     }
 
+    public Long getCurrentLoad() {
+        return currentLoad;
+    }
+
     
 
     public Warehouse() {}
@@ -1,6 +1,14 @@
 package com.abrams.projectone.warehouse;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.abrams.projectone.common.NdjsonWriter;
+
+import tools.jackson.databind.ObjectMapper;
 
 import jakarta.validation.Valid;
 
@@ -11,14 +19,33 @@ import java.util.List;
 public class WarehouseController {
 
     private final WarehouseService warehouseService;
+    private final ObjectMapper objectMapper;
 
-    public WarehouseController(WarehouseService warehouseService) {
+    public WarehouseController(WarehouseService warehouseService, ObjectMapper objectMapper) {
         this.warehouseService = warehouseService;
+        this.objectMapper = objectMapper;
     }
 
+    // Polled by the UI: answer If-None-Match from the table version without a query.
+    // The version is read before the rows, so a concurrent write can only make the ETag
+    // older than the body (next poll refetches), never newer.
     @GetMapping
-    public List<Warehouse> getAll() {
-        return warehouseService.getAll();
+    public ResponseEntity<List<Warehouse>> getAll(@RequestParam(required = false) Long after,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  WebRequest request) {
+        String etag = warehouseService.listEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache())
+            .eTag(etag)
+            .body(warehouseService.getAll(after, limit));
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonWriter.MEDIA_TYPE)
+    public StreamingResponseBody stream() {
+        return out -> warehouseService.streamAll(new NdjsonWriter<>(out, objectMapper));
     }
 
     @PostMapping
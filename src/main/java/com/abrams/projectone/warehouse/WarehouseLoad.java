@@ -0,0 +1,12 @@
+package com.abrams.projectone.warehouse;
+
+/**
+ * Capacity snapshot of a warehouse, read with a scalar query so it always
+ * reflects the database rather than whatever entity is already in the session.
+ */
+public record WarehouseLoad(Long warehouseId, long currentLoad, int maxCapacity) {
+
+    public long remaining() {
+        return maxCapacity - currentLoad;
+    }
+}
@@ -0,0 +1,60 @@
+package com.abrams.projectone.warehouse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Safety net for Warehouse.currentLoad. Writes keep the counter in step with the
+ * inventory table; this periodically finds any warehouse that drifted (manual SQL,
+ * old data) and recomputes it from the rows.
+ * <p>
+ * The first pass only finds candidates. Each one is then locked like any writer does,
+ * checked again, and recomputed in its own short transaction. Without the lock the SUM
+ * could miss a writer that changed the counter but hadn't committed its rows yet.
+ */
+@Component
+public class WarehouseLoadReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(WarehouseLoadReconciler.class);
+
+    private final WarehouseRepository warehouseRepository;
+    private final WarehouseService warehouseService;
+    private final TransactionTemplate transactionTemplate;
+
+    public WarehouseLoadReconciler(WarehouseRepository warehouseRepository, WarehouseService warehouseService,
+                                   PlatformTransactionManager transactionManager) {
+        this.warehouseRepository = warehouseRepository;
+        this.warehouseService = warehouseService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(initialDelayString = "${warehouse.load.reconcile-initial-delay:PT10S}",
+               fixedDelayString = "${warehouse.load.reconcile-delay:PT15M}")
+    public int reconcile() {
+        List<Long> repaired = warehouseRepository.findIdsWithLoadDrift().stream()
+            .filter(this::repair)
+            .toList();
+        if (!repaired.isEmpty()) {
+            log.warn("Repaired current_load drift on warehouses {}", repaired);
+        }
+        return repaired.size();
+    }
+
+    private boolean repair(Long warehouseId) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (warehouseRepository.lockAllInIdOrder(List.of(warehouseId)).isEmpty()
+                    || !warehouseRepository.hasLoadDrift(warehouseId)) {
+                return false;
+            }
+            warehouseRepository.recalculateLoad(warehouseId);
+            warehouseService.evictAfterCommit(List.of(warehouseId));
+            return true;
+        }));
+    }
+}
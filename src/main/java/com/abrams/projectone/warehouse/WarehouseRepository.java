@@ -1,7 +1,75 @@
 package com.abrams.projectone.warehouse;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface WarehouseRepository extends JpaRepository<Warehouse, Long> {
-    
+
+    @Query("SELECT w FROM Warehouse w WHERE w.id > :afterId ORDER BY w.id")
+    List<Warehouse> findPageAfter(Long afterId, Limit limit);
+
+    @Query("SELECT w.id FROM Warehouse w ORDER BY w.id")
+    List<Long> findAllIds();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT w FROM Warehouse w ORDER BY w.id")
+    Stream<Warehouse> streamAll();
+
+    // SELECT ... FOR UPDATE in id order, so writers that touch the same warehouses
+    // always queue for them in the same order and can't deadlock each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM Warehouse w WHERE w.id IN :warehouseIds ORDER BY w.id")
+    List<Warehouse> lockAllInIdOrder(Collection<Long> warehouseIds);
+
+    @Query("SELECT new com.abrams.projectone.warehouse.WarehouseLoad(w.id, w.currentLoad, w.maxCapacity) FROM Warehouse w WHERE w.id IN :warehouseIds")
+    List<WarehouseLoad> findLoads(Collection<Long> warehouseIds);
+
+    @Query("SELECT new com.abrams.projectone.warehouse.WarehouseLoad(w.id, w.currentLoad, w.maxCapacity) FROM Warehouse w")
+    List<WarehouseLoad> findAllLoads();
+
+    // Capacity check and reservation in one statement. Returns 0 if it would overflow.
+    @Modifying
+    @Query("UPDATE Warehouse w SET w.currentLoad = w.currentLoad + :amount WHERE w.id = :warehouseId AND w.currentLoad + :amount <= w.maxCapacity")
+    int tryAddLoad(Long warehouseId, long amount);
+
+    @Modifying
+    @Query("UPDATE Warehouse w SET w.currentLoad = w.currentLoad - :amount WHERE w.id = :warehouseId")
+    int releaseLoad(Long warehouseId, long amount);
+
+    // No capacity check: for stock that has to be taken back whatever the room (cancelled transfers)
+    @Modifying
+    @Query("UPDATE Warehouse w SET w.currentLoad = w.currentLoad + :amount WHERE w.id = :warehouseId")
+    int addLoad(Long warehouseId, long amount);
+
+    // Warehouses whose running counter no longer matches their inventory rows
+    @Query("""
+            SELECT w.id FROM Warehouse w
+            WHERE w.currentLoad <> (SELECT COALESCE(SUM(i.quantity), 0) FROM Inventory i WHERE i.warehouse.id = w.id)""")
+    List<Long> findIdsWithLoadDrift();
+
+    @Query("""
+            SELECT COUNT(w) > 0 FROM Warehouse w
+            WHERE w.id = :warehouseId
+              AND w.currentLoad <> (SELECT COALESCE(SUM(i.quantity), 0) FROM Inventory i WHERE i.warehouse.id = w.id)""")
+    boolean hasLoadDrift(Long warehouseId);
+
+    // Caller holds the warehouse lock, so no writer is between changing a row and the counter
+    @Modifying
+    @Query("""
+            UPDATE Warehouse w
+            SET w.currentLoad = (SELECT COALESCE(SUM(i.quantity), 0) FROM Inventory i WHERE i.warehouse.id = w.id)
+            WHERE w.id = :warehouseId""")
+    int recalculateLoad(Long warehouseId);
 }
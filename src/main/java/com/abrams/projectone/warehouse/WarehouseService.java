@@ -1,49 +1,118 @@
 package com.abrams.projectone.warehouse;
 
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.abrams.projectone.common.EntityStreams;
+import com.abrams.projectone.common.Paging;
+import com.abrams.projectone.common.TableVersion;
+import com.abrams.projectone.config.CacheConfig;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
+@Timed("warehouse.service")
 public class WarehouseService {
 
     private final WarehouseRepository warehouseRepository;
+    private final EntityManager entityManager;
+    private final CacheManager cacheManager;
+    private final TableVersion version = new TableVersion("warehouses");
 
-    public WarehouseService(WarehouseRepository warehouseRepository) {
+    public WarehouseService(WarehouseRepository warehouseRepository, EntityManager entityManager, CacheManager cacheManager) {
         this.warehouseRepository = warehouseRepository;
+        this.entityManager = entityManager;
+        this.cacheManager = cacheManager;
     }
 
-    public List<Warehouse> getAll() {
-        return warehouseRepository.findAll();
+    // Changes whenever a warehouse row changes, including currentLoad moving with inventory writes
+    public String listEtag() {
+        return version.etag();
+    }
+
+    // On the primary, not a replica: the ETag is only true of the primary's rows (see TableVersion)
+    @Transactional
+    public List<Warehouse> getAll(Long after, Integer limit) {
+        return warehouseRepository.findPageAfter(Paging.afterOrStart(after), Paging.limit(limit));
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Warehouse> consumer) {
+        EntityStreams.forEachDetached(warehouseRepository.streamAll(), entityManager, consumer);
     }
 
     public Warehouse create(Warehouse warehouse) {
-        return warehouseRepository.save(warehouse);
+        Warehouse saved = warehouseRepository.save(warehouse);
+        version.changedAfterCommit();
+        return saved;
     }
 
+    @Cacheable(cacheNames = CacheConfig.WAREHOUSES, key = "#id")
     public Warehouse getById(Long id) {
         return warehouseRepository.findById(id).orElseThrow(() ->
             new RuntimeException("Warehouse not found!")
         );
     }
 
-    
+    @CacheEvict(cacheNames = CacheConfig.WAREHOUSES, key = "#id")
+    @Transactional
     public Warehouse update(Long id, Warehouse updatedWarehouse) {
-        Warehouse existing = warehouseRepository.findById(id)
+        // Locked like an inventory write, so no write can raise the load between this check and the commit
+        Warehouse existing = warehouseRepository.lockAllInIdOrder(List.of(id)).stream().findFirst()
             .orElseThrow(() -> new RuntimeException("Warehouse not found!"));
 
+        if (updatedWarehouse.getMaxCapacity() < existing.getCurrentLoad()) {
+            throw new RuntimeException("Max capacity cannot be below current load of " + existing.getCurrentLoad());
+        }
+
         existing.setName(updatedWarehouse.getName());
         existing.setLocation(updatedWarehouse.getLocation());
         existing.setMaxCapacity(updatedWarehouse.getMaxCapacity());
 
+        version.changedAfterCommit();
         return warehouseRepository.save(existing);
     }
 
     // Delete a warehouse
+    @CacheEvict(cacheNames = CacheConfig.WAREHOUSES, key = "#id")
+    @Transactional
     public void delete(Long id) {
         Warehouse existing = warehouseRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Warehouse not found!"));
 
         warehouseRepository.delete(existing);
+        version.changedAfterCommit();
+    }
+
+    // Inventory writes move currentLoad. Drop the cached copies once the write
+    // commits so the next getById shows the new load, and move the list ETag on.
+    public void evictAfterCommit(Collection<Long> warehouseIds) {
+        version.changedAfterCommit();
+        Cache cache = cacheManager.getCache(CacheConfig.WAREHOUSES);
+        if (cache == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            warehouseIds.forEach(cache::evict);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                warehouseIds.forEach(cache::evict);
+            }
+        });
     }
 
-}
\ No newline at end of file
+}
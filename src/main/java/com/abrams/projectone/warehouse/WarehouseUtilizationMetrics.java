@@ -0,0 +1,38 @@
+package com.abrams.projectone.warehouse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * warehouse.utilization{warehouse=id} = current_load / max_capacity.
+ * Refreshed on a timer from one scalar query over the counters, so scrapes never touch
+ * the database; warehouses that were deleted drop out on the next refresh.
+ */
+@Component
+public class WarehouseUtilizationMetrics {
+
+    private final WarehouseRepository warehouseRepository;
+    private final MultiGauge utilization;
+
+    public WarehouseUtilizationMetrics(WarehouseRepository warehouseRepository, MeterRegistry registry) {
+        this.warehouseRepository = warehouseRepository;
+        this.utilization = MultiGauge.builder("warehouse.utilization")
+            .description("Current load as a fraction of max capacity")
+            .register(registry);
+    }
+
+    @Scheduled(initialDelayString = "${warehouse.metrics.refresh-delay:PT30S}",
+               fixedDelayString = "${warehouse.metrics.refresh-delay:PT30S}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        utilization.register(warehouseRepository.findAllLoads().stream()
+            .map(load -> MultiGauge.Row.of(Tags.of("warehouse", load.warehouseId().toString()),
+                load.maxCapacity() > 0 ? (double) load.currentLoad() / load.maxCapacity() : 0.0))
+            .toList(), true);
+    }
+}
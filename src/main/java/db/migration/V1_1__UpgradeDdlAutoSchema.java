@@ -0,0 +1,48 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Databases built by ddl-auto are baselined at V1, but may predate parts of it: the
+ * current_load column, inventory_seq, the (warehouse, product) and SKU unique keys. Adds
+ * whichever are missing so V2 onwards find the V1 schema; V3 and V4 then fill in
+ * current_load and move inventory_seq past the existing ids. Nothing to do on a database
+ * Flyway created, which is also why it may run out of order there.
+ * Checks information_schema, which Postgres and H2 both have.
+ */
+public class V1_1__UpgradeDdlAutoSchema extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            if (!exists(connection, "SELECT 1 FROM information_schema.columns WHERE table_schema = CURRENT_SCHEMA"
+                    + " AND UPPER(table_name) = 'WAREHOUSES' AND UPPER(column_name) = 'CURRENT_LOAD'")) {
+                statement.execute("ALTER TABLE warehouses ADD COLUMN current_load BIGINT DEFAULT 0 NOT NULL");
+            }
+            if (!exists(connection, "SELECT 1 FROM information_schema.sequences WHERE sequence_schema = CURRENT_SCHEMA"
+                    + " AND UPPER(sequence_name) = 'INVENTORY_SEQ'")) {
+                statement.execute("CREATE SEQUENCE inventory_seq START WITH 1 INCREMENT BY 50");
+            }
+            if (!exists(connection, "SELECT 1 FROM information_schema.table_constraints WHERE table_schema = CURRENT_SCHEMA"
+                    + " AND UPPER(table_name) = 'INVENTORY' AND UPPER(constraint_name) = 'UK_INVENTORY_WAREHOUSE_PRODUCT'")) {
+                statement.execute("ALTER TABLE inventory ADD CONSTRAINT uk_inventory_warehouse_product UNIQUE (warehouse_id, product_id)");
+            }
+            statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS ux_products_sku ON products (sku)");
+        }
+    }
+
+    private static boolean exists(Connection connection, String query) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(query);
+             ResultSet rs = statement.executeQuery()) {
+            return rs.next();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * inventory_id used to be an IDENTITY column. Move inventory_seq past the ids
+ * already handed out. Hibernate's pooled optimizer treats each nextval as the top
+ * of a 50-id block, so the next value has to clear MAX + 50.
+ * Done in Java because Postgres and H2 share ALTER SEQUENCE ... RESTART WITH
+ * but not setval().
+ */
+public class V4__SyncInventorySequence extends BaseJavaMigration {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            long maxId;
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(inventory_id), 0) FROM inventory")) {
+                rs.next();
+                maxId = rs.getLong(1);
+            }
+            if (maxId > 0) {
+                statement.execute("ALTER SEQUENCE inventory_seq RESTART WITH " + (maxId + ALLOCATION_SIZE + 1));
+            }
+        }
+    }
+}
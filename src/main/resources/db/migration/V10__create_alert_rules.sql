@@ -0,0 +1,11 @@
+-- Thresholds for the alert engine; a missing warehouse_id / product_id means "any".
+-- Rules go with the warehouse or product they name.
+CREATE TABLE alert_rules (
+    rule_id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    kind         VARCHAR(20) NOT NULL,
+    warehouse_id BIGINT,
+    product_id   BIGINT,
+    threshold    INTEGER     NOT NULL,
+    CONSTRAINT fk_alert_rules_warehouse FOREIGN KEY (warehouse_id) REFERENCES warehouses (warehouse_id) ON DELETE CASCADE,
+    CONSTRAINT fk_alert_rules_product FOREIGN KEY (product_id) REFERENCES products (product_id) ON DELETE CASCADE
+);
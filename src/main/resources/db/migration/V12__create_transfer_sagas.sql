@@ -0,0 +1,16 @@
+-- Transfers between warehouses on different shards (see InventoryTransferService).
+-- No foreign keys: the two warehouses may live on different nodes.
+CREATE TABLE transfer_sagas (
+    saga_id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    source_warehouse_id BIGINT                   NOT NULL,
+    dest_warehouse_id   BIGINT                   NOT NULL,
+    product_id          BIGINT                   NOT NULL,
+    amount              INTEGER                  NOT NULL,
+    state               VARCHAR(20)              NOT NULL,
+    failure_reason      VARCHAR(255),
+    created_at          TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at          TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Recovery looks for sagas stuck in DEBITED
+CREATE INDEX ix_transfer_sagas_state_updated ON transfer_sagas (state, updated_at);
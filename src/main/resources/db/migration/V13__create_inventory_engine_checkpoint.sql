@@ -0,0 +1,7 @@
+-- Last journal segment the in-memory inventory engine has written behind (see InventoryEngine)
+CREATE TABLE inventory_engine_checkpoint (
+    checkpoint_id   INTEGER PRIMARY KEY,
+    flushed_segment BIGINT  NOT NULL
+);
+
+INSERT INTO inventory_engine_checkpoint (checkpoint_id, flushed_segment) VALUES (1, 0);
@@ -0,0 +1,11 @@
+-- Idempotency-Key requests (see IdempotencyService). A key is inserted in the same
+-- transaction as the change it guards, together with the response to replay, and purged
+-- once older than idempotency.ttl.
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(255)             PRIMARY KEY,
+    request_hash    VARCHAR(64)              NOT NULL,
+    response        TEXT,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX ix_idempotency_keys_created ON idempotency_keys (created_at);
@@ -0,0 +1,37 @@
+-- Schema as of the switch from hibernate ddl-auto to Flyway.
+-- Databases that were built by ddl-auto are baselined at this version (see application.properties).
+
+CREATE TABLE warehouses (
+    warehouse_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR(255) NOT NULL,
+    location     VARCHAR(255) NOT NULL,
+    max_capacity INTEGER      NOT NULL,
+    current_load BIGINT       NOT NULL DEFAULT 0
+);
+
+CREATE TABLE products (
+    product_id  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(255) NOT NULL,
+    sku         VARCHAR(255) NOT NULL,
+    description VARCHAR(256)
+);
+
+CREATE UNIQUE INDEX ux_products_sku ON products (sku);
+
+-- Pooled allocation: Hibernate reserves 50 ids per nextval (matches @SequenceGenerator allocationSize)
+CREATE SEQUENCE inventory_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE inventory (
+    inventory_id     BIGINT       PRIMARY KEY,
+    warehouse_id     BIGINT       NOT NULL,
+    product_id       BIGINT       NOT NULL,
+    quantity         INTEGER      NOT NULL,
+    storage_location VARCHAR(255),
+    CONSTRAINT fk_inventory_warehouse FOREIGN KEY (warehouse_id) REFERENCES warehouses (warehouse_id),
+    CONSTRAINT fk_inventory_product FOREIGN KEY (product_id) REFERENCES products (product_id),
+    CONSTRAINT uk_inventory_warehouse_product UNIQUE (warehouse_id, product_id),
+    CONSTRAINT ck_inventory_quantity_non_negative CHECK (quantity >= 0)
+);
+
+-- Covers SUM(quantity) per warehouse as an index-only scan
+CREATE INDEX ix_inventory_warehouse_quantity ON inventory (warehouse_id, quantity);
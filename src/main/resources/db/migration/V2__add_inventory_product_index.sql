@@ -0,0 +1,3 @@
+-- uk_inventory_warehouse_product leads with warehouse_id, so product-side lookups and the
+-- FK check on product delete had nothing to use. IF NOT EXISTS keeps this safe on baselined databases.
+CREATE INDEX IF NOT EXISTS ix_inventory_product ON inventory (product_id);
@@ -0,0 +1,4 @@
+-- Databases baselined from ddl-auto got current_load = 0 when the column was added.
+-- No-op on a fresh schema.
+UPDATE warehouses w
+SET current_load = (SELECT COALESCE(SUM(i.quantity), 0) FROM inventory i WHERE i.warehouse_id = w.warehouse_id);
@@ -0,0 +1,12 @@
+-- Transactional outbox: rows are written in the same transaction as the change they
+-- describe and deleted once OutboxDispatcher has handed them to the sink.
+CREATE SEQUENCE outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE outbox_events (
+    outbox_id      BIGINT                   PRIMARY KEY,
+    aggregate_type VARCHAR(50)              NOT NULL,
+    aggregate_id   BIGINT                   NOT NULL,
+    event_type     VARCHAR(50)              NOT NULL,
+    payload        TEXT                     NOT NULL,
+    created_at     TIMESTAMP WITH TIME ZONE NOT NULL
+);
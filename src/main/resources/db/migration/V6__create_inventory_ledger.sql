@@ -0,0 +1,42 @@
+-- Append-only stock movement ledger plus periodic per-warehouse snapshots, so
+-- "stock at warehouse X at time T" replays from the nearest snapshot instead of
+-- the start of time. No foreign keys: history outlives the rows it describes.
+CREATE SEQUENCE inventory_movement_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE inventory_movements (
+    movement_id  BIGINT                   PRIMARY KEY,
+    warehouse_id BIGINT                   NOT NULL,
+    product_id   BIGINT                   NOT NULL,
+    inventory_id BIGINT                   NOT NULL,
+    delta        INTEGER                  NOT NULL,
+    reason       VARCHAR(20)              NOT NULL,
+    occurred_at  TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- As-of replay reads one warehouse's movements between a snapshot and T
+CREATE INDEX ix_inventory_movements_warehouse_time ON inventory_movements (warehouse_id, occurred_at);
+
+CREATE TABLE inventory_snapshots (
+    snapshot_id  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    warehouse_id BIGINT                   NOT NULL,
+    taken_at     TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX ix_inventory_snapshots_warehouse_time ON inventory_snapshots (warehouse_id, taken_at);
+
+CREATE TABLE inventory_snapshot_lines (
+    snapshot_id BIGINT  NOT NULL,
+    product_id  BIGINT  NOT NULL,
+    quantity    INTEGER NOT NULL,
+    CONSTRAINT pk_inventory_snapshot_lines PRIMARY KEY (snapshot_id, product_id),
+    CONSTRAINT fk_inventory_snapshot_lines_snapshot FOREIGN KEY (snapshot_id) REFERENCES inventory_snapshots (snapshot_id)
+);
+
+-- The ledger starts now: existing stock becomes each warehouse's first snapshot
+INSERT INTO inventory_snapshots (warehouse_id, taken_at)
+SELECT warehouse_id, CURRENT_TIMESTAMP FROM warehouses;
+
+INSERT INTO inventory_snapshot_lines (snapshot_id, product_id, quantity)
+SELECT s.snapshot_id, i.product_id, i.quantity
+FROM inventory i JOIN inventory_snapshots s ON s.warehouse_id = i.warehouse_id
+WHERE i.quantity > 0;
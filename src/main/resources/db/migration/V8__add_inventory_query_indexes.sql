@@ -0,0 +1,3 @@
+-- Filtered inventory lists (GET /api/inventory?...): quantity order with id as the tie-break,
+-- readable in either direction, serves sort=quantity / -quantity and their keyset cursors
+CREATE INDEX ix_inventory_quantity_id ON inventory (quantity, inventory_id);
@@ -0,0 +1,211 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.alert.Alert;
+import com.abrams.projectone.alert.AlertEngine;
+import com.abrams.projectone.alert.AlertKind;
+import com.abrams.projectone.alert.AlertRule;
+import com.abrams.projectone.alert.AlertRuleRepository;
+import com.abrams.projectone.alert.AlertService;
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not @Transactional: alerts are applied once the write commits.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AlertTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private AlertRuleRepository alertRuleRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private AlertService alertService;
+
+    @Autowired
+    private AlertEngine alertEngine;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Warehouse a;
+    private Warehouse b;
+    private Product widget;
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        a = warehouseRepository.save(new Warehouse("A", "NY", 100));
+        b = warehouseRepository.save(new Warehouse("B", "LA", 100));
+        widget = productRepository.save(new Product("Widget", "SKU1"));
+    }
+
+    // Other tests write behind the engine's back, so start from what is really in the tables
+    @AfterEach
+    void cleanup() {
+        alertRuleRepository.deleteAllInBatch();
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        alertEngine.rebuild();
+    }
+
+    @Test
+    void lowStockIsRaisedOnceAndClearsAfterTheDebounceWindow() {
+        Inventory row = inventoryService.create(new Inventory(a, widget, 20, "A1"));
+        assertTrue(alertService.getActive(null, null).isEmpty());
+
+        inventoryService.update(row.getId(), new Inventory(null, null, 8, null));
+        inventoryService.update(row.getId(), new Inventory(null, null, 3, null));
+
+        Alert alert = single(AlertKind.LOW_STOCK);
+        assertEquals(3, alert.value());
+        assertEquals(10, alert.threshold());
+        assertEquals(1, alert.occurrences());
+
+        // Restocked, then dips again inside the window: still the same alert
+        inventoryService.update(row.getId(), new Inventory(null, null, 15, null));
+        assertNotNull(single(AlertKind.LOW_STOCK).clearingSince());
+        inventoryService.update(row.getId(), new Inventory(null, null, 9, null));
+        alert = single(AlertKind.LOW_STOCK);
+        assertNull(alert.clearingSince());
+        assertEquals(2, alert.occurrences());
+
+        inventoryService.update(row.getId(), new Inventory(null, null, 15, null));
+        assertEquals(0, alertEngine.sweep(Instant.now()));
+        assertEquals(1, alertEngine.sweep(Instant.now().plus(Duration.ofHours(1))));
+        assertTrue(alertService.getActive(null, null).isEmpty());
+    }
+
+    @Test
+    void transfersEvaluateBothWarehousesAndCapacity() {
+        inventoryService.create(new Inventory(a, widget, 50, "A1"));
+        inventoryService.create(new Inventory(b, widget, 50, "B1"));
+
+        inventoryService.transferInventory(a.getId(), b.getId(), widget.getId(), 45);
+
+        Alert low = single(AlertKind.LOW_STOCK);
+        assertEquals(a.getId(), low.warehouseId());
+        assertEquals(5, low.value());
+        Alert full = single(AlertKind.OVER_CAPACITY);
+        assertEquals(b.getId(), full.warehouseId());
+        assertEquals(95, full.value());
+        assertEquals(90, full.threshold());
+    }
+
+    @Test
+    void rolledBackWritesRaiseNothing() {
+        Inventory row = inventoryService.create(new Inventory(a, widget, 50, "A1"));
+
+        // Over capacity: the whole update rolls back
+        assertThrows(RuntimeException.class, () -> inventoryService.update(row.getId(), new Inventory(null, null, 101, null)));
+
+        assertTrue(alertService.getActive(null, null).isEmpty());
+    }
+
+    @Test
+    void mostSpecificRuleWinsAndRuleChangesReevaluate() throws Exception {
+        inventoryService.create(new Inventory(a, widget, 30, "A1"));
+        inventoryService.create(new Inventory(b, widget, 30, "B1"));
+        assertTrue(alertService.getActive(null, null).isEmpty());
+
+        alertService.saveRule(new AlertRule(AlertKind.LOW_STOCK, null, widget.getId(), 40));
+        assertEquals(2, alertService.getActive(AlertKind.LOW_STOCK, null).size());
+
+        alertService.saveRule(new AlertRule(AlertKind.LOW_STOCK, b.getId(), widget.getId(), 20));
+        // Same scope again replaces rather than adds
+        alertService.saveRule(new AlertRule(AlertKind.LOW_STOCK, b.getId(), widget.getId(), 25));
+        assertEquals(2, alertRuleRepository.count());
+
+        List<Alert> active = alertService.getActive(AlertKind.LOW_STOCK, null);
+        assertEquals(1, active.size());
+        assertEquals(a.getId(), active.get(0).warehouseId());
+
+        mockMvc.perform(get("/api/alerts").param("warehouseId", a.getId().toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].kind").value("LOW_STOCK"))
+            .andExpect(jsonPath("$[0].threshold").value(40));
+
+        assertThrows(RuntimeException.class,
+            () -> alertService.saveRule(new AlertRule(AlertKind.OVER_CAPACITY, a.getId(), widget.getId(), 80)));
+    }
+
+    @Test
+    void changesDuringARebuildAreKept() throws Exception {
+        Warehouse big = warehouseRepository.save(new Warehouse("Big", "SF", 10_000));
+        List<Inventory> rows = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Product product = productRepository.save(new Product("Part " + i, "PRT-" + i));
+            rows.add(inventoryService.create(new Inventory(big, product, 20, "A1")));
+        }
+        // Low rows elsewhere, so each rebuild spends most of its time reading
+        List<Product> fillers = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            fillers.add(new Product("Filler " + i, "FIL-" + i));
+        }
+        inventoryRepository.saveAll(productRepository.saveAll(fillers).stream()
+            .map(product -> new Inventory(b, product, 1, "B1"))
+            .toList());
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CompletableFuture<Void> rebuilding = CompletableFuture.runAsync(() -> {
+            while (writing.get()) {
+                alertEngine.rebuild();
+            }
+        });
+        try {
+            for (Inventory row : rows) {
+                inventoryService.update(row.getId(), new Inventory(null, null, 3, null));
+            }
+        } finally {
+            writing.set(false);
+        }
+        rebuilding.get(30, TimeUnit.SECONDS);
+
+        assertEquals(30, alertService.getActive(AlertKind.LOW_STOCK, big.getId()).size());
+    }
+
+    private Alert single(AlertKind kind) {
+        List<Alert> alerts = alertService.getActive(kind, null);
+        assertEquals(1, alerts.size());
+        return alerts.get(0);
+    }
+}
@@ -0,0 +1,121 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.product.ProductService;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import com.abrams.projectone.warehouse.WarehouseService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not @Transactional: versions move after commit, so the writes have to commit.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CatalogEtagTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private WarehouseService warehouseService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    @AfterEach
+    void cleanup() {
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void unchangedProductListIsAnsweredWithoutQuerying() throws Exception {
+        productService.create(new Product("Widget", "SKU1"));
+        MockHttpServletResponse first = mockMvc.perform(get("/api/products"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse();
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertEquals(1, first.getHeaders(HttpHeaders.ETAG).size());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void productWritesChangeTheEtag() throws Exception {
+        Product widget = productService.create(new Product("Widget", "SKU1"));
+        String etag = productService.listEtag();
+
+        productService.update(widget.getId(), new Product("Widget v2", "SKU1"));
+
+        assertNotEquals(etag, productService.listEtag());
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void inventoryWritesChangeTheWarehouseEtag() {
+        Warehouse w = warehouseService.create(new Warehouse("Main", "NY", 100));
+        Product p = productService.create(new Product("Widget", "SKU1"));
+        String warehouses = warehouseService.listEtag();
+        String products = productService.listEtag();
+
+        // currentLoad is part of the warehouse list, so stock moving has to invalidate it
+        inventoryService.create(new Inventory(w, p, 10, "Shelf A"));
+
+        assertNotEquals(warehouses, warehouseService.listEtag());
+        assertEquals(products, productService.listEtag());
+    }
+
+    @Test
+    void rolledBackWritesKeepTheEtag() {
+        Warehouse w = warehouseService.create(new Warehouse("Main", "NY", 10));
+        Product p = productService.create(new Product("Widget", "SKU1"));
+        String etag = warehouseService.listEtag();
+
+        assertThrows(RuntimeException.class, () -> inventoryService.create(new Inventory(w, p, 11, "Shelf A")));
+
+        assertEquals(etag, warehouseService.listEtag());
+    }
+}
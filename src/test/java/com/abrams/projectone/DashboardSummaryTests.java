@@ -0,0 +1,132 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.config.CacheConfig;
+import com.abrams.projectone.dashboard.DashboardService;
+import com.abrams.projectone.dashboard.DashboardSummary;
+import com.abrams.projectone.dashboard.WarehouseSummary;
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class DashboardSummaryTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Warehouse a;
+    private Warehouse b;
+
+    @BeforeEach
+    void setup() {
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        cacheManager.getCache(CacheConfig.DASHBOARD).clear();
+
+        a = warehouseRepository.saveAndFlush(new Warehouse("A", "NY", 200));
+        b = warehouseRepository.saveAndFlush(new Warehouse("B", "LA", 100));
+        warehouseRepository.saveAndFlush(new Warehouse("Empty", "SF", 50));
+        Product widget = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+        Product gadget = productRepository.saveAndFlush(new Product("Gadget", "SKU2"));
+        productRepository.saveAndFlush(new Product("Unstocked", "SKU3"));
+        inventoryService.create(new Inventory(a, widget, 30, "A1"));
+        inventoryService.create(new Inventory(a, gadget, 20, "A2"));
+        inventoryService.create(new Inventory(b, widget, 40, "B1"));
+    }
+
+    @Test
+    void summaryIsComputedFromAggregateQueries() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        DashboardSummary summary = dashboardService.getSummary(1).summary();
+
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(3, summary.totalWarehouses());
+        assertEquals(90, summary.totalQuantity());
+        assertEquals(2, summary.activeProducts());
+
+        WarehouseSummary first = summary.warehouses().get(0);
+        assertEquals(a.getId(), first.id());
+        assertEquals(50, first.currentLoad());
+        assertEquals(2, first.skuCount());
+        assertEquals(25.0, first.utilizationPercent());
+        assertEquals(0, summary.warehouses().get(2).skuCount());
+
+        assertEquals(1, summary.topProducts().size());
+        assertEquals("SKU1", summary.topProducts().get(0).sku());
+        assertEquals(70, summary.topProducts().get(0).quantity());
+    }
+
+    @Test
+    void summaryIsCachedUntilTheTtlExpires() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        dashboardService.getSummary(5);
+        statistics.clear();
+
+        dashboardService.getSummary(5);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void endpointAnswersRevalidationWithNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/dashboard/summary").param("top", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.warehouses.length()").value(3))
+            .andExpect(jsonPath("$.topProducts[0].sku").value("SKU1"))
+            .andExpect(header().exists(HttpHeaders.CACHE_CONTROL))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/api/dashboard/summary").param("top", "2").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+    }
+}
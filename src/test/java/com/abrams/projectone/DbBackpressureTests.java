@@ -0,0 +1,134 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.common.ServiceBusyException;
+import com.abrams.projectone.idempotency.IdempotencyRepository;
+import com.abrams.projectone.idempotency.IdempotencyService;
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * One ordinary DB slot and one stream slot: while a call holds its slot, the next one of the
+ * same kind is shed with 503 + Retry-After.
+ */
+@SpringBootTest(properties = {"db.max-concurrent=2", "db.max-streams=1", "db.queue-timeout=PT0.05S", "db.retry-after=PT2S"})
+@AutoConfigureMockMvc
+class DbBackpressureTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private IdempotencyRepository idempotencyRepository;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    @AfterEach
+    void cleanup() {
+        idempotencyRepository.deleteAllInBatch();
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void requestsBeyondTheLimitAreShedWithRetryAfter() throws Exception {
+        Warehouse w = warehouseRepository.saveAndFlush(new Warehouse("Main", "NY", 100));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+        inventoryService.create(new Inventory(w, p, 10, "Shelf A"));
+
+        // Hold the only slot: a DbBound call keeps it until its action returns
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> idempotencyService.execute("hold", "test", "body",
+            String.class, () -> {
+                holding.countDown();
+                await(release);
+                return "done";
+            }));
+        assertTrue(holding.await(10, TimeUnit.SECONDS));
+
+        try {
+            mockMvc.perform(get("/api/inventory"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+        } finally {
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        }
+
+        mockMvc.perform(get("/api/inventory")).andExpect(status().isOk());
+    }
+
+    @Test
+    void streamsHoldTheirOwnSlotUntilTheyClose() throws Exception {
+        Warehouse w = warehouseRepository.saveAndFlush(new Warehouse("Main", "NY", 100));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+        inventoryService.create(new Inventory(w, p, 10, "Shelf A"));
+
+        // A slow client keeps its cursor open: other requests still get through, a second stream doesn't
+        CountDownLatch streaming = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> download = CompletableFuture.runAsync(() -> inventoryService.streamAll(row -> {
+            streaming.countDown();
+            await(release);
+        }));
+        assertTrue(streaming.await(10, TimeUnit.SECONDS));
+
+        try {
+            mockMvc.perform(get("/api/inventory")).andExpect(status().isOk());
+            assertThrows(ServiceBusyException.class, () -> inventoryService.streamAll(row -> { }));
+        } finally {
+            release.countDown();
+            download.get(10, TimeUnit.SECONDS);
+        }
+
+        List<Inventory> rows = new ArrayList<>();
+        inventoryService.streamAll(rows::add);
+        assertEquals(1, rows.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
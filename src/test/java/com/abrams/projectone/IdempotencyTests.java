@@ -0,0 +1,268 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.common.RetryOnConflict;
+import com.abrams.projectone.idempotency.IdempotencyRepository;
+import com.abrams.projectone.idempotency.IdempotencyService;
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.inventory.InventoryTransferService;
+import com.abrams.projectone.inventory.ShardRouter;
+import com.abrams.projectone.inventory.TransferSagaRepository;
+import com.abrams.projectone.inventory.TransferSagaState;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not @Transactional: the key has to commit with the write it guards. Two shards, so
+ * transfers can go either way.
+ */
+@SpringBootTest(properties = "inventory.shards.count=2")
+@AutoConfigureMockMvc
+class IdempotencyTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private TransferSagaRepository transferSagaRepository;
+
+    @Autowired
+    private IdempotencyRepository idempotencyRepository;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryTransferService inventoryTransferService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ConflictingWriter conflictingWriter;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Warehouse source;
+    private Warehouse remote;
+    private Product widget;
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        source = warehouseRepository.save(new Warehouse("Source", "NY", 100));
+        remote = warehouseRepository.save(new Warehouse("Remote", "LA", 30));
+        assertFalse(shardRouter.sameShard(source.getId(), remote.getId()));
+        widget = productRepository.save(new Product("Widget", "SKU1"));
+    }
+
+    @AfterEach
+    void cleanup() {
+        idempotencyRepository.deleteAllInBatch();
+        transferSagaRepository.deleteAllInBatch();
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void retriedCreateReplaysTheFirstResponse() throws Exception {
+        // The warehouse's load is read-only in JSON, so a replay that decoded the recorded response would drop it
+        Product gadget = productRepository.save(new Product("Gadget", "SKU2"));
+        inventoryService.create(new Inventory(source, gadget, 40, "B1"));
+        String body = "{\"warehouse\":{\"id\":" + source.getId() + "},\"product\":{\"id\":" + widget.getId()
+            + "},\"quantity\":10,\"storageLocation\":\"A1\"}";
+
+        String first = mockMvc.perform(post("/api/inventory").header(IdempotencyService.HEADER, "create-1")
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String retry = mockMvc.perform(post("/api/inventory").header(IdempotencyService.HEADER, "create-1")
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        assertEquals(first, retry);
+        assertEquals(10, stock(source));
+        mockMvc.perform(post("/api/inventory").header(IdempotencyService.HEADER, "create-1")
+                .contentType(MediaType.APPLICATION_JSON).content(body.replace("\"quantity\":10", "\"quantity\":11")))
+            .andExpect(status().isUnprocessableContent());
+        // A different key is a different request
+        mockMvc.perform(post("/api/inventory").header(IdempotencyService.HEADER, "create-2")
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isOk());
+        assertEquals(20, stock(source));
+    }
+
+    @Test
+    void parallelRetriesAddTheStockOnce() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Inventory>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> idempotencyService.execute("parallel", "test", "same body", Inventory.class,
+                    () -> inventoryService.create(new Inventory(source, widget, 5, "A1")))));
+            }
+            for (Future<Inventory> result : results) {
+                assertEquals(5, result.get().getQuantity());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(5, stock(source));
+        assertEquals(1, idempotencyRepository.count());
+    }
+
+    @Test
+    void failedRequestLeavesNoKeyBehind() {
+        assertThrows(RuntimeException.class, () -> idempotencyService.execute("too-big", "test", "body", Inventory.class,
+            () -> inventoryService.create(new Inventory(remote, widget, 31, "A1"))));
+        assertEquals(0, idempotencyRepository.count());
+
+        Inventory created = idempotencyService.execute("too-big", "test", "body", Inventory.class,
+            () -> inventoryService.create(new Inventory(remote, widget, 30, "A1")));
+        assertEquals(30, created.getQuantity());
+    }
+
+    @Test
+    void retriedCrossShardTransferMovesTheStockOnce() {
+        inventoryService.create(new Inventory(source, widget, 50, "A1"));
+
+        inventoryTransferService.transfer("move-1", source.getId(), remote.getId(), widget.getId(), 20);
+        inventoryTransferService.transfer("move-1", source.getId(), remote.getId(), widget.getId(), 20);
+        assertEquals(30, stock(source));
+        assertEquals(20, stock(remote));
+
+        // The credit fails and the saga is cancelled; a retry reports that instead of debiting again
+        RuntimeException error = assertThrows(RuntimeException.class,
+            () -> inventoryTransferService.transfer("move-2", source.getId(), remote.getId(), widget.getId(), 15));
+        RuntimeException replayed = assertThrows(RuntimeException.class,
+            () -> inventoryTransferService.transfer("move-2", source.getId(), remote.getId(), widget.getId(), 15));
+        assertEquals(error.getMessage(), replayed.getMessage());
+        assertEquals(30, stock(source));
+        assertEquals(2, transferSagaRepository.count());
+    }
+
+    @Test
+    void retryFinishesASagaLeftHalfDone() {
+        inventoryService.create(new Inventory(source, widget, 50, "A1"));
+        // As if the process died after the debit committed
+        Long sagaId = idempotencyService.execute("move-3", "POST /api/inventory/transfer",
+            Arrays.asList(source.getId(), remote.getId(), widget.getId(), 10), Long.class,
+            () -> inventoryService.startTransfer(source.getId(), remote.getId(), widget.getId(), 10).getId());
+        assertEquals(TransferSagaState.DEBITED, transferSagaRepository.findById(sagaId).orElseThrow().getState());
+
+        inventoryTransferService.transfer("move-3", source.getId(), remote.getId(), widget.getId(), 10);
+        assertEquals(TransferSagaState.COMPLETED, transferSagaRepository.findById(sagaId).orElseThrow().getState());
+        assertEquals(40, stock(source));
+        assertEquals(10, stock(remote));
+    }
+
+    @Test
+    void conflictsInsideTheKeyTransactionRetryTheWholeRequest() {
+        // On its own, a write retries itself
+        conflictingWriter.failNext(1);
+        assertEquals("written", conflictingWriter.write());
+        assertEquals(2, conflictingWriter.calls());
+
+        // Inside the key's transaction it can't: the conflict rolled that back, so the
+        // request starts over with a new claim
+        conflictingWriter.failNext(1);
+        AtomicInteger attempts = new AtomicInteger();
+        String response = idempotencyService.execute("conflict", "test", "body", String.class, () -> {
+            attempts.incrementAndGet();
+            return conflictingWriter.write();
+        });
+        assertEquals("written", response);
+        assertEquals(2, attempts.get());
+        assertEquals(2, conflictingWriter.calls());
+        assertEquals(1, idempotencyRepository.count());
+    }
+
+    @Test
+    void purgedKeysAreForgotten() {
+        idempotencyService.execute("old", "test", "body", String.class, () -> "done");
+        assertEquals(0, idempotencyService.purge(Instant.now().minusSeconds(60)));
+        assertEquals(1, idempotencyService.purge(Instant.now().plusSeconds(1)));
+        assertEquals(0, idempotencyRepository.count());
+    }
+
+    @TestConfiguration
+    static class ConflictingWriterConfig {
+
+        @Bean
+        ConflictingWriter conflictingWriter() {
+            return new ConflictingWriter();
+        }
+    }
+
+    // Fails its next few calls the way a lock timeout does
+    static class ConflictingWriter {
+
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicInteger calls = new AtomicInteger();
+
+        void failNext(int times) {
+            failures.set(times);
+            calls.set(0);
+        }
+
+        int calls() {
+            return calls.get();
+        }
+
+        @RetryOnConflict
+        @Transactional
+        public String write() {
+            calls.incrementAndGet();
+            if (failures.getAndDecrement() > 0) {
+                throw new CannotAcquireLockException("lock timeout");
+            }
+            return "written";
+        }
+    }
+
+    private int stock(Warehouse warehouse) {
+        return inventoryRepository.findByWarehouseIdAndProductId(warehouse.getId(), widget.getId())
+            .map(Inventory::getQuantity)
+            .orElse(0);
+    }
+}
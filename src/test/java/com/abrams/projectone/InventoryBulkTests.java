@@ -0,0 +1,243 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.BulkLineResult;
+import com.abrams.projectone.inventory.BulkResult;
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryBulkService;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.inventory.TransferLine;
+import com.abrams.projectone.inventory.TransferMode;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class InventoryBulkTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryBulkService inventoryBulkService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+    }
+
+    private static Inventory line(Warehouse w, Product p, int quantity) {
+        return new Inventory(w, p, quantity, "Dock");
+    }
+
+    @Test
+    void testBulk_MergesAndReportsPerLine() {
+        Warehouse w = warehouseRepository.saveAndFlush(new Warehouse("Main", "NY", 100));
+        Product p1 = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+        Product p2 = productRepository.saveAndFlush(new Product("Gadget", "SKU2"));
+        Product missing = new Product("Ghost", "SKU0");
+        missing.setId(-1L);
+
+        BulkResult result = inventoryBulkService.ingest(List.of(
+            line(w, p1, 10),
+            line(w, p1, 5),        // merges into line 1's row
+            line(w, missing, 1),   // unknown product
+            line(w, p2, 0),        // fails validation
+            line(w, p2, 90),       // 15 + 90 > 100
+            line(w, p2, 85)));     // exactly fills the warehouse
+
+        List<BulkLineResult> lines = result.lines();
+        assertEquals(3, result.accepted());
+        assertEquals(3, result.rejected());
+        assertEquals(lines.get(0).inventoryId(), lines.get(1).inventoryId());
+        assertEquals("Product not found", lines.get(2).error());
+        assertFalse(lines.get(3).success());
+        assertEquals("Warehouse capacity exceeded!", lines.get(4).error());
+        assertTrue(lines.get(5).success());
+
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(15, inventoryRepository.findById(lines.get(0).inventoryId()).orElseThrow().getQuantity());
+        assertEquals(100, warehouseRepository.findById(w.getId()).orElseThrow().getCurrentLoad());
+    }
+
+    @Test
+    void testBulkNdjson_SkipsMalformedLines() {
+        Warehouse w = warehouseRepository.saveAndFlush(new Warehouse("Main", "NY", 100));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+        String body = """
+            {"warehouse":{"id":%d},"product":{"id":%d},"quantity":4,"storageLocation":"A"}
+            {not json
+            {"warehouse":{"id":%d},"product":{"id":%d},"quantity":6,"storageLocation":"A"}
+            """.formatted(w.getId(), p.getId(), w.getId(), p.getId());
+
+        BulkResult result = inventoryBulkService.ingestNdjson(
+            new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, result.accepted());
+        assertEquals(2, result.lines().get(1).line());
+        assertFalse(result.lines().get(1).success());
+        assertEquals(10, inventoryRepository.getTotalQuantityInWarehouse(w.getId()));
+    }
+
+    @Test
+    void testBulk_InsertsAreBatched() {
+        Warehouse w = warehouseRepository.saveAndFlush(new Warehouse("Main", "NY", 100_000));
+        List<Inventory> items = new ArrayList<>();
+        for (int n = 0; n < 500; n++) {
+            Product p = productRepository.save(new Product("Widget " + n, "SKU" + n));
+            items.add(line(w, p, 1));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        BulkResult result = inventoryBulkService.ingest(items);
+        entityManager.flush();
+
+        assertEquals(500, result.accepted());
+        assertEquals(500, inventoryRepository.count());
+        // lock + loads + products + existing rows + counter update + a handful of
+        // sequence calls and insert batches; nowhere near one statement per line
+        assertTrue(statistics.getPrepareStatementCount() < 40,
+            "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testTransferBatch_AllOrNothingUsesNetEffect() {
+        Warehouse a = warehouseRepository.saveAndFlush(new Warehouse("A", "NY", 100));
+        Warehouse b = warehouseRepository.saveAndFlush(new Warehouse("B", "NJ", 100));
+        Warehouse c = warehouseRepository.saveAndFlush(new Warehouse("C", "CT", 100));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+        inventoryService.create(new Inventory(a, p, 30, "A"));
+
+        // B has nothing until the first move lands; only the end state has to hold
+        BulkResult result = inventoryService.transferBatch(List.of(
+            new TransferLine(b.getId(), c.getId(), p.getId(), 10),
+            new TransferLine(a.getId(), b.getId(), p.getId(), 30)), TransferMode.ALL_OR_NOTHING);
+
+        assertEquals(2, result.accepted());
+        entityManager.flush();
+        assertEquals(0, inventoryRepository.getTotalQuantityInWarehouse(a.getId()));
+        assertEquals(20, inventoryRepository.getTotalQuantityInWarehouse(b.getId()));
+        assertEquals(10, inventoryRepository.getTotalQuantityInWarehouse(c.getId()));
+        // The emptied source row is removed rather than left at 0
+        assertTrue(inventoryRepository.findByWarehouseIdAndProductId(a.getId(), p.getId()).isEmpty());
+    }
+
+    @Test
+    void testTransferBatch_AllOrNothingRejectsWholeBatch() {
+        Warehouse a = warehouseRepository.saveAndFlush(new Warehouse("A", "NY", 100));
+        Warehouse b = warehouseRepository.saveAndFlush(new Warehouse("B", "NJ", 15));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+        inventoryService.create(new Inventory(a, p, 30, "A"));
+
+        BulkResult result = inventoryService.transferBatch(List.of(
+            new TransferLine(a.getId(), b.getId(), p.getId(), 10),
+            new TransferLine(a.getId(), b.getId(), p.getId(), 10)), TransferMode.ALL_OR_NOTHING);
+
+        assertEquals(0, result.accepted());
+        assertTrue(result.lines().get(0).error().contains("Capacity exceeded"));
+        entityManager.flush();
+        assertEquals(30, inventoryRepository.getTotalQuantityInWarehouse(a.getId()));
+        assertEquals(0, inventoryRepository.getTotalQuantityInWarehouse(b.getId()));
+    }
+
+    @Test
+    void testTransferBatch_BestEffortSkipsFailures() {
+        Warehouse a = warehouseRepository.saveAndFlush(new Warehouse("A", "NY", 100));
+        Warehouse b = warehouseRepository.saveAndFlush(new Warehouse("B", "NJ", 15));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+        inventoryService.create(new Inventory(a, p, 30, "A"));
+
+        BulkResult result = inventoryService.transferBatch(List.of(
+            new TransferLine(a.getId(), b.getId(), p.getId(), 10),
+            new TransferLine(a.getId(), b.getId(), p.getId(), 10),   // B only has room for 5 more
+            new TransferLine(a.getId(), a.getId(), p.getId(), 1),
+            new TransferLine(a.getId(), b.getId(), p.getId(), 5)), TransferMode.BEST_EFFORT);
+
+        assertEquals(2, result.accepted());
+        assertEquals("Transfer failed: Destination warehouse capacity exceeded!", result.lines().get(1).error());
+        assertFalse(result.lines().get(2).success());
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(15, inventoryRepository.getTotalQuantityInWarehouse(a.getId()));
+        assertEquals(15, warehouseRepository.findById(b.getId()).orElseThrow().getCurrentLoad());
+        assertEquals(15, warehouseRepository.findById(a.getId()).orElseThrow().getCurrentLoad());
+    }
+
+    @Test
+    void testTransferBatch_BodyWithoutTransfersIsABadRequest() throws Exception {
+        for (String body : List.of("{}", "{\"transfers\":null}", "{\"transfers\":[]}", "{\"transfers\":[null]}")) {
+            mockMvc.perform(post("/api/inventory/transfer/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    void testTransferRules_SameForSingleAndBatch() {
+        Warehouse a = warehouseRepository.saveAndFlush(new Warehouse("A", "NY", 100));
+        Warehouse b = warehouseRepository.saveAndFlush(new Warehouse("B", "NJ", 100));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+        inventoryService.create(new Inventory(a, p, 30, "A"));
+
+        List<TransferLine> invalid = List.of(
+            new TransferLine(a.getId(), b.getId(), p.getId(), 0),
+            new TransferLine(a.getId(), a.getId(), p.getId(), 5),
+            new TransferLine(a.getId(), b.getId(), null, 5),
+            new TransferLine(null, b.getId(), p.getId(), 5));
+        BulkResult batch = inventoryService.transferBatch(invalid, TransferMode.BEST_EFFORT);
+        for (int n = 0; n < invalid.size(); n++) {
+            TransferLine t = invalid.get(n);
+            RuntimeException single = assertThrows(RuntimeException.class,
+                () -> inventoryService.transferInventory(t.sourceWarehouseId(), t.destWarehouseId(), t.productId(), t.amount()));
+            assertEquals(batch.lines().get(n).error(), single.getMessage());
+        }
+        assertEquals(0, batch.accepted());
+    }
+}
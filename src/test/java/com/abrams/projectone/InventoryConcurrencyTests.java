@@ -0,0 +1,175 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.common.ServiceBusyException;
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import com.abrams.projectone.warehouse.WarehouseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers a pair of warehouses from many threads at once. Not @Transactional:
+ * every service call has to commit for the locking to matter. Calls queue for a DB
+ * slot instead of being shed, so every one of them ends in a success or a business rejection.
+ */
+@SpringBootTest(properties = "db.queue-timeout=PT30S")
+class InventoryConcurrencyTests {
+
+    private static final int THREADS = 200;
+    private static final int CAPACITY = 1000;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private WarehouseService warehouseService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    @AfterEach
+    void cleanup() {
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void testConcurrentWrites_KeepCapacityAndStockInvariants() throws Exception {
+        Warehouse a = warehouseRepository.save(new Warehouse("A", "NY", CAPACITY));
+        Warehouse b = warehouseRepository.save(new Warehouse("B", "NJ", CAPACITY));
+        Product p = productRepository.save(new Product("Widget", "SKU1"));
+        inventoryService.create(new Inventory(a, p, 500, "A"));
+        inventoryService.create(new Inventory(b, p, 500, "B"));
+
+        // A and B start half full. Receipts ask for far more than fits, and
+        // transfers run both ways between the same two warehouses.
+        AtomicInteger receiptsToA = new AtomicInteger();
+        AtomicInteger receiptsToB = new AtomicInteger();
+        AtomicInteger movedAToB = new AtomicInteger();
+        AtomicInteger movedBToA = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int n = 0; n < THREADS; n++) {
+            int task = n;
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    switch (task % 3) {
+                        case 0 -> {
+                            boolean toA = task % 2 == 0;
+                            inventoryService.create(new Inventory(toA ? a : b, p, 20, "R"));
+                            (toA ? receiptsToA : receiptsToB).incrementAndGet();
+                        }
+                        case 1 -> {
+                            inventoryService.transferInventory(a.getId(), b.getId(), p.getId(), 7);
+                            movedAToB.incrementAndGet();
+                        }
+                        default -> {
+                            inventoryService.transferInventory(b.getId(), a.getId(), p.getId(), 7);
+                            movedBToA.incrementAndGet();
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    // Only business rejections: lock conflicts are retried and nothing is shed
+                    assertFalse(e instanceof ServiceBusyException, "shed despite the queue timeout");
+                    assertFalse(e.getClass().getName().contains("Deadlock"), e::getMessage);
+                    assertTrue(e.getMessage().contains("capacity") || e.getMessage().contains("Insufficient stock"), e::getMessage);
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // Every call was answered. Room for 50 receipts in all, and transfers are only turned
+        // away while their destination is full, so well over half get through
+        int succeeded = receiptsToA.get() + receiptsToB.get() + movedAToB.get() + movedBToA.get();
+        assertEquals(THREADS, succeeded + rejected.get());
+        assertTrue(succeeded >= THREADS / 2, "only " + succeeded + " of " + THREADS + " succeeded");
+
+        // Stock and load are exactly what the accepted calls add up to
+        long expectedA = 500 + 20L * receiptsToA.get() + 7L * (movedBToA.get() - movedAToB.get());
+        long expectedB = 500 + 20L * receiptsToB.get() + 7L * (movedAToB.get() - movedBToA.get());
+        assertEquals(expectedA, inventoryRepository.getTotalQuantityInWarehouse(a.getId()));
+        assertEquals(expectedB, inventoryRepository.getTotalQuantityInWarehouse(b.getId()));
+        assertEquals(expectedA, warehouseRepository.findById(a.getId()).orElseThrow().getCurrentLoad());
+        assertEquals(expectedB, warehouseRepository.findById(b.getId()).orElseThrow().getCurrentLoad());
+        assertTrue(expectedA <= CAPACITY, "A over capacity: " + expectedA);
+        assertTrue(expectedB <= CAPACITY, "B over capacity: " + expectedB);
+        inventoryRepository.findAll().forEach(i -> assertTrue(i.getQuantity() >= 0));
+    }
+
+    @Test
+    void capacityCutWaitsForWritesInFlight() throws Exception {
+        Warehouse w = warehouseRepository.save(new Warehouse("A", "NY", 100));
+
+        // A write holds the warehouse lock and has raised the load, but not committed yet
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> write = pool.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                warehouseRepository.lockAllInIdOrder(List.of(w.getId()));
+                warehouseRepository.tryAddLoad(w.getId(), 50);
+                locked.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+            Future<Warehouse> cut = pool.submit(() -> warehouseService.update(w.getId(), new Warehouse("A", "NY", 40)));
+            Thread.sleep(200);
+            release.countDown();
+            write.get(10, TimeUnit.SECONDS);
+
+            ExecutionException error = assertThrows(ExecutionException.class, () -> cut.get(10, TimeUnit.SECONDS));
+            assertTrue(error.getCause().getMessage().contains("below current load of 50"), error.getCause()::getMessage);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(100, warehouseRepository.findById(w.getId()).orElseThrow().getMaxCapacity());
+    }
+}
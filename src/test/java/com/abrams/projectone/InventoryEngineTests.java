@@ -0,0 +1,231 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.BulkResult;
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryEngine;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.inventory.StockDelta;
+import com.abrams.projectone.ledger.InventoryMovementRepository;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The engine writes behind only when flush() is called here. Not @Transactional: the
+ * engine hears about other writes once they commit.
+ */
+@SpringBootTest(properties = {
+    "inventory.engine.enabled=true",
+    "inventory.engine.journal.directory=" + InventoryEngineTests.JOURNAL_DIRECTORY,
+    "inventory.engine.flush-interval=PT24H"
+})
+class InventoryEngineTests {
+
+    static final String JOURNAL_DIRECTORY = "target/inventory-journal-test";
+    private static final Path JOURNAL = Path.of(JOURNAL_DIRECTORY);
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryEngine engine;
+
+    private Warehouse a;
+    private Warehouse b;
+    private Product widget;
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        a = warehouseRepository.save(new Warehouse("A", "NY", 100));
+        b = warehouseRepository.save(new Warehouse("B", "LA", 100));
+        widget = productRepository.save(new Product("Widget", "SKU1"));
+        engine.start();
+    }
+
+    @AfterEach
+    void cleanup() {
+        engine.flush();
+        movementRepository.deleteAllInBatch();
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void adjustmentsApplyInMemoryAndAreWrittenBehindOnFlush() {
+        for (int i = 0; i < 40; i++) {
+            engine.adjust(a.getId(), widget.getId(), 2);
+        }
+        engine.adjust(a.getId(), widget.getId(), -30);
+        engine.transfer(a.getId(), b.getId(), widget.getId(), 20);
+
+        assertEquals(30, engine.getQuantity(a.getId(), widget.getId()));
+        assertEquals(20, engine.getQuantity(b.getId(), widget.getId()));
+        assertTrue(inventoryRepository.findAll().isEmpty());
+
+        assertEquals(1, engine.flush());
+        assertEquals(30, stock(a));
+        assertEquals(20, stock(b));
+        assertEquals(30L, load(a));
+        assertEquals(20L, load(b));
+        // Summed per row: one movement each, not one per scan
+        assertEquals(2, movementRepository.count());
+        assertEquals(0, engine.flush());
+    }
+
+    @Test
+    void rowsEmptiedByTheEngineAreDeletedOnFlush() {
+        engine.adjust(a.getId(), widget.getId(), 10);
+        assertEquals(1, engine.flush());
+        assertEquals(10, stock(a));
+
+        engine.adjust(a.getId(), widget.getId(), -10);
+        assertEquals(1, engine.flush());
+        assertTrue(inventoryRepository.findByWarehouseIdAndProductId(a.getId(), widget.getId()).isEmpty());
+        assertEquals(0L, load(a));
+
+        // Nothing is left stuck behind, and the row comes back on the next receipt
+        assertEquals(0, engine.flush());
+        engine.adjust(a.getId(), widget.getId(), 3);
+        assertEquals(1, engine.flush());
+        assertEquals(3, stock(a));
+    }
+
+    @Test
+    void checksUseTheEngineState() {
+        engine.adjust(a.getId(), widget.getId(), 95);
+
+        assertThrows(RuntimeException.class, () -> engine.adjust(a.getId(), widget.getId(), 6));
+        assertThrows(RuntimeException.class, () -> engine.adjust(b.getId(), widget.getId(), -1));
+        assertThrows(RuntimeException.class, () -> engine.transfer(b.getId(), a.getId(), widget.getId(), 1));
+        assertThrows(RuntimeException.class, () -> engine.adjust(-1L, widget.getId(), 1));
+
+        BulkResult result = engine.adjustAll(List.of(
+            new StockDelta(a.getId(), widget.getId(), 5),
+            new StockDelta(a.getId(), widget.getId(), 1),
+            new StockDelta(b.getId(), widget.getId(), 7)));
+        assertEquals(2, result.accepted());
+        assertFalse(result.lines().get(1).success());
+        assertEquals(100L, engine.getLoad(a.getId()));
+    }
+
+    @Test
+    void committedWritesElsewhereReachTheEngine() {
+        Inventory row = inventoryService.create(new Inventory(a, widget, 10, "A1"));
+        engine.adjust(a.getId(), widget.getId(), 5);
+        inventoryService.update(row.getId(), new Inventory(null, null, 12, null));
+
+        // The update set the table's 10 to 12; the +5 here is still to be written on top
+        assertEquals(17, engine.getQuantity(a.getId(), widget.getId()));
+        assertEquals(12, stock(a));
+        engine.flush();
+        assertEquals(17, stock(a));
+        assertEquals(17L, load(a));
+
+        // Warehouses created after start-up are loaded on first use
+        Warehouse c = warehouseRepository.save(new Warehouse("C", "SF", 10));
+        assertEquals(4, engine.adjust(c.getId(), widget.getId(), 4));
+    }
+
+    @Test
+    void unflushedChangesAreReplayedFromTheJournalAfterARestart() {
+        engine.adjust(a.getId(), widget.getId(), 8);
+        engine.transfer(a.getId(), b.getId(), widget.getId(), 3);
+
+        // As after a crash: memory gone, only the tables and the journal left
+        engine.start();
+        assertEquals(5, engine.getQuantity(a.getId(), widget.getId()));
+        assertEquals(3, engine.getQuantity(b.getId(), widget.getId()));
+
+        engine.flush();
+        engine.start();
+        // Written once, not replayed again
+        assertEquals(5, stock(a));
+        assertEquals(5, engine.getQuantity(a.getId(), widget.getId()));
+    }
+
+    @Test
+    void aTransferCutShortByACrashIsReplayedAsNeitherSide() throws Exception {
+        engine.adjust(a.getId(), widget.getId(), 8);
+        engine.transfer(a.getId(), b.getId(), widget.getId(), 3);
+
+        // As if the process died part way through writing the transfer
+        Path segment;
+        try (Stream<Path> files = Files.list(JOURNAL)) {
+            segment = files.max(Comparator.naturalOrder()).orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        engine.start();
+        assertEquals(8, engine.getQuantity(a.getId(), widget.getId()));
+        assertEquals(0, engine.getQuantity(b.getId(), widget.getId()));
+        assertEquals(8L, engine.getLoad(a.getId()) + engine.getLoad(b.getId()));
+    }
+
+    @Test
+    void writesCommittingDuringAReloadAreCountedOnce() throws Exception {
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CompletableFuture<Void> reloading = CompletableFuture.runAsync(() -> {
+            while (writing.get()) {
+                engine.start();
+            }
+        });
+        try {
+            for (int i = 0; i < 30; i++) {
+                inventoryService.create(new Inventory(a, widget, 1, "A1"));
+            }
+        } finally {
+            writing.set(false);
+        }
+        reloading.get(30, TimeUnit.SECONDS);
+
+        assertEquals(30, stock(a));
+        assertEquals(30, engine.getQuantity(a.getId(), widget.getId()));
+        assertEquals(30L, engine.getLoad(a.getId()));
+    }
+
+    private int stock(Warehouse warehouse) {
+        return inventoryRepository.findByWarehouseIdAndProductId(warehouse.getId(), widget.getId())
+            .map(Inventory::getQuantity)
+            .orElse(0);
+    }
+
+    private long load(Warehouse warehouse) {
+        return warehouseRepository.findById(warehouse.getId()).orElseThrow().getCurrentLoad();
+    }
+}
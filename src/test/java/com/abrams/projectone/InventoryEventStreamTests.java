@@ -0,0 +1,156 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Not @Transactional: events are only delivered once the write commits.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class InventoryEventStreamTests {
+
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\S+)");
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Warehouse a;
+    private Warehouse b;
+    private Product widget;
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        a = warehouseRepository.save(new Warehouse("A", "NY", 100));
+        b = warehouseRepository.save(new Warehouse("B", "LA", 100));
+        widget = productRepository.save(new Product("Widget", "SKU1"));
+    }
+
+    @AfterEach
+    void cleanup() {
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void subscribersOnlySeeTheirWarehouses() throws Exception {
+        MockHttpServletResponse stream = subscribe("/api/inventory/events?warehouseId=" + a.getId(), null);
+
+        Inventory inB = inventoryService.create(new Inventory(b, widget, 5, "B1"));
+        Inventory inA = inventoryService.create(new Inventory(a, widget, 10, "A1"));
+        inventoryService.transferInventory(a.getId(), b.getId(), widget.getId(), 4);
+
+        String events = awaitEvents(stream, 2);
+        assertTrue(events.contains("event:created"));
+        assertTrue(events.contains("\"inventoryId\":" + inA.getId()));
+        assertTrue(events.contains("event:transferred"));
+        assertTrue(events.contains("\"quantity\":6"));
+        assertTrue(events.contains("\"delta\":-4"));
+        assertFalse(events.contains("\"inventoryId\":" + inB.getId()));
+    }
+
+    @Test
+    void rolledBackWritesAreNotPublished() throws Exception {
+        MockHttpServletResponse stream = subscribe("/api/inventory/events?warehouseId=" + a.getId(), null);
+
+        assertThrows(RuntimeException.class, () -> inventoryService.create(new Inventory(a, widget, 101, "A1")));
+        Inventory created = inventoryService.create(new Inventory(a, widget, 1, "A1"));
+        inventoryService.delete(created.getId());
+
+        String events = awaitEvents(stream, 2);
+        assertEquals(2, count(events));
+        assertTrue(events.contains("\"quantity\":1"));
+        assertTrue(events.contains("event:deleted"));
+    }
+
+    @Test
+    void reconnectingWithLastEventIdReplaysWhatWasMissed() throws Exception {
+        MockHttpServletResponse first = subscribe("/api/inventory/events?warehouseId=" + a.getId(), null);
+        Inventory row = inventoryService.create(new Inventory(a, widget, 10, "A1"));
+        Matcher lastSeen = EVENT_ID.matcher(awaitEvents(first, 1));
+        assertTrue(lastSeen.find());
+
+        // Changes made while the client was away
+        inventoryService.update(row.getId(), new Inventory(null, null, 7, null));
+        inventoryService.create(new Inventory(b, widget, 3, "B1"));
+
+        String replayed = awaitEvents(subscribe("/api/inventory/events?warehouseId=" + a.getId(), lastSeen.group(1)), 1);
+        assertEquals(1, count(replayed));
+        assertTrue(replayed.contains("event:updated"));
+        assertTrue(replayed.contains("\"delta\":-3"));
+    }
+
+    @Test
+    void unknownLastEventIdAsksTheClientToResync() throws Exception {
+        String events = awaitContent(subscribe("/api/inventory/events", "stale-42"), "event:reset");
+        assertEquals(0, count(events));
+    }
+
+    private MockHttpServletResponse subscribe(String url, String lastEventId) throws Exception {
+        var builder = get(url);
+        if (lastEventId != null) {
+            builder.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(builder)
+            .andExpect(request().asyncStarted())
+            .andReturn().getResponse();
+    }
+
+    // Sends happen on the stream's own threads, so give them a moment
+    private String awaitEvents(MockHttpServletResponse stream, int expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (count(stream.getContentAsString()) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // and a little longer in case anything unexpected is still on its way
+        Thread.sleep(100);
+        return stream.getContentAsString();
+    }
+
+    private String awaitContent(MockHttpServletResponse stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!stream.getContentAsString().contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(stream.getContentAsString().contains(expected));
+        return stream.getContentAsString();
+    }
+
+    private static int count(String events) {
+        return (int) EVENT_ID.matcher(events).results().count();
+    }
+}
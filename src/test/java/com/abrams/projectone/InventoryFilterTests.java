@@ -0,0 +1,151 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryFilter;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.inventory.InventoryView;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class InventoryFilterTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Warehouse a;
+    private Warehouse b;
+
+    @BeforeEach
+    void setup() {
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+
+        a = warehouseRepository.save(new Warehouse("A", "NY", 1000));
+        b = warehouseRepository.save(new Warehouse("B", "LA", 1000));
+        Product bolt = productRepository.save(new Product("Bolt", "HW-BOLT"));
+        Product nut = productRepository.save(new Product("Nut", "HW-NUT"));
+        Product cable = productRepository.save(new Product("Cable", "EL_CABLE"));
+        Product plug = productRepository.save(new Product("Plug", "ELXPLUG"));
+        inventoryRepository.save(new Inventory(a, bolt, 5, "A1-01"));
+        inventoryRepository.save(new Inventory(a, nut, 50, "A1-02"));
+        inventoryRepository.save(new Inventory(a, cable, 5, "B2-01"));
+        inventoryRepository.save(new Inventory(a, plug, 2, "B2-02"));
+        inventoryRepository.save(new Inventory(b, bolt, 8, "A1-01"));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void lowStockInOneWarehouseIsASingleStatement() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Inventory> low = inventoryService.getFiltered(
+            new InventoryFilter(a.getId(), null, null, null, null, 5, "quantity", null, null), 100);
+
+        assertEquals(List.of(2, 5, 5), low.stream().map(Inventory::getQuantity).toList());
+        // Associations come back fetched, not one query per row
+        low.forEach(row -> assertEquals("A", row.getWarehouse().getName()));
+        low.forEach(row -> assertNotNull(row.getProduct().getSku()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void prefixesAreMatchedLiterally() {
+        assertEquals(List.of("HW-BOLT", "HW-NUT", "HW-BOLT"), skus(filter(null, "HW-", null, null, null)));
+        // '_' is a character here, not a LIKE wildcard, so ELXPLUG does not match
+        assertEquals(List.of("EL_CABLE"), skus(filter(null, "EL_", null, null, null)));
+        assertEquals(List.of("HW-BOLT", "HW-NUT", "HW-BOLT"), skus(filter(null, null, "A1", null, null)));
+        assertEquals(List.of("HW-BOLT"), skus(filter(b.getId(), "HW", "A1-0", null, null)));
+    }
+
+    @Test
+    void keysetPagingFollowsTheQuantityOrder() {
+        List<Integer> seen = new ArrayList<>();
+        InventoryView last = null;
+        do {
+            InventoryFilter page = last == null
+                ? filter(null, null, null, "-quantity", null)
+                : new InventoryFilter(null, null, null, null, null, null, "-quantity", last.inventoryId(), last.quantity());
+            List<InventoryView> rows = inventoryService.getFilteredViews(page, 2);
+            rows.forEach(row -> seen.add(row.quantity()));
+            last = rows.size() < 2 ? null : rows.get(rows.size() - 1);
+        } while (last != null);
+
+        assertEquals(List.of(50, 8, 5, 5, 2), seen);
+    }
+
+    @Test
+    void endpointBindsFiltersFromTheQueryString() throws Exception {
+        mockMvc.perform(get("/api/inventory/view")
+                .param("warehouseId", a.getId().toString())
+                .param("minQuantity", "5")
+                .param("sort", "-quantity"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(3))
+            .andExpect(jsonPath("$[0].sku").value("HW-NUT"));
+    }
+
+    @Test
+    void contradictoryFiltersAreRejected() {
+        assertThrows(RuntimeException.class, () -> inventoryService.getFiltered(
+            new InventoryFilter(null, null, null, null, 10, 1, null, null, null), 100));
+        assertThrows(RuntimeException.class, () -> inventoryService.getFiltered(
+            new InventoryFilter(null, null, null, null, null, null, "name", null, null), 100));
+        // A quantity-sorted page can't continue from an id alone
+        assertThrows(RuntimeException.class, () -> inventoryService.getFiltered(
+            new InventoryFilter(null, null, null, null, null, null, "quantity", 5L, null), 100));
+    }
+
+    private InventoryFilter filter(Long warehouseId, String sku, String location, String sort, Integer maxQuantity) {
+        return new InventoryFilter(warehouseId, null, sku, location, null, maxQuantity, sort, null, null);
+    }
+
+    private List<String> skus(InventoryFilter filter) {
+        return inventoryService.getFilteredViews(filter, 100).stream().map(InventoryView::sku).toList();
+    }
+}
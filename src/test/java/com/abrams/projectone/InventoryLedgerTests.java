@@ -0,0 +1,179 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.inventory.MovementReason;
+import com.abrams.projectone.ledger.InventoryHistoryService;
+import com.abrams.projectone.ledger.InventoryMovement;
+import com.abrams.projectone.ledger.InventoryMovementRepository;
+import com.abrams.projectone.ledger.InventorySnapshotter;
+import com.abrams.projectone.ledger.ProductStock;
+import com.abrams.projectone.ledger.StockAsOf;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not @Transactional: movements are written at commit and snapshots in their own transactions.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class InventoryLedgerTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryHistoryService historyService;
+
+    @Autowired
+    private InventorySnapshotter snapshotter;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Warehouse a;
+    private Warehouse b;
+    private Product widget;
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        a = warehouseRepository.save(new Warehouse("A", "NY", 100));
+        b = warehouseRepository.save(new Warehouse("B", "LA", 100));
+        widget = productRepository.save(new Product("Widget", "SKU1"));
+    }
+
+    // The ledger itself is append-only and keyed by ids no other test reuses
+    @AfterEach
+    void cleanup() {
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void everyMutationAppendsSignedMovements() {
+        Inventory row = inventoryService.create(new Inventory(a, widget, 10, "A1"));
+        inventoryService.create(new Inventory(a, widget, 5, "A1"));
+        inventoryService.update(row.getId(), new Inventory(null, null, 12, null));
+        inventoryService.update(row.getId(), new Inventory(null, null, 12, "A2"));
+        inventoryService.transferInventory(a.getId(), b.getId(), widget.getId(), 4);
+        inventoryService.delete(row.getId());
+
+        List<InventoryMovement> movements = movementRepository.findAll().stream()
+            .filter(m -> m.getWarehouseId().equals(a.getId()) || m.getWarehouseId().equals(b.getId()))
+            .sorted(Comparator.comparing(InventoryMovement::getId))
+            .toList();
+        assertEquals(List.of(MovementReason.RECEIVE, MovementReason.RECEIVE, MovementReason.ADJUST,
+                MovementReason.TRANSFER_OUT, MovementReason.TRANSFER_IN, MovementReason.DELETE),
+            movements.stream().map(InventoryMovement::getReason).toList());
+        assertEquals(List.of(10, 5, -3, -4, 4, -8), movements.stream().map(InventoryMovement::getDelta).toList());
+    }
+
+    @Test
+    void changingTheProductMovesTheStockBetweenProducts() throws Exception {
+        Product gadget = productRepository.save(new Product("Gadget", "SKU2"));
+        Inventory row = inventoryService.create(new Inventory(a, widget, 10, "A1"));
+        inventoryService.update(row.getId(), new Inventory(null, gadget, 10, null));
+        Instant afterProductChange = tick();
+
+        assertEquals(List.of(new ProductStock(gadget.getId(), 10)), historyService.stockAsOf(a.getId(), afterProductChange).stock());
+
+        // Product and warehouse at once: all of it leaves (a, gadget) and arrives as (b, widget)
+        inventoryService.update(row.getId(), new Inventory(b, widget, 6, null));
+        Instant afterMove = tick();
+
+        assertEquals(List.of(), historyService.stockAsOf(a.getId(), afterMove).stock());
+        assertEquals(List.of(new ProductStock(widget.getId(), 6)), historyService.stockAsOf(b.getId(), afterMove).stock());
+    }
+
+    @Test
+    void asOfReturnsStockAtEachPointInTime() throws Exception {
+        Instant before = tick();
+        inventoryService.create(new Inventory(a, widget, 10, "A1"));
+        Instant afterCreate = tick();
+        inventoryService.transferInventory(a.getId(), b.getId(), widget.getId(), 4);
+        Instant afterTransfer = tick();
+
+        assertEquals(List.of(), historyService.stockAsOf(a.getId(), before).stock());
+        assertEquals(List.of(new ProductStock(widget.getId(), 10)), historyService.stockAsOf(a.getId(), afterCreate).stock());
+        assertEquals(List.of(new ProductStock(widget.getId(), 6)), historyService.stockAsOf(a.getId(), afterTransfer).stock());
+        assertEquals(List.of(new ProductStock(widget.getId(), 4)), historyService.stockAsOf(b.getId(), afterTransfer).stock());
+    }
+
+    @Test
+    void asOfReplaysOnlyFromTheNearestSnapshot() throws Exception {
+        inventoryService.create(new Inventory(a, widget, 10, "A1"));
+        inventoryService.create(new Inventory(a, widget, 5, "A1"));
+        Instant beforeSnapshot = tick();
+        assertEquals(1, snapshotter.snapshotAll());
+        inventoryService.transferInventory(a.getId(), b.getId(), widget.getId(), 3);
+        Instant now = tick();
+
+        StockAsOf latest = historyService.stockAsOf(a.getId(), now);
+        assertNotNull(latest.snapshotTakenAt());
+        assertEquals(1, latest.movementsReplayed());
+        assertEquals(List.of(new ProductStock(widget.getId(), 12)), latest.stock());
+
+        StockAsOf earlier = historyService.stockAsOf(a.getId(), beforeSnapshot);
+        assertNull(earlier.snapshotTakenAt());
+        assertEquals(2, earlier.movementsReplayed());
+        assertEquals(List.of(new ProductStock(widget.getId(), 15)), earlier.stock());
+
+        // The transfer moved both warehouses; after that nothing has moved
+        assertEquals(2, snapshotter.snapshotAll());
+        assertEquals(0, snapshotter.snapshotAll());
+    }
+
+    @Test
+    void asOfEndpointTakesAnIsoTimestamp() throws Exception {
+        inventoryService.create(new Inventory(a, widget, 7, "A1"));
+        Instant now = tick();
+
+        mockMvc.perform(get("/api/inventory/as-of")
+                .param("warehouseId", a.getId().toString())
+                .param("timestamp", now.toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.stock[0].productId").value(widget.getId()))
+            .andExpect(jsonPath("$.stock[0].quantity").value(7));
+    }
+
+    // Keeps the timestamps around each write strictly apart
+    private static Instant tick() throws InterruptedException {
+        Thread.sleep(2);
+        Instant now = Instant.now();
+        Thread.sleep(2);
+        return now;
+    }
+}
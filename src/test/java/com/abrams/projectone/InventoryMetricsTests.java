@@ -0,0 +1,115 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import com.abrams.projectone.warehouse.WarehouseUtilizationMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class InventoryMetricsTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private WarehouseUtilizationMetrics warehouseUtilizationMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void createCountsInsertsAndMergesSeparately() {
+        Warehouse w = warehouseRepository.saveAndFlush(new Warehouse("Main", "NY", 100));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+        double inserted = count("inventory.create.rows", "result", "inserted");
+        double merged = count("inventory.create.rows", "result", "merged");
+
+        inventoryService.create(new Inventory(w, p, 10, "Shelf A"));
+        inventoryService.create(new Inventory(w, p, 5, "Shelf A"));
+
+        assertEquals(inserted + 1, count("inventory.create.rows", "result", "inserted"));
+        assertEquals(merged + 1, count("inventory.create.rows", "result", "merged"));
+    }
+
+    @Test
+    void rejectionsAreCountedByReasonAndOperation() {
+        Warehouse a = warehouseRepository.saveAndFlush(new Warehouse("A", "NY", 10));
+        Warehouse b = warehouseRepository.saveAndFlush(new Warehouse("B", "LA", 100));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+        inventoryService.create(new Inventory(b, p, 5, "Shelf A"));
+        double capacity = count("inventory.rejections", "reason", "capacity", "operation", "create");
+        double stock = count("inventory.rejections", "reason", "insufficient_stock", "operation", "transfer");
+
+        assertThrows(RuntimeException.class, () -> inventoryService.create(new Inventory(a, p, 11, "Shelf A")));
+        assertThrows(RuntimeException.class, () -> inventoryService.transferInventory(b.getId(), a.getId(), p.getId(), 6));
+
+        assertEquals(capacity + 1, count("inventory.rejections", "reason", "capacity", "operation", "create"));
+        assertEquals(stock + 1, count("inventory.rejections", "reason", "insufficient_stock", "operation", "transfer"));
+    }
+
+    @Test
+    void serviceAndRepositoryCallsAreTimed() {
+        Warehouse w = warehouseRepository.saveAndFlush(new Warehouse("Main", "NY", 100));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+        long before = timerCount("inventory.service", "method", "create");
+
+        inventoryService.create(new Inventory(w, p, 10, "Shelf A"));
+
+        assertEquals(before + 1, timerCount("inventory.service", "method", "create"));
+        assertNotNull(meterRegistry.find("product.service").tag("method", "getById").timer());
+        assertNotNull(meterRegistry.find("spring.data.repository.invocations")
+            .tag("repository", "WarehouseRepository").tag("method", "lockAllInIdOrder").timer());
+    }
+
+    @Test
+    void utilizationGaugeReportsLoadOverCapacity() {
+        Warehouse w = warehouseRepository.saveAndFlush(new Warehouse("Main", "NY", 200));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+        inventoryService.create(new Inventory(w, p, 50, "Shelf A"));
+
+        warehouseUtilizationMetrics.refresh();
+
+        assertEquals(0.25, meterRegistry.get("warehouse.utilization").tag("warehouse", w.getId().toString()).gauge().value());
+    }
+
+    private double count(String name, String... tags) {
+        Counter counter = meterRegistry.find(name).tags(tags).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private long timerCount(String name, String... tags) {
+        Timer timer = meterRegistry.find(name).tags(tags).timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,137 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.inventory.InventoryView;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Listing inventory must cost the same number of statements no matter how many
+ * distinct warehouses/products the rows point at (no N+1 on the associations).
+ */
+@SpringBootTest
+@Transactional
+class InventoryQueryCountTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // Each row gets its own warehouse and product so N+1 can't hide behind the session cache
+    private void seed(int rows) {
+        for (int n = 0; n < rows; n++) {
+            Warehouse w = warehouseRepository.save(new Warehouse("W" + n, "NY", 1000));
+            Product p = productRepository.save(new Product("Widget " + n, "SKU" + n));
+            inventoryRepository.save(new Inventory(w, p, 5, "A"));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    private long statementsFor(Runnable read) {
+        statistics.clear();
+        read.run();
+        long count = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        return count;
+    }
+
+    @Test
+    void testListPage_SingleStatement() {
+        seed(25);
+
+        long statements = statementsFor(() -> {
+            List<Inventory> page = inventoryService.getAll(null, 100);
+            assertEquals(25, page.size());
+            page.forEach(i -> assertNotNull(i.getWarehouse().getName()));
+            page.forEach(i -> assertNotNull(i.getProduct().getSku()));
+        });
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void testFindAll_SingleStatement() {
+        seed(25);
+
+        long statements = statementsFor(() -> {
+            List<Inventory> rows = inventoryRepository.findAll();
+            rows.forEach(i -> assertNotNull(i.getProduct().getName()));
+        });
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void testViewPage_SingleStatement() {
+        seed(25);
+
+        long statements = statementsFor(() -> {
+            List<InventoryView> page = inventoryService.getViews(null, 100);
+            assertEquals(25, page.size());
+            assertEquals("SKU0", page.get(0).sku());
+            assertEquals("W0", page.get(0).warehouseName());
+        });
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void testFindByWarehouseAndProduct_SingleStatement() {
+        seed(3);
+        Inventory any = inventoryRepository.findAll().get(0);
+        Long warehouseId = any.getWarehouse().getId();
+        Long productId = any.getProduct().getId();
+        entityManager.clear();
+
+        long statements = statementsFor(() -> {
+            Inventory found = inventoryRepository.findByWarehouseIdAndProductId(warehouseId, productId).orElseThrow();
+            assertNotNull(found.getWarehouse().getName());
+            assertNotNull(found.getProduct().getName());
+        });
+
+        assertEquals(1, statements);
+    }
+}
@@ -0,0 +1,155 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.CoalescedWrite;
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.inventory.InventoryWriteCoalescer;
+import com.abrams.projectone.inventory.QuantityChange;
+import com.abrams.projectone.ledger.InventoryMovementRepository;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not @Transactional: callers inside a transaction bypass the coalescer.
+ */
+@SpringBootTest
+class InventoryWriteCoalescerTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryWriteCoalescer coalescer;
+
+    private Warehouse warehouse;
+    private Product widget;
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        warehouse = warehouseRepository.save(new Warehouse("A", "NY", 100));
+        widget = productRepository.save(new Product("Widget", "SKU1"));
+    }
+
+    @AfterEach
+    void cleanup() {
+        movementRepository.deleteAllInBatch();
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void eachChangeInABatchIsAcceptedOrRejectedOnItsOwn() {
+        List<CoalescedWrite> received = inventoryService.applyCoalesced(warehouse.getId(), widget.getId(), List.of(
+            QuantityChange.add(60, "A1"),
+            QuantityChange.add(50, "A2"),
+            QuantityChange.add(30, "A3")));
+
+        assertEquals(60, received.get(0).inventory().getQuantity());
+        assertEquals("Warehouse capacity exceeded!", received.get(1).error());
+        Inventory last = received.get(2).inventory();
+        assertEquals(90, last.getQuantity());
+        assertEquals("A1", last.getStorageLocation());
+        assertEquals(received.get(0).inventory().getId(), last.getId());
+        assertEquals(90, stock());
+        assertEquals(90L, load());
+        // One movement per accepted caller, not per batch
+        assertEquals(2, movementRepository.count());
+
+        List<CoalescedWrite> counted = inventoryService.applyCoalesced(warehouse.getId(), widget.getId(), List.of(
+            QuantityChange.set(last.getId(), 10, "A1"),
+            QuantityChange.set(last.getId() + 1, 5, null),
+            QuantityChange.set(last.getId(), 120, null)));
+
+        assertEquals(10, counted.get(0).inventory().getQuantity());
+        assertFalse(counted.get(1).applied());
+        assertEquals("Update failed: Warehouse capacity exceeded!", counted.get(2).error());
+        assertEquals(10, stock());
+        assertEquals(10L, load());
+    }
+
+    @Test
+    void concurrentWritersToOneRowEachGetTheirOwnAnswer() throws Exception {
+        Inventory row = coalescer.create(new Inventory(warehouse, widget, 50, "A1"));
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> writers = IntStream.range(0, 16).<Future<?>>mapToObj(t -> pool.submit(() -> {
+                for (int i = 0; i < 10; i++) {
+                    try {
+                        ids.add(coalescer.create(new Inventory(warehouse, widget, 1, "A1")).getId());
+                        accepted.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        assertEquals("Warehouse capacity exceeded!", e.getMessage());
+                        rejected.incrementAndGet();
+                    }
+                }
+            })).toList();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(50, accepted.get());
+        assertEquals(110, rejected.get());
+        assertEquals(Set.of(row.getId()), ids);
+        assertEquals(100, stock());
+        assertEquals(100L, load());
+
+        // A PUT body repeats warehouse, product and location
+        assertEquals(40, coalescer.update(row.getId(), new Inventory(warehouse, widget, 40, "A1")).getQuantity());
+        assertEquals(40L, load());
+        // A new location is left to the full update
+        Inventory moved = coalescer.update(row.getId(), new Inventory(warehouse, widget, 30, "B7"));
+        assertEquals("B7", moved.getStorageLocation());
+        assertEquals(30, stock());
+    }
+
+    private int stock() {
+        return inventoryRepository.findByWarehouseIdAndProductId(warehouse.getId(), widget.getId())
+            .map(Inventory::getQuantity)
+            .orElse(0);
+    }
+
+    private long load() {
+        return warehouseRepository.findById(warehouse.getId()).orElseThrow().getCurrentLoad();
+    }
+}
@@ -0,0 +1,154 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.outbox.FileOutboxSink;
+import com.abrams.projectone.outbox.OutboxDispatcher;
+import com.abrams.projectone.outbox.OutboxEvent;
+import com.abrams.projectone.outbox.OutboxRepository;
+import com.abrams.projectone.outbox.OutboxSink;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not @Transactional: outbox rows are written at commit.
+ */
+@SpringBootTest
+class OutboxTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Warehouse a;
+    private Warehouse b;
+    private Product widget;
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        a = warehouseRepository.save(new Warehouse("A", "NY", 100));
+        b = warehouseRepository.save(new Warehouse("B", "LA", 100));
+        widget = productRepository.save(new Product("Widget", "SKU1"));
+    }
+
+    @AfterEach
+    void cleanup() {
+        outboxRepository.deleteAllInBatch();
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void mutationsWriteTheirEventsInTheSameTransaction() {
+        Inventory row = inventoryService.create(new Inventory(a, widget, 10, "A1"));
+        inventoryService.transferInventory(a.getId(), b.getId(), widget.getId(), 4);
+
+        List<OutboxEvent> events = outboxRepository.findAll();
+        assertEquals(List.of("CREATED", "TRANSFERRED", "TRANSFERRED"), events.stream().map(OutboxEvent::getEventType).toList());
+        assertEquals(row.getId(), events.get(0).getAggregateId());
+        assertTrue(events.get(1).getPayload().contains("\"delta\":-4"));
+    }
+
+    @Test
+    void rolledBackMutationsLeaveNoEvents() {
+        assertThrows(RuntimeException.class, () -> inventoryService.create(new Inventory(a, widget, 101, "A1")));
+
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void dispatcherDeliversInBatchesAndRemovesWhatWasDelivered() {
+        for (int i = 0; i < 5; i++) {
+            inventoryService.create(new Inventory(a, widget, 1, "A1"));
+        }
+        List<List<Long>> batches = new ArrayList<>();
+        OutboxDispatcher dispatcher = dispatcher(batch -> batches.add(batch.stream().map(OutboxEvent::getId).toList()));
+
+        assertEquals(5, dispatcher.dispatch());
+
+        assertEquals(List.of(2, 2, 1), batches.stream().map(List::size).toList());
+        List<Long> ids = batches.stream().flatMap(List::stream).toList();
+        assertEquals(ids.stream().sorted().toList(), ids);
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void failedDeliveryKeepsTheBatchAndBacksOff() throws Exception {
+        inventoryService.create(new Inventory(a, widget, 1, "A1"));
+        int[] calls = {0};
+        OutboxDispatcher dispatcher = dispatcher(batch -> {
+            if (calls[0]++ == 0) {
+                throw new IllegalStateException("downstream unavailable");
+            }
+        });
+
+        assertEquals(0, dispatcher.dispatch());
+        assertEquals(1, outboxRepository.count());
+
+        // Still backing off: the sink isn't called again yet
+        assertEquals(0, dispatcher.dispatch());
+        assertEquals(1, calls[0]);
+
+        Thread.sleep(250);
+        assertEquals(1, dispatcher.dispatch());
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void fileSinkAppendsOneLinePerEvent(@TempDir Path dir) throws Exception {
+        inventoryService.create(new Inventory(a, widget, 3, "A1"));
+        Path file = dir.resolve("outbox.ndjson");
+
+        dispatcher(new FileOutboxSink(file, objectMapper)).dispatch();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"type\":\"CREATED\""));
+        assertTrue(lines.get(0).contains("\"payload\":{"));
+        assertTrue(lines.get(0).contains("\"quantity\":3"));
+    }
+
+    private OutboxDispatcher dispatcher(OutboxSink sink) {
+        return new OutboxDispatcher(outboxRepository, sink, transactionManager, 2,
+            Duration.ofMillis(200), Duration.ofSeconds(1), new SimpleMeterRegistry());
+    }
+}
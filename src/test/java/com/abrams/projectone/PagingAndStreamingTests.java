@@ -0,0 +1,139 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.common.Paging;
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Keyset pages (?after=&limit=) and the NDJSON /stream endpoints.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PagingAndStreamingTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        Warehouse warehouse = warehouseRepository.save(new Warehouse("Main", "NY", 1000));
+        for (int i = 1; i <= 5; i++) {
+            Product product = productRepository.save(new Product("Product " + i, "SKU" + i));
+            productIds.add(product.getId());
+            inventoryService.create(new Inventory(warehouse, product, i, "A" + i));
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        productIds.clear();
+    }
+
+    @Test
+    void pagesFollowOnFromTheLastIdSeen() throws Exception {
+        assertEquals(productIds.subList(0, 2), ids("/api/products?limit=2"));
+        assertEquals(productIds.subList(2, 4), ids("/api/products?limit=2&after=" + productIds.get(1)));
+        assertEquals(productIds.subList(4, 5), ids("/api/products?limit=2&after=" + productIds.get(3)));
+        assertEquals(List.of(), ids("/api/products?limit=2&after=" + productIds.get(4)));
+        // No limit: the default page, which holds everything here
+        assertEquals(productIds, ids("/api/products"));
+
+        List<Long> inventoryIds = ids("/api/inventory?limit=3");
+        assertEquals(3, inventoryIds.size());
+        List<Long> rest = ids("/api/inventory?limit=3&after=" + inventoryIds.get(2));
+        assertEquals(2, rest.size());
+        assertTrue(rest.get(0) > inventoryIds.get(2));
+    }
+
+    @Test
+    void limitsAreClampedAndChecked() {
+        assertEquals(Paging.DEFAULT_LIMIT, Paging.limit(null).max());
+        assertEquals(Paging.MAX_LIMIT, Paging.limit(Paging.MAX_LIMIT + 1).max());
+        assertEquals(1, Paging.limit(1).max());
+        assertThrows(RuntimeException.class, () -> Paging.limit(0));
+        assertEquals(0L, Paging.afterOrStart(null));
+    }
+
+    @Test
+    void streamsWriteOneDocumentPerLineInIdOrder() throws Exception {
+        List<JsonNode> products = stream("/api/products/stream");
+        assertEquals(productIds, products.stream().map(node -> node.get("id").asLong()).toList());
+        assertEquals("SKU1", products.get(0).get("sku").asString());
+
+        List<JsonNode> inventory = stream("/api/inventory/stream");
+        assertEquals(5, inventory.size());
+        // Rows carry their warehouse and product, not just ids
+        assertEquals("Main", inventory.get(0).get("warehouse").get("name").asString());
+        assertEquals(1, stream("/api/warehouses/stream").size());
+    }
+
+    private List<Long> ids(String url) throws Exception {
+        String body = mockMvc.perform(get(url))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        List<Long> ids = new ArrayList<>();
+        objectMapper.readTree(body).forEach(node -> ids.add(node.get("id").asLong()));
+        return ids;
+    }
+
+    private List<JsonNode> stream(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        assertTrue(body.endsWith("\n"));
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,89 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The PostgreSQL branch of the inventory upsert. Needs a real database, so it only runs
+ * with -Dpostgres.url=jdbc:postgresql://... (and postgres.username / postgres.password
+ * when they aren't postgres/postgres).
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+class PostgresUpsertTests {
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("postgres.url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("postgres.username", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getProperty("postgres.password", "postgres"));
+    }
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Warehouse warehouse;
+    private Product widget;
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        warehouse = warehouseRepository.save(new Warehouse("Main", "NY", 1000));
+        widget = productRepository.save(new Product("Widget", "SKU1"));
+    }
+
+    @AfterEach
+    void cleanup() {
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void mergesAddToTheRowWithoutDrawingIds() {
+        Inventory created = inventoryService.create(new Inventory(warehouse, widget, 10, "A1"));
+        long afterInsert = sequenceValue();
+
+        for (int i = 0; i < 5; i++) {
+            Inventory merged = inventoryService.create(new Inventory(warehouse, widget, 1, "B2"));
+            assertEquals(created.getId(), merged.getId());
+        }
+
+        assertEquals(afterInsert, sequenceValue());
+        Inventory row = inventoryRepository.findByWarehouseIdAndProductId(warehouse.getId(), widget.getId()).orElseThrow();
+        assertEquals(15, row.getQuantity());
+        assertEquals("A1", row.getStorageLocation());
+    }
+
+    private long sequenceValue() {
+        return jdbcTemplate.queryForObject("SELECT last_value FROM inventory_seq", Long.class);
+    }
+}
@@ -0,0 +1,150 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.product.ProductSearchIndex;
+import com.abrams.projectone.product.ProductService;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs against the in-memory index (tests use H2); the PostgreSQL queries rank the same way.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductSearchTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        productService.create(new Product("Cordless Drill", "DRL-100", "18V with two batteries"));
+        productService.create(new Product("Drill Bit Set", "BIT-200"));
+        productService.create(new Product("Hammer", "HAM-300", "Claw hammer, pairs with any drill"));
+        productService.create(new Product("Screwdriver", "DRL-101"));
+    }
+
+    // Other tests delete through the repositories, so start from a fresh index
+    @AfterEach
+    void cleanup() {
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        searchIndex.rebuild();
+    }
+
+    @Test
+    void skuPrefixMatchesRankFirst() {
+        assertTrue(searchIndex.isActive());
+        assertEquals(List.of("DRL-100", "DRL-101"), skus(productService.search("drl", null)));
+    }
+
+    @Test
+    void nameMatchesRankAboveDescriptionMatches() {
+        // name prefix, then name substring, then description substring
+        assertEquals(List.of("BIT-200", "DRL-100", "HAM-300"), skus(productService.search("Drill", null)));
+    }
+
+    @Test
+    void misspelledNamesStillMatch() {
+        assertEquals(List.of("HAM-300"), skus(productService.search("hamer", null)));
+    }
+
+    @Test
+    void shortQueriesOnlyPrefixMatchAndRespectTheLimit() {
+        assertEquals(List.of("DRL-100"), skus(productService.search("d", 1)));
+        assertEquals(List.of(), skus(productService.search("mm", null)));
+    }
+
+    @Test
+    void indexFollowsUpdatesAndDeletes() {
+        Product hammer = productService.search("HAM-300", null).get(0);
+        productService.update(hammer.getId(), new Product("Sledgehammer", "SLG-300"));
+
+        assertEquals(List.of(), skus(productService.search("ham-", null)));
+        assertEquals(List.of("SLG-300"), skus(productService.search("sledge", null)));
+
+        productService.delete(hammer.getId());
+        assertEquals(List.of(), skus(productService.search("sledge", null)));
+    }
+
+    @Test
+    void searchEndpointReturnsRankedProducts() throws Exception {
+        mockMvc.perform(get("/api/products/search").param("q", "drl").param("limit", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].sku").value("DRL-100"))
+            .andExpect(jsonPath("$[0].name").value("Cordless Drill"));
+    }
+
+    @Test
+    void productsSavedDuringARebuildAreKept() throws Exception {
+        CompletableFuture<Void> rebuilding = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 20; i++) {
+                searchIndex.rebuild();
+            }
+        });
+        for (int i = 0; i < 40; i++) {
+            productService.create(new Product("Gear " + i, String.format("GR-%03d", i)));
+        }
+        rebuilding.get(30, TimeUnit.SECONDS);
+
+        assertEquals(40, productService.search("gr-", 100).size());
+    }
+
+    @Test
+    void duplicateSkuIsAConflict() throws Exception {
+        mockMvc.perform(post("/api/products").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Other Drill\",\"sku\":\"DRL-100\"}"))
+            .andExpect(status().isConflict());
+        Long screwdriver = productRepository.findAll().stream()
+            .filter(product -> product.getSku().equals("DRL-101"))
+            .findFirst().orElseThrow().getId();
+        mockMvc.perform(put("/api/products/" + screwdriver).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Screwdriver\",\"sku\":\"DRL-100\"}"))
+            .andExpect(status().isConflict());
+
+        assertEquals(4, productRepository.count());
+        assertEquals(List.of("DRL-100", "DRL-101"), skus(productService.search("drl", null)));
+    }
+
+    private static List<String> skus(List<Product> products) {
+        return products.stream().map(Product::getSku).toList();
+    }
+}
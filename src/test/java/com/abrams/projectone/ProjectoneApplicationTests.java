@@ -6,12 +6,17 @@ import com.abrams.projectone.inventory.InventoryService;
 import com.abrams.projectone.product.Product;
 import com.abrams.projectone.product.ProductRepository;
 import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseLoadReconciler;
 import com.abrams.projectone.warehouse.WarehouseRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,6 +36,12 @@ class ProjectoneApplicationTests {
     @Autowired
     private InventoryService inventoryService;
 
+    @Autowired
+    private WarehouseLoadReconciler warehouseLoadReconciler;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @BeforeEach
     void setup() {
         // Cleaning up in this specific order avoids Foreign Key constraints
@@ -141,6 +152,30 @@ class ProjectoneApplicationTests {
         assertEquals(10, inventoryRepository.getTotalQuantityInWarehouse(w2.getId()));
     }
 
+    @Test
+    void testUpdate_MoveOntoExistingRowIsConflict() {
+        Warehouse w1 = warehouseRepository.saveAndFlush(new Warehouse("Source", "NY", 100));
+        Warehouse w2 = warehouseRepository.saveAndFlush(new Warehouse("Dest", "NJ", 100));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+        Product other = productRepository.saveAndFlush(new Product("Gadget", "SKU2"));
+
+        Inventory inv = inventoryService.create(new Inventory(w1, p, 10, "A"));
+        inventoryService.create(new Inventory(w2, p, 5, "B"));
+        inventoryService.create(new Inventory(w1, other, 3, "C"));
+
+        // Same product, other warehouse; then same warehouse, other product
+        ResponseStatusException moved = assertThrows(ResponseStatusException.class,
+            () -> inventoryService.update(inv.getId(), new Inventory(w2, null, 10, null)));
+        assertEquals(HttpStatus.CONFLICT, moved.getStatusCode());
+        ResponseStatusException renamed = assertThrows(ResponseStatusException.class,
+            () -> inventoryService.update(inv.getId(), new Inventory(null, other, 10, null)));
+        assertEquals(HttpStatus.CONFLICT, renamed.getStatusCode());
+
+        assertEquals(13, currentLoad(w1));
+        assertEquals(5, currentLoad(w2));
+        assertEquals(3, inventoryRepository.count());
+    }
+
     @Test
     void testTransferInventory_Success() {
         Warehouse source = warehouseRepository.saveAndFlush(new Warehouse("Source", "NY", 100));
@@ -181,4 +216,60 @@ class ProjectoneApplicationTests {
 
         assertTrue(ex.getMessage().contains("capacity exceeded"));
     }
-}
\ No newline at end of file
+
+    // current_load is written by bulk UPDATEs, so re-read it from the database
+    private long currentLoad(Warehouse w) {
+        entityManager.flush();
+        entityManager.refresh(w);
+        return w.getCurrentLoad();
+    }
+
+    @Test
+    void testCurrentLoad_TracksMutations() {
+        Warehouse source = warehouseRepository.saveAndFlush(new Warehouse("Source", "NY", 100));
+        Warehouse dest = warehouseRepository.saveAndFlush(new Warehouse("Dest", "NJ", 100));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+
+        Inventory inv = inventoryService.create(new Inventory(source, p, 50, "A"));
+        inventoryService.create(new Inventory(source, p, 10, "A"));
+        assertEquals(60, currentLoad(source));
+
+        inventoryService.transferInventory(source.getId(), dest.getId(), p.getId(), 20);
+        assertEquals(40, currentLoad(source));
+        assertEquals(20, currentLoad(dest));
+
+        Inventory shrink = new Inventory();
+        shrink.setQuantity(15);
+        inventoryService.update(inv.getId(), shrink);
+        assertEquals(15, currentLoad(source));
+
+        inventoryService.delete(inv.getId());
+        assertEquals(0, currentLoad(source));
+    }
+
+    @Test
+    void testReconciler_RepairsDrift() {
+        Warehouse w = warehouseRepository.saveAndFlush(new Warehouse("Main", "NY", 100));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+
+        // Written behind the service's back, so current_load stays at 0
+        inventoryRepository.saveAndFlush(new Inventory(w, p, 7, "A"));
+        assertEquals(0, currentLoad(w));
+
+        assertEquals(1, warehouseLoadReconciler.reconcile());
+        assertEquals(7, currentLoad(w));
+        assertEquals(0, warehouseLoadReconciler.reconcile());
+    }
+
+    @Test
+    void testUniqueWarehouseProduct_EnforcedBySchema() {
+        Warehouse w = warehouseRepository.saveAndFlush(new Warehouse("Main", "NY", 100));
+        Product p = productRepository.saveAndFlush(new Product("Widget", "SKU1"));
+
+        inventoryRepository.saveAndFlush(new Inventory(w, p, 5, "A"));
+
+        // Bypassing create() no longer produces a second row for the same pair
+        assertThrows(DataIntegrityViolationException.class, () ->
+            inventoryRepository.saveAndFlush(new Inventory(w, p, 5, "B")));
+    }
+}
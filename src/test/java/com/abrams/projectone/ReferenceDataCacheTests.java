@@ -0,0 +1,91 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.product.ProductService;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import com.abrams.projectone.warehouse.WarehouseService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not @Transactional: evictions happen after commit, so the writes have to commit.
+ */
+@SpringBootTest
+class ReferenceDataCacheTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private WarehouseService warehouseService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    @AfterEach
+    void cleanup() {
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testProductLookups_HitCacheUntilUpdated() {
+        Product p = productRepository.save(new Product("Widget", "SKU1"));
+
+        statistics.clear();
+        productService.getById(p.getId());
+        productService.getById(p.getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        Product rename = new Product("Widget v2", "SKU1");
+        productService.update(p.getId(), rename);
+        assertEquals("Widget v2", productService.getById(p.getId()).getName());
+
+        assertTrue(meterRegistry.get("cache.gets").tag("cache", "products").tag("result", "hit").functionCounter().count() >= 1);
+    }
+
+    @Test
+    void testWarehouseLoad_RefreshedAfterInventoryWrite() {
+        Warehouse w = warehouseRepository.save(new Warehouse("Main", "NY", 100));
+        Product p = productRepository.save(new Product("Widget", "SKU1"));
+
+        assertEquals(0, warehouseService.getById(w.getId()).getCurrentLoad());
+        inventoryService.create(new Inventory(w, p, 25, "A"));
+
+        assertEquals(25, warehouseService.getById(w.getId()).getCurrentLoad());
+    }
+}
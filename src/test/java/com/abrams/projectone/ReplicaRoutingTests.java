@@ -0,0 +1,143 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.config.ReadYourWritesFilter;
+import com.abrams.projectone.config.ReplicaPool;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductService;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two embedded databases stand in for the primary and a replica. Nothing replicates
+ * between them, so which one answered is visible in the data. A third, unreachable
+ * replica is there to be routed around.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=" + ReplicaRoutingTests.PRIMARY,
+    "datasource.replica.urls=" + ReplicaRoutingTests.REPLICA + "," + ReplicaRoutingTests.UNREACHABLE,
+    "datasource.replica.connection-timeout=PT0.25S",
+    "datasource.replica.retry-after=PT1H"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingTests {
+
+    private static final String OPTIONS = ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+    static final String PRIMARY = "jdbc:h2:mem:routing-primary" + OPTIONS;
+    static final String REPLICA = "jdbc:h2:mem:routing-replica" + OPTIONS;
+    static final String UNREACHABLE = "jdbc:h2:tcp://localhost:1/mem:nowhere";
+
+    private static final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY, "sa", ""));
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA, "sa", ""));
+
+    @Autowired
+    private WarehouseService warehouseService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    @Qualifier("replicaPool")
+    private ReplicaPool replicaPool;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    // A real replica gets the schema through replication
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure().dataSource(REPLICA, "sa", "").load().migrate();
+    }
+
+    @AfterEach
+    void cleanup() {
+        primary.update("DELETE FROM inventory");
+        primary.update("DELETE FROM products");
+        primary.update("DELETE FROM warehouses");
+        replica.update("DELETE FROM warehouses");
+    }
+
+    @Test
+    void readOnlyWorkGoesToTheReplicaAndWritesToThePrimary() {
+        warehouseService.create(new Warehouse("Primary only", "NY", 10));
+        replica.update("INSERT INTO warehouses (name, location, max_capacity) VALUES ('Replica only', 'LA', 10)");
+
+        assertEquals(1, primary.queryForObject("SELECT COUNT(*) FROM warehouses WHERE name = 'Primary only'", Integer.class));
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM warehouses WHERE name = 'Primary only'", Integer.class));
+        // Several reads, so the round robin has come past the unreachable replica too
+        for (int i = 0; i < 3; i++) {
+            List<String> names = new ArrayList<>();
+            warehouseService.streamAll(warehouse -> names.add(warehouse.getName()));
+            assertEquals(List.of("Replica only"), names);
+        }
+        assertEquals(1, replicaPool.availableCount());
+        // The ETag'd list is read on the primary, whose rows the table version describes
+        assertEquals("Primary only", warehouseService.getAll(null, 100).get(0).getName());
+    }
+
+    @Test
+    void clientsWithAFreshTokenReadTheirOwnWrites() throws Exception {
+        Warehouse warehouse = warehouseService.create(new Warehouse("Main", "NY", 100));
+        Product product = productService.create(new Product("Widget", "SKU1"));
+        String token = mockMvc.perform(post("/api/inventory")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"warehouse\":{\"id\":" + warehouse.getId() + "},\"product\":{\"id\":" + product.getId()
+                    + "},\"quantity\":10,\"storageLocation\":\"A1\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(ReadYourWritesFilter.HEADER);
+        assertNotNull(token);
+
+        mockMvc.perform(get("/api/inventory").header(ReadYourWritesFilter.HEADER, token))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].quantity").value(10));
+        // Without it, the (never catching up) replica answers
+        mockMvc.perform(get("/api/inventory"))
+            .andExpect(jsonPath("$.length()").value(0));
+        // Tokens past the stickiness window don't count
+        String pinned = Long.toString(System.currentTimeMillis() + Duration.ofDays(1).toMillis());
+        mockMvc.perform(get("/api/inventory").header(ReadYourWritesFilter.HEADER, pinned))
+            .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void streamsReadWhereTheRequestWasRouted() throws Exception {
+        warehouseService.create(new Warehouse("Primary only", "NY", 10));
+        replica.update("INSERT INTO warehouses (name, location, max_capacity) VALUES ('Replica only', 'LA', 10)");
+        String token = Long.toString(System.currentTimeMillis() + 2_000);
+
+        // The body is written on an executor thread, after the filter has returned
+        MvcResult fresh = mockMvc.perform(get("/api/warehouses/stream").header(ReadYourWritesFilter.HEADER, token))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertTrue(mockMvc.perform(asyncDispatch(fresh)).andReturn().getResponse().getContentAsString().contains("Primary only"));
+
+        MvcResult plain = mockMvc.perform(get("/api/warehouses/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertTrue(mockMvc.perform(asyncDispatch(plain)).andReturn().getResponse().getContentAsString().contains("Replica only"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A database built by ddl-auto before the Flyway series: identity inventory ids, no
+ * current_load, no inventory_seq, no unique keys. Flyway settings as in production.
+ * The context only starts if every migration ran and Hibernate validates the result.
+ */
+@SpringBootTest(properties = {
+    "spring.flyway.baseline-on-migrate=true",
+    "spring.flyway.baseline-version=1",
+    "spring.flyway.out-of-order=true"
+})
+class SchemaMigrationTests {
+
+    private static final String URL = "jdbc:h2:mem:ddl-auto;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+
+    @DynamicPropertySource
+    static void preSeriesDatabase(DynamicPropertyRegistry registry) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("""
+                CREATE TABLE warehouses (
+                    warehouse_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    location VARCHAR(255) NOT NULL, max_capacity INTEGER NOT NULL, name VARCHAR(255) NOT NULL)""");
+            statement.execute("""
+                CREATE TABLE products (
+                    product_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    description VARCHAR(256), name VARCHAR(255) NOT NULL, sku VARCHAR(255) NOT NULL)""");
+            statement.execute("""
+                CREATE TABLE inventory (
+                    inventory_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    quantity INTEGER NOT NULL, storage_location VARCHAR(255),
+                    product_id BIGINT NOT NULL REFERENCES products, warehouse_id BIGINT NOT NULL REFERENCES warehouses)""");
+            statement.execute("INSERT INTO warehouses (name, location, max_capacity) VALUES ('Main', 'NY', 100)");
+            statement.execute("INSERT INTO products (name, sku) VALUES ('Widget', 'SKU1'), ('Gadget', 'SKU2')");
+            statement.execute("""
+                INSERT INTO inventory (quantity, storage_location, product_id, warehouse_id)
+                SELECT 30, 'A1', product_id, (SELECT warehouse_id FROM warehouses) FROM products""");
+        }
+        registry.add("spring.datasource.url", () -> URL);
+    }
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void preSeriesSchemaIsBroughtUpToDate() {
+        List<String> applied = jdbcTemplate.queryForList(
+            "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\" AND \"version\" IS NOT NULL ORDER BY \"installed_rank\"", String.class);
+        assertEquals(List.of("1", "1.1", "2", "3", "4"), applied.subList(0, 5));
+
+        Warehouse main = warehouseRepository.findAll().get(0);
+        assertEquals(60L, main.getCurrentLoad());
+
+        // Merging into an old row needs the (warehouse, product) key; new ids come from
+        // inventory_seq, past the ones the identity column handed out
+        Long oldMaxId = jdbcTemplate.queryForObject("SELECT MAX(inventory_id) FROM inventory", Long.class);
+        Product widget = productRepository.findAll().get(0);
+        assertTrue(inventoryService.create(new Inventory(main, widget, 5, "B1")).getId() <= oldMaxId);
+        Product gizmo = productRepository.save(new Product("Gizmo", "SKU3"));
+        assertTrue(inventoryService.create(new Inventory(main, gizmo, 5, "B1")).getId() > oldMaxId);
+        assertEquals(70L, warehouseRepository.findById(main.getId()).orElseThrow().getCurrentLoad());
+    }
+}
@@ -0,0 +1,172 @@
+package com.abrams.projectone;
+
+import com.abrams.projectone.inventory.Inventory;
+import com.abrams.projectone.inventory.InventoryRepository;
+import com.abrams.projectone.inventory.InventoryService;
+import com.abrams.projectone.inventory.InventoryTransferService;
+import com.abrams.projectone.inventory.ShardRouter;
+import com.abrams.projectone.inventory.TransferSaga;
+import com.abrams.projectone.inventory.TransferSagaRepository;
+import com.abrams.projectone.inventory.TransferSagaState;
+import com.abrams.projectone.product.Product;
+import com.abrams.projectone.product.ProductRepository;
+import com.abrams.projectone.warehouse.Warehouse;
+import com.abrams.projectone.warehouse.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two shards over the one test database: the router decides which transfers are local
+ * and which run as sagas. Not @Transactional, each saga step commits on its own.
+ */
+@SpringBootTest(properties = "inventory.shards.count=2")
+class ShardedTransferTests {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private TransferSagaRepository transferSagaRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryTransferService inventoryTransferService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private Warehouse source;
+    private Warehouse remote;
+    private Product widget;
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        source = warehouseRepository.save(new Warehouse("Source", "NY", 100));
+        remote = warehouseRepository.save(new Warehouse("Remote", "LA", 30));
+        // Consecutive ids hash onto different shards of two
+        assertFalse(shardRouter.sameShard(source.getId(), remote.getId()));
+        widget = productRepository.save(new Product("Widget", "SKU1"));
+        inventoryService.create(new Inventory(source, widget, 50, "A1"));
+    }
+
+    @AfterEach
+    void cleanup() {
+        transferSagaRepository.deleteAllInBatch();
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void crossShardTransferCompletesThroughTheSaga() {
+        inventoryTransferService.transfer(source.getId(), remote.getId(), widget.getId(), 20);
+
+        assertEquals(30, stock(source));
+        assertEquals(20, stock(remote));
+        assertEquals(30L, load(source));
+        assertEquals(20L, load(remote));
+        assertEquals(TransferSagaState.COMPLETED, onlySaga().getState());
+    }
+
+    @Test
+    void failedCreditPutsTheStockBack() {
+        RuntimeException error = assertThrows(RuntimeException.class,
+            () -> inventoryTransferService.transfer(source.getId(), remote.getId(), widget.getId(), 40));
+
+        assertTrue(error.getMessage().contains("capacity"));
+        assertEquals(50, stock(source));
+        assertEquals(50L, load(source));
+        assertEquals(0L, load(remote));
+        TransferSaga saga = onlySaga();
+        assertEquals(TransferSagaState.CANCELLED, saga.getState());
+        assertEquals(error.getMessage(), saga.getFailureReason());
+    }
+
+    @Test
+    void recoveryFinishesSagasLeftHalfDone() {
+        // As if the process died between the two steps
+        TransferSaga credited = inventoryService.startTransfer(source.getId(), remote.getId(), widget.getId(), 10);
+        TransferSaga tooBig = inventoryService.startTransfer(source.getId(), remote.getId(), widget.getId(), 25);
+        assertEquals(15, stock(source));
+
+        assertEquals(0, inventoryTransferService.recover(Instant.now().minusSeconds(60)));
+        assertEquals(2, inventoryTransferService.recover(Instant.now().plusSeconds(1)));
+
+        assertEquals(TransferSagaState.COMPLETED, transferSagaRepository.findById(credited.getId()).orElseThrow().getState());
+        assertEquals(TransferSagaState.CANCELLED, transferSagaRepository.findById(tooBig.getId()).orElseThrow().getState());
+        assertEquals(40, stock(source));
+        assertEquals(10, stock(remote));
+        // Running a finished step again is a no-op
+        assertEquals(TransferSagaState.COMPLETED, inventoryService.cancelTransfer(credited.getId(), "late").getState());
+        assertEquals(10, stock(remote));
+    }
+
+    @Test
+    void singleTransactionPathsStayOnOneShard() {
+        Warehouse local = warehouseRepository.save(new Warehouse("Local", "SF", 100));
+        assertTrue(shardRouter.sameShard(source.getId(), local.getId()));
+
+        inventoryTransferService.transfer(source.getId(), local.getId(), widget.getId(), 5);
+        assertEquals(5, stock(local));
+        assertTrue(transferSagaRepository.findAll().isEmpty());
+
+        assertThrows(RuntimeException.class,
+            () -> inventoryService.transferInventory(source.getId(), remote.getId(), widget.getId(), 5));
+        Inventory row = inventoryRepository.findByWarehouseIdAndProductId(source.getId(), widget.getId()).orElseThrow();
+        assertThrows(RuntimeException.class,
+            () -> inventoryService.update(row.getId(), new Inventory(remote, null, 10, null)));
+        assertEquals(45, stock(source));
+    }
+
+    @Test
+    void movingAllTheStockRemovesTheEmptiedRow() {
+        Warehouse local = warehouseRepository.save(new Warehouse("Local", "SF", 100));
+        inventoryTransferService.transfer(source.getId(), local.getId(), widget.getId(), 20);
+
+        // Across shards, through the saga
+        inventoryTransferService.transfer(source.getId(), remote.getId(), widget.getId(), 30);
+        assertTrue(inventoryRepository.findByWarehouseIdAndProductId(source.getId(), widget.getId()).isEmpty());
+        assertEquals(30, stock(remote));
+        assertEquals(0L, load(source));
+
+        // On one shard, in one transaction
+        inventoryTransferService.transfer(local.getId(), source.getId(), widget.getId(), 20);
+        assertTrue(inventoryRepository.findByWarehouseIdAndProductId(local.getId(), widget.getId()).isEmpty());
+        assertEquals(20, stock(source));
+        assertEquals(0L, load(local));
+        assertEquals(20L, load(source));
+    }
+
+    private int stock(Warehouse warehouse) {
+        return inventoryRepository.findByWarehouseIdAndProductId(warehouse.getId(), widget.getId())
+            .map(Inventory::getQuantity)
+            .orElse(0);
+    }
+
+    private long load(Warehouse warehouse) {
+        return warehouseRepository.findById(warehouse.getId()).orElseThrow().getCurrentLoad();
+    }
+
+    private TransferSaga onlySaga() {
+        List<TransferSaga> sagas = transferSagaRepository.findAll();
+        assertEquals(1, sagas.size());
+        return sagas.get(0);
+    }
+}